@@ -40,6 +40,13 @@ import java.io.IOException;
 
 /**
  * The interface to be implemented by objects that are able to decode/encode objects.
+ * <p/>
+ * <p> Once constructed, a {@link Codec} is expected to be safe for use by multiple threads at the same time: all state
+ * needed while decoding or encoding a single value is kept on the stack, in the {@link BitBuffer}, or in the {@link
+ * Resolver} and {@link Builder} passed in. State that is determined lazily (such as a constant size) must be
+ * idempotent and safely published. The {@link BitBuffer} and {@link BitChannel} themselves are <em>not</em> safe for
+ * concurrent use; every thread needs its own. (See {@link Codecs#decodeAll(Codec, java.util.List,
+ * java.util.concurrent.Executor)}.) </p>
  *
  * @author Wilfred Springer
  * @param <T> The type of object the {@link Codec} is able to decode/encode.
@@ -61,6 +68,21 @@ public interface Codec<T> {
     T decode(BitBuffer buffer, Resolver resolver, Builder builder)
             throws DecodingException;
 
+    /**
+     * Advances the {@link BitBuffer} past a value, without materializing that value. Implementations are expected to
+     * use the size of the encoded representation whenever that size is known, to read only those parts of the encoded
+     * representation that are required for determining its size otherwise, and to fall back to decoding only if the
+     * size is truly data-dependent.
+     *
+     * @param buffer   The {@link BitBuffer} positioned at the start of the value to be skipped.
+     * @param resolver The object capable of resolving variable references, when required.
+     * @param builder  The object responsible for creating default instances of objects, in case some parts of the
+     *                 encoded representation still need to be decoded in order to determine its size.
+     * @throws DecodingException If the {@link Codec} fails to determine the end of the value.
+     */
+    void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException;
+
     /**
      * Encodes the object to the {@link org.codehaus.preon.channel.BitChannel}.
      *
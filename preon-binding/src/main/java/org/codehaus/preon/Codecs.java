@@ -41,6 +41,16 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -55,6 +65,9 @@ import org.codehaus.preon.buffer.BitBuffer;
 import org.codehaus.preon.buffer.DefaultBitBuffer;
 import org.codehaus.preon.channel.BitChannel;
 import org.codehaus.preon.channel.OutputStreamBitChannel;
+import org.codehaus.preon.util.RecordIndex;
+import org.codehaus.preon.util.RecordSpliterator;
+import org.codehaus.preon.util.Synchronizer;
 
 import org.apache.commons.io.IOUtils;
 
@@ -69,6 +82,21 @@ public class Codecs {
 
     private static final Builder DEFAULT_BUILDER = new DefaultBuilder();
 
+    /**
+     * The system property which, if set to <code>true</code>, makes {@link #create(Class)} return the same {@link Codec}
+     * for the same type every time, just like {@link #createShared(Class)}.
+     */
+    public static final String SHARED_PROPERTY = "org.codehaus.preon.sharedCodecs";
+
+    /**
+     * The {@link Codec Codecs} shared by the entire process. Every {@link Codec} is held on to by the type it decodes,
+     * so it does not prevent the class loader of that type from being garbage collected.
+     */
+    private static final ClassValue<Codec<?>> SHARED = new ClassValue<Codec<?>>() {
+        protected Codec<?> computeValue(Class<?> type) {
+            return createUnshared(type);
+        }
+    };
 
     /**
      * An enumeration of potential documentation types.
@@ -208,6 +236,191 @@ public class Codecs {
         return codec.decode(buffer, resolver, builder);
     }
 
+    /**
+     * Decodes an object from each of the buffers passed in, using the {@link Executor} to decode them concurrently. The
+     * {@link Codec} is shared by all tasks; every task gets its own {@link BitBuffer}, so the buffers passed in are
+     * neither modified nor required to be distinct.
+     *
+     * @param <T>      The type of object to be decoded.
+     * @param codec    The {@link Codec} that will take care of the actual work.
+     * @param buffers  The buffers holding the encoded data, one object per buffer.
+     * @param executor The {@link Executor} running the decoding tasks.
+     * @return The decoded objects, in the order of the buffers passed in.
+     * @throws DecodingException    If the {@link Codec} fails to decode a value from any of the buffers. Decoding the
+     *                              remaining buffers is cancelled, as far as it has not started yet.
+     * @throws InterruptedException If interrupted while waiting for the decoding tasks to complete.
+     */
+    public static <T> List<T> decodeAll(Codec<T> codec, List<ByteBuffer> buffers, Executor executor)
+            throws DecodingException, InterruptedException {
+        return decodeAll(codec, buffers, null, executor);
+    }
+
+    /**
+     * Decodes an object from each of the buffers passed in, using the {@link Executor} to decode them concurrently, and
+     * the {@link Builder} to create the objects. The {@link Builder} is shared by all tasks, so it needs to be safe for
+     * use by multiple threads, like {@link DefaultBuilder} and {@link PoolingBuilder}.
+     *
+     * @see #decodeAll(Codec, List, Executor)
+     */
+    public static <T> List<T> decodeAll(final Codec<T> codec, List<ByteBuffer> buffers, Builder builder,
+                                        Executor executor)
+            throws DecodingException, InterruptedException {
+        final Builder shared = builder == null ? DEFAULT_BUILDER : builder;
+        List<FutureTask<T>> tasks = new ArrayList<FutureTask<T>>(buffers.size());
+        for (ByteBuffer buffer : buffers) {
+            final ByteBuffer duplicate = buffer.duplicate();
+            FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+                public T call() throws DecodingException {
+                    return codec.decode(new DefaultBitBuffer(duplicate), null, shared);
+                }
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+        List<T> result = new ArrayList<T>(tasks.size());
+        try {
+            for (FutureTask<T> task : tasks) {
+                result.add(task.get());
+            }
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof DecodingException) {
+                throw (DecodingException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw (Error) cause;
+            }
+        } finally {
+            if (result.size() < tasks.size()) {
+                for (FutureTask<T> task : tasks) {
+                    task.cancel(false);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decodes an object from the buffer passed in, into an existing instance. Rather than creating a new instance, the
+     * values decoded will be assigned to the fields of the instance passed in. Nested objects will still be created
+     * using the {@link Builder}.
+     *
+     * @param <T>      The type of object to be decoded.
+     * @param codec    The {@link Codec} that will take care of the actual work.
+     * @param buffer   The {@link BitBuffer} positioned at the start of the encoded data.
+     * @param instance The instance receiving the values decoded.
+     * @param builder  The {@link Builder} creating nested objects, such as a {@link PoolingBuilder}, or
+     *                 <code>null</code> for the default {@link Builder}.
+     * @return The decoded object; the instance passed in, unless the {@link Codec} does not construct objects of its
+     *         type.
+     * @throws DecodingException If the {@link Codec} fails to decode a value from the buffer passed in.
+     */
+    public static <T> T decodeInto(Codec<T> codec, BitBuffer buffer, T instance, Builder builder)
+            throws DecodingException {
+        if (builder == null) {
+            builder = DEFAULT_BUILDER;
+        }
+        return codec.decode(buffer, null, new ReusingBuilder(instance, builder));
+    }
+
+    /**
+     * Decodes an object from the buffer passed in, into an existing instance.
+     *
+     * @see #decodeInto(Codec, BitBuffer, Object, Builder)
+     */
+    public static <T> T decodeInto(Codec<T> codec, BitBuffer buffer, T instance)
+            throws DecodingException {
+        return decodeInto(codec, buffer, instance, null);
+    }
+
+    /**
+     * Moves the buffer passed in past the next value, without decoding that value, unless required to determine its
+     * size.
+     *
+     * @param <T>    The type of object that would have been decoded.
+     * @param codec  The {@link Codec} that will take care of the actual work.
+     * @param buffer The {@link BitBuffer} positioned at the start of the value to be skipped.
+     * @throws DecodingException If the {@link Codec} fails to determine where the value ends.
+     */
+    public static <T> void skip(Codec<T> codec, BitBuffer buffer)
+            throws DecodingException {
+        codec.skip(buffer, null, DEFAULT_BUILDER);
+    }
+
+    /**
+     * Returns a {@link Stream} of the values encoded one after the other in the buffer passed in, starting at its
+     * current position. Values are decoded one at a time, while the {@link Stream} is consumed, and are not retained
+     * afterwards, so files holding an unbounded sequence of records can be processed in constant memory. The {@link
+     * Stream} ends at the end of the buffer, or at a truncated last value. A {@link DecodingException} is thrown as the
+     * cause of a {@link RuntimeException}.
+     * <p/>
+     * Note that records referring to the object holding them (<code>outer</code>) can only be decoded in the context
+     * of that object; bind them to a {@link Iterable} field with a {@link org.codehaus.preon.annotation.BoundList}
+     * annotation instead.
+     *
+     * @param <T>    The type of values to be decoded.
+     * @param codec  The {@link Codec} decoding individual values.
+     * @param source The {@link BitBuffer} positioned at the start of the first value. Its position is not affected.
+     * @return A sequential {@link Stream} of values.
+     * @see RecordSpliterator
+     */
+    public static <T> Stream<T> stream(Codec<T> codec, BitBuffer source) {
+        return stream(codec, source, DEFAULT_BUILDER);
+    }
+
+    /**
+     * Returns a {@link Stream} of the values encoded one after the other in the buffer passed in, using the {@link
+     * Builder} to create them.
+     *
+     * @see #stream(Codec, BitBuffer)
+     */
+    public static <T> Stream<T> stream(Codec<T> codec, BitBuffer source, Builder builder) {
+        if (builder == null) {
+            builder = DEFAULT_BUILDER;
+        }
+        return StreamSupport.stream(new RecordSpliterator<T>(codec, source, builder, null), false);
+    }
+
+    /**
+     * Returns a {@link Stream} of the values encoded one after the other in the buffer passed in, adding the position
+     * of every value decoded to the {@link RecordIndex} being built. The {@link RecordIndex.Writer} still needs to be
+     * committed once the {@link Stream} has been consumed completely.
+     *
+     * @see #stream(Codec, BitBuffer)
+     * @see RecordIndex#writer(File, File, java.util.function.ToLongFunction[])
+     */
+    public static <T> Stream<T> indexedStream(Codec<T> codec, BitBuffer source, RecordIndex.Writer<? super T> index) {
+        return StreamSupport.stream(new RecordSpliterator<T>(codec, source, DEFAULT_BUILDER, null, index), false);
+    }
+
+    /**
+     * Returns a parallel {@link Stream} of the values encoded one after the other in the buffer passed in. The buffer is
+     * split into ranges starting at the positions found by the {@link Synchronizer} that are confirmed by decoding a
+     * couple of values, and the ranges are decoded in parallel. The order of the values is retained.
+     *
+     * @param <T>          The type of values to be decoded.
+     * @param codec        The {@link Codec} decoding individual values.
+     * @param source       The {@link BitBuffer} positioned at the start of the first value. Its position is not
+     *                     affected.
+     * @param synchronizer The strategy for finding candidates for the start of a value, such as a sync pattern; see
+     *                     {@link org.codehaus.preon.util.Synchronizers}.
+     * @return A parallel {@link Stream} of values.
+     * @see #stream(Codec, BitBuffer)
+     */
+    public static <T> Stream<T> parallelStream(Codec<T> codec, BitBuffer source, Synchronizer synchronizer) {
+        return StreamSupport.stream(new RecordSpliterator<T>(codec, source, DEFAULT_BUILDER, null, synchronizer), true);
+    }
+
+    /**
+     * Returns an {@link Iterator} over the values encoded one after the other in the buffer passed in.
+     *
+     * @see #stream(Codec, BitBuffer)
+     */
+    public static <T> Iterator<T> iterator(Codec<T> codec, BitBuffer source) {
+        return Spliterators.iterator(new RecordSpliterator<T>(codec, source, DEFAULT_BUILDER, null));
+    }
+
     /**
      * Decodes an object from the buffer passed in.
      *
@@ -269,14 +482,43 @@ public class Codecs {
     }
 
     /**
-     * Creates a {@link Codec} for the given type.
+     * Creates a {@link Codec} for the given type. If a {@link Codec} has been generated for the type at compile time,
+     * then that {@link Codec} will be used instead of a {@link Codec} constructed at runtime. (See {@link
+     * GeneratedCodecs}.)
      *
      * @param <T>  The of object constructed using the {@link Codec}.
      * @param type The type of object constructed using the {@link Codec}.
      * @return A {@link Codec} capable of decoding/encoding instances of the type passed in.
      */
     public static <T> Codec<T> create(Class<T> type) {
-        return new DefaultCodecFactory().create(type);
+        if (Boolean.getBoolean(SHARED_PROPERTY)) {
+            return createShared(type);
+        } else {
+            return createUnshared(type);
+        }
+    }
+
+    /**
+     * Returns the {@link Codec} for the given type shared by the entire process, creating it the first time it is
+     * requested. Saves constructing the same {@link Codec Codecs} over and over again, but requires the {@link Codec
+     * Codecs} constructed for the type to be safe for use by several threads at once.
+     *
+     * @param <T>  The of object constructed using the {@link Codec}.
+     * @param type The type of object constructed using the {@link Codec}.
+     * @return A {@link Codec} capable of decoding/encoding instances of the type passed in.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> createShared(Class<T> type) {
+        return (Codec<T>) SHARED.get(type);
+    }
+
+    private static <T> Codec<T> createUnshared(Class<T> type) {
+        Codec<T> generated = GeneratedCodecs.find(type);
+        if (generated != null) {
+            return generated;
+        } else {
+            return new DefaultCodecFactory().create(type);
+        }
     }
 
     /**
@@ -329,4 +571,47 @@ public class Codecs {
                 factories, decorators, bindingDecorators);
     }
 
+    /**
+     * Creates a {@link Codec} for the given type, decoding only the fields selected by the {@link Projection}, and the
+     * fields these depend upon. All other fields of the type will be skipped, and left to their default values.
+     *
+     * @param <T>        The type of object constructed using the {@link Codec}.
+     * @param type       The type of object constructed using the {@link Codec}.
+     * @param projection The fields of the type to be decoded.
+     * @return A {@link Codec} capable of decoding the fields selected of instances of the type passed in.
+     * @throws CodecConstructionException If the {@link Projection} refers to fields that are not bound.
+     */
+    public static <T> Codec<T> create(Class<T> type, Projection projection) {
+        return new DefaultCodecFactory().create(null, type, new CodecFactory[0],
+                new CodecDecorator[0], new BindingDecorator[0], projection);
+    }
+
+    /**
+     * A {@link Builder} handing out a given instance the first time an instance of its type is requested, and
+     * delegating to another {@link Builder} otherwise.
+     */
+    private static class ReusingBuilder implements Builder {
+
+        private Object instance;
+
+        private final Builder delegate;
+
+        public ReusingBuilder(Object instance, Builder delegate) {
+            this.instance = instance;
+            this.delegate = delegate;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T create(Class<T> type) throws InstantiationException, IllegalAccessException {
+            if (instance != null && instance.getClass() == type) {
+                T result = (T) instance;
+                instance = null;
+                return result;
+            } else {
+                return delegate.create(type);
+            }
+        }
+
+    }
+
 }
@@ -40,12 +40,23 @@ import org.codehaus.preon.buffer.BitBuffer;
 /**
  * The exception thrown when the {@link Codec} fails to decode a value from the {@link BitBuffer}. See JavaDoc comments
  * of the constructors for more information on the typical circumstances causing this exception to be thrown.
+ * <p/>
+ * <p> Some {@link Codec Codecs} rely on this exception to find the end of a sequence of elements of unknown length.
+ * Since capturing the stack trace is by far the most expensive part of throwing an exception, the stack trace can be
+ * omitted by setting the system property <code>{@value #STACKLESS_PROPERTY}</code> to <code>true</code>. </p>
  *
  * @author Wilfred Springer
  */
 @SuppressWarnings("serial")
 public class DecodingException extends CodecException {
 
+    /**
+     * The name of the system property determining whether or not instances will capture their stack trace.
+     */
+    public static final String STACKLESS_PROPERTY = "org.codehaus.preon.stacklessDecodingExceptions";
+
+    private static final boolean STACKLESS = Boolean.getBoolean(STACKLESS_PROPERTY);
+
     /**
      * Constructs an exception to be thrown when the {@link Codec} fails to instantiate the value.
      *
@@ -79,4 +90,9 @@ public class DecodingException extends CodecException {
         super("Failed to create instance of " + type.getSimpleName(), ie);
     }
 
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return STACKLESS ? this : super.fillInStackTrace();
+    }
+
 }
@@ -42,7 +42,6 @@ import org.codehaus.preon.codec.*;
 import java.io.IOException;
 import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -72,6 +71,23 @@ public class DefaultCodecFactory implements CodecFactory {
                                CodecDecorator[] addOnDecorators,
                                BindingDecorator[] bindingDecorators)
     {
+        return create(metadata, type, addOnFactories, addOnDecorators,
+                bindingDecorators, null);
+    }
+
+    /**
+     * Creates a {@link Codec} for the given type, taking the additional factories and decorators into account, and
+     * decoding only the fields of that type selected by the {@link Projection}.
+     *
+     * @param projection The fields of the type to be decoded, or <code>null</code> if all fields need to be decoded.
+     */
+    public <T> Codec<T> create(AnnotatedElement metadata,
+                               Class<T> type,
+                               CodecFactory[] addOnFactories,
+                               CodecDecorator[] addOnDecorators,
+                               BindingDecorator[] bindingDecorators,
+                               Projection projection)
+    {
 
         // The actual cache of Codecs.
         final List<Codec<?>> created = new ArrayList<Codec<?>>();
@@ -93,7 +109,12 @@ public class DefaultCodecFactory implements CodecFactory {
         decorators.add(new SlicingCodecDecorator());
         decorators.add(new ByteAligningDecorator());
         decorators.add(new InitCodecDecorator());
-        decorators.addAll(Arrays.asList(addOnDecorators));
+        decorators.add(getInterningDecorator(addOnDecorators));
+        for (CodecDecorator decorator : addOnDecorators) {
+            if (!(decorator instanceof InterningCodecDecorator)) {
+                decorators.add(decorator);
+            }
+        }
 
         DecoratingCodecFactory top = new DecoratingCodecFactory(codecFactory,
                 decorators);
@@ -114,7 +135,7 @@ public class DefaultCodecFactory implements CodecFactory {
         // Create an ObjectCodecFactory that delegates to the
         // CompoundCodecFactory for each of its members.
         ObjectCodecFactory objectCodecFactory = new ObjectCodecFactory(top,
-                bindingFactory);
+                bindingFactory, type, projection);
 
         // Make sure that Codecs created by the ObjectCodecFactory can be
         // cached.
@@ -137,6 +158,20 @@ public class DefaultCodecFactory implements CodecFactory {
         return new DefaultCodec<T>(top.create(metadata, type, null), created);
     }
 
+    /**
+     * Returns the {@link InterningCodecDecorator} passed in, if any, so that its caches can be shared among {@link
+     * Codec Codecs} created by separate calls, or a new instance, keeping its caches for the lifetime of the {@link
+     * Codec} created only.
+     */
+    private static CodecDecorator getInterningDecorator(CodecDecorator[] addOnDecorators) {
+        for (CodecDecorator decorator : addOnDecorators) {
+            if (decorator instanceof InterningCodecDecorator) {
+                return decorator;
+            }
+        }
+        return new InterningCodecDecorator();
+    }
+
     /**
      * The default {@link Codec}.
      *
@@ -159,6 +194,11 @@ public class DefaultCodecFactory implements CodecFactory {
             return delegate.decode(buffer, resolver, builder);
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            delegate.skip(buffer, resolver, builder);
+        }
+
         public void encode(T value, BitChannel channel, Resolver resolver) throws IOException {
             delegate.encode(value, channel, resolver);
         }
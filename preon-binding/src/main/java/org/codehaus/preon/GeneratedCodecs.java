@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon;
+
+/**
+ * Locates {@link Codec Codecs} generated at compile time by the annotation processor in the <code>preon-processor</code>
+ * module. A generated {@link Codec} lives in the same package as the type it decodes, and is named after the binary
+ * name of that type, followed by {@link #SUFFIX}.
+ * <p/>
+ * Generated {@link Codec Codecs} are used by {@link Codecs#create(Class)}, unless the system property {@link
+ * #DISABLED_PROPERTY} is set to <code>true</code>.
+ */
+public class GeneratedCodecs {
+
+    /**
+     * The suffix appended to the binary name of a type to obtain the name of its generated {@link Codec}.
+     */
+    public static final String SUFFIX = "$$PreonCodec";
+
+    /**
+     * The system property which, if set to <code>true</code>, makes {@link #find(Class)} ignore generated {@link Codec
+     * Codecs}.
+     */
+    public static final String DISABLED_PROPERTY = "org.codehaus.preon.disableGeneratedCodecs";
+
+    private GeneratedCodecs() {
+    }
+
+    /**
+     * Returns the name of the {@link Codec} generated for the type with the given binary name.
+     */
+    public static String getCodecName(String binaryName) {
+        return binaryName + SUFFIX;
+    }
+
+    /**
+     * Returns a new instance of the {@link Codec} generated for the given type, or <code>null</code> if there is none.
+     *
+     * @throws CodecConstructionException If the generated {@link Codec} exists, but cannot be instantiated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> find(Class<T> type) {
+        if (Boolean.getBoolean(DISABLED_PROPERTY) || type.isPrimitive() || type.isArray()) {
+            return null;
+        }
+        Class<?> codecType;
+        try {
+            codecType = Class.forName(getCodecName(type.getName()), true, type.getClassLoader());
+        } catch (ClassNotFoundException cnfe) {
+            return null;
+        }
+        if (!Codec.class.isAssignableFrom(codecType)) {
+            return null;
+        }
+        try {
+            return (Codec<T>) codecType.newInstance();
+        } catch (InstantiationException ie) {
+            throw new CodecConstructionException(ie.getMessage());
+        } catch (IllegalAccessException iae) {
+            throw new CodecConstructionException(iae.getMessage());
+        }
+    }
+
+}
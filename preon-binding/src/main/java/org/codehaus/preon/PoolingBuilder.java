@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link Builder} creating instances through a {@link MethodHandle} obtained only once per type, and handing out
+ * instances {@link #recycle(Object) recycled} by the application before creating new ones. A decode loop passing the
+ * objects it is done with back to the {@link PoolingBuilder} will hardly allocate any objects of the types pooled.
+ * <p/>
+ * <p> Note that recycled instances are handed out as they are. All fields bound will be overwritten while decoding,
+ * except for fields bound conditionally, of which the condition does not hold. These fields, and fields that are not
+ * bound at all, keep the values they had before being recycled. Instances of (non-static) inner classes are created by
+ * the {@link Codec Codecs} themselves, and are therefore never taken from the pool. </p>
+ * <p/>
+ * <p> Instances are safe to use by multiple threads at the same time. </p>
+ */
+public class PoolingBuilder implements Builder {
+
+    /** The default maximum number of instances pooled per type. */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /** The maximum number of instances pooled per type. */
+    private final int capacity;
+
+    /** The handles of the default constructors, by type. */
+    private final ConcurrentMap<Class<?>, MethodHandle> constructors = new ConcurrentHashMap<Class<?>, MethodHandle>();
+
+    /** The instances recycled, by type. */
+    private final ConcurrentMap<Class<?>, BlockingQueue<Object>> pools =
+            new ConcurrentHashMap<Class<?>, BlockingQueue<Object>>();
+
+    /**
+     * Constructs a new instance, pooling at most {@link #DEFAULT_CAPACITY} instances per type.
+     */
+    public PoolingBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param capacity The maximum number of instances pooled per type.
+     */
+    public PoolingBuilder(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T create(Class<T> type) throws InstantiationException, IllegalAccessException {
+        BlockingQueue<Object> pool = pools.get(type);
+        if (pool != null) {
+            Object recycled = pool.poll();
+            if (recycled != null) {
+                return (T) recycled;
+            }
+        }
+        try {
+            return (T) getConstructor(type).invoke();
+        } catch (InstantiationException ie) {
+            throw ie;
+        } catch (IllegalAccessException iae) {
+            throw iae;
+        } catch (RuntimeException re) {
+            throw re;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            InstantiationException ie = new InstantiationException("Failed to create instance of " + type.getName());
+            ie.initCause(t);
+            throw ie;
+        }
+    }
+
+    /**
+     * Hands an instance back, to be returned by subsequent calls to {@link #create(Class)} for the same type. The
+     * instance will be dropped if the pool of its type is full already.
+     *
+     * @param instance The instance no longer used by the application.
+     */
+    public void recycle(Object instance) {
+        Class<?> type = instance.getClass();
+        BlockingQueue<Object> pool = pools.get(type);
+        if (pool == null) {
+            pool = new ArrayBlockingQueue<Object>(capacity);
+            BlockingQueue<Object> existing = pools.putIfAbsent(type, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        pool.offer(instance);
+    }
+
+    private MethodHandle getConstructor(Class<?> type) throws InstantiationException, IllegalAccessException {
+        MethodHandle result = constructors.get(type);
+        if (result == null) {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                result = MethodHandles.lookup().unreflectConstructor(constructor);
+            } catch (NoSuchMethodException nsme) {
+                throw new InstantiationException("Missing default constructor in " + type.getName());
+            }
+            constructors.putIfAbsent(type, result);
+        }
+        return result;
+    }
+
+}
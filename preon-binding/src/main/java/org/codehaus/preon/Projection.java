@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A selection of the fields of a bound type that need to be decoded. Passing a {@link Projection} to {@link
+ * Codecs#create(Class, Projection)} will result in a {@link Codec} that only populates the fields selected, plus the
+ * fields these depend upon through expressions. All other fields will be skipped, using size information whenever
+ * possible.
+ */
+public class Projection {
+
+    /** The names of the fields selected. */
+    private final Set<String> fields;
+
+    private Projection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Creates a {@link Projection} selecting the fields passed in.
+     *
+     * @param fields The names of the fields to be decoded.
+     * @return A {@link Projection} selecting the fields passed in.
+     */
+    public static Projection of(String... fields) {
+        return new Projection(Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(fields))));
+    }
+
+    /**
+     * Returns whether the field with the given name has been selected.
+     *
+     * @param field The name of the field.
+     * @return <code>true</code> if the field has been selected; <code>false</code> otherwise.
+     */
+    public boolean includes(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Returns the names of all fields selected.
+     *
+     * @return The names of all fields selected.
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public String toString() {
+        return "Projection of " + fields;
+    }
+
+}
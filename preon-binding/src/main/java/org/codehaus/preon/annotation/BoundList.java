@@ -105,4 +105,54 @@ public @interface BoundList {
      */
     Choices selectFrom() default @Choices(alternatives = {});
 
+    /**
+     * A Limbo expression, deciding which elements need to be retained in the List. The expression is evaluated in the
+     * context of the element, as soon as the fields it refers to have been decoded. Elements for which it evaluates to
+     * <code>false</code> will be skipped without decoding their remaining fields, and will not be added to the List.
+     * So an expression could be <code>includedLength &gt; 60</code>, assuming the element type has an
+     * <code>includedLength</code> field. Only supported for Lists of a single {@link #type()}.
+     *
+     * @return A Limbo expression, deciding which elements need to be retained in the List.
+     */
+    String filter() default "";
+
+    /**
+     * The way elements are retained once decoded. Only applies to Lists of which the number of elements is known in
+     * advance, and of which elements are decoded on demand.
+     *
+     * @return The way elements are retained once decoded.
+     */
+    Caching cache() default Caching.SOFT;
+
+    /**
+     * The maximum number of elements retained, if {@link #cache()} is {@link Caching#LRU}.
+     *
+     * @return The maximum number of elements retained.
+     */
+    int cacheCapacity() default 256;
+
+    enum Caching {
+
+        /**
+         * Retains nothing: every access decodes the element again.
+         */
+        NONE,
+
+        /**
+         * Retains every element decoded, for as long as the List exists.
+         */
+        STRONG,
+
+        /**
+         * Retains elements decoded until the garbage collector needs the memory.
+         */
+        SOFT,
+
+        /**
+         * Retains the elements accessed most recently, up to {@link BoundList#cacheCapacity()} elements.
+         */
+        LRU
+
+    }
+
 }
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to make the framework share instances decoded from identical encoded representations. Before decoding
+ * a value, the framework looks up the bits making up its encoded representation in a bounded cache. If it finds them,
+ * it returns the instance decoded before, without decoding anything at all.
+ * <p/>
+ * Only use this on values that are immutable, and that are determined by their encoded representation alone.
+ *
+ * @see org.codehaus.preon.codec.InterningCodecDecorator
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.TYPE})
+public @interface Intern {
+
+    /**
+     * The name of the cache. Fields sharing the same name also share the same cache, and its capacity, but only share
+     * instances decoded by the same {@link org.codehaus.preon.Codec}. Defaults to the name of the field (prefixed with
+     * the name of the class declaring it), or the name of the type annotated.
+     */
+    String value() default "";
+
+    /**
+     * The maximum number of instances kept in the cache.
+     */
+    int capacity() default 1024;
+
+    /**
+     * The policy for deciding which instance to drop once the cache is full.
+     */
+    Eviction eviction() default Eviction.LRU;
+
+    enum Eviction {
+
+        /**
+         * Drops the instance used least recently. Every hit reorders the cache, so lookups need to acquire a lock.
+         */
+        LRU,
+
+        /**
+         * Drops an instance that has not been used since the last time it was considered for eviction. Lookups are
+         * lock-free, at the expense of approximating LRU.
+         */
+        CLOCK
+
+    }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to make the framework decode all elements of a {@link BoundList} eagerly, spreading the work over the
+ * threads of the common {@link java.util.concurrent.ForkJoinPool} if the List is large enough. Only has an effect on
+ * Lists of which all elements occupy the same number of bits, since only then the position of every element is known
+ * in advance. Other Lists are decoded the way they would be without this annotation.
+ * <p/>
+ * The elements are decoded into an array-backed List, rather than the lazily loading List decoded by default. Since
+ * elements are created on multiple threads, the {@link org.codehaus.preon.Builder} passed in needs to be safe for use
+ * by multiple threads.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Parallel {
+
+    /**
+     * The minimal number of elements for which decoding is split over multiple threads. Smaller Lists are still
+     * decoded eagerly, but on the calling thread only.
+     */
+    int threshold() default 8192;
+
+}
@@ -79,6 +79,28 @@ public interface Binding {
     void load(Object object, BitBuffer buffer, Resolver resolver,
               Builder builder) throws DecodingException;
 
+    /**
+     * Moves the {@link BitBuffer} past the value bound by this binding,
+     * without populating the field.
+     *
+     * @param object
+     *            The Object on which the field would have been populated, or
+     *            <code>null</code> if there is no such object.
+     * @param buffer
+     *            The buffer from which data would have been taken.
+     * @param resolver
+     *            The object capable of returning values for references passed
+     *            in.
+     * @param builder
+     *            The builder that will be used if the Binding is (indirectly)
+     *            required to create a default instance of a type in order to
+     *            determine the size of the encoded representation.
+     * @throws DecodingException
+     *             If we fail to determine where the value ends.
+     */
+    void skip(Object object, BitBuffer buffer, Resolver resolver,
+              Builder builder) throws DecodingException;
+
     /**
      * Describes this {@link Binding} in the paragraph passed in.
      *
@@ -114,6 +114,13 @@ public class ConditionalBindingFactory implements BindingFactory {
             }
         }
 
+        public void skip(Object object, BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            if (expr.eval(resolver)) {
+                binding.skip(object, buffer, resolver, builder);
+            }
+        }
+
         public <T, V extends ParaContents<T>> V describe(final V contents) {
             contents.text(" Only if ");
             expr.document(new Document() {
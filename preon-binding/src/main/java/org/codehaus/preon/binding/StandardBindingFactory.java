@@ -46,8 +46,9 @@ import org.codehaus.preon.rendering.CamelCaseRewriter;
 import org.codehaus.preon.rendering.IdentifierRewriter;
 
 import java.lang.reflect.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.io.IOException;
 
 /**
@@ -59,7 +60,7 @@ import java.io.IOException;
 public class StandardBindingFactory implements BindingFactory {
 
     /** A unique id for bindings generated by this class. */
-    private static int id;
+    private static final AtomicInteger id = new AtomicInteger();
 
     private IdentifierRewriter rewriter = new CamelCaseRewriter();
 
@@ -71,7 +72,7 @@ public class StandardBindingFactory implements BindingFactory {
 
     private static class FieldBinding implements Binding {
 
-        private String id = "binding" + StandardBindingFactory.id++;
+        private String id = "binding" + StandardBindingFactory.id.getAndIncrement();
 
         private Field field;
 
@@ -94,13 +95,42 @@ public class StandardBindingFactory implements BindingFactory {
             this.containerReference = containerReference;
             field.setAccessible(true);
             Class<?> declaring = field.getDeclaringClass();
-            builderDecorator = new ContextualBuilderDecorator(declaring);
+            ContextualBuilderDecorator contextual = new ContextualBuilderDecorator(declaring);
+            if (contextual.isRequired() && isConstructingObjects(codec)) {
+                builderDecorator = contextual;
+            } else {
+                // No inner classes to be constructed, so no need to wrap
+                // the Builder for every value decoded.
+                builderDecorator = new NonDecoratingBuilderDecorator();
+            }
+        }
+
+        /**
+         * Returns whether the {@link Codec} may construct objects using the {@link Builder}, and therefore may need to
+         * construct inner classes. Values of primitive types, enums, and the types of <code>java.lang</code> and
+         * <code>java.nio</code> are created without a {@link Builder}.
+         */
+        private static boolean isConstructingObjects(Codec<?> codec) {
+            Class<?>[] types = codec.getTypes();
+            if (types == null || types.length == 0) {
+                return true;
+            }
+            for (Class<?> type : types) {
+                while (type.isArray()) {
+                    type = type.getComponentType();
+                }
+                if (!type.isPrimitive() && !type.isEnum()
+                        && !type.getName().startsWith("java.lang.")
+                        && !type.getName().startsWith("java.nio.")) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         public void load(Object object, BitBuffer buffer, Resolver resolver,
                          Builder builder) throws DecodingException {
             try {
-                ReflectionUtils.makeAssessible(field);
                 Object value = codec.decode(buffer, resolver, builderDecorator
                         .decorate(builder, object));
                 field.set(object, value);
@@ -119,6 +149,12 @@ public class StandardBindingFactory implements BindingFactory {
             }
         }
 
+        public void skip(Object object, BitBuffer buffer, Resolver resolver,
+                         Builder builder) throws DecodingException {
+            codec.skip(buffer, resolver, builderDecorator.decorate(builder,
+                    object));
+        }
+
         public <V extends SimpleContents<?>> V describe(V contents) {
             CodecDescriptor codecDescriptor = codec.getCodecDescriptor();
             contents.para().document(codecDescriptor.summary()).end();
@@ -186,50 +222,64 @@ public class StandardBindingFactory implements BindingFactory {
     private static class ContextualBuilderDecorator implements
             Decorator<Builder> {
 
-        private Class enclosing;
-
-        private List<Class> members;
+        /**
+         * The constructors of the non-static inner classes, accepting the enclosing instance. A <code>null</code> value
+         * indicates the inner class is lacking such a constructor.
+         */
+        private Map<Class, Constructor> members;
 
         public ContextualBuilderDecorator(Class enclosing) {
-            this.enclosing = enclosing;
-            this.members = new ArrayList<Class>();
+            this.members = new IdentityHashMap<Class, Constructor>();
             for (Class member : enclosing.getDeclaredClasses()) {
                 if (!Modifier.isStatic(member.getModifiers())) {
-                    members.add(member);
+                    Constructor constructor = null;
+                    try {
+                        constructor = member.getDeclaredConstructor(enclosing);
+                        constructor.setAccessible(true);
+                    } catch (NoSuchMethodException nsme) {
+                        // Reported when attempting to create an instance.
+                    }
+                    members.put(member, constructor);
                 }
             }
         }
 
+        /**
+         * Returns whether the enclosing class has any non-static inner classes requiring the enclosing instance to be
+         * passed in while constructing them.
+         */
+        public boolean isRequired() {
+            return !members.isEmpty();
+        }
+
         public Builder decorate(Builder builder, Object context) {
-            return new ContextualBuilder(enclosing, members, builder, context);
+            return new ContextualBuilder(members, builder, context);
         }
 
         private static class ContextualBuilder implements Builder {
 
-            private Class enclosing;
-            private List<Class> members;
+            private Map<Class, Constructor> members;
             private Builder delegate;
             private Object context;
 
-            public ContextualBuilder(Class enclosing, List<Class> members,
+            public ContextualBuilder(Map<Class, Constructor> members,
                                      Builder delegate, Object context) {
-                this.enclosing = enclosing;
                 this.members = members;
                 this.delegate = delegate;
                 this.context = context;
             }
 
+            @SuppressWarnings("unchecked")
             public <T> T create(Class<T> type) throws InstantiationException,
                     IllegalAccessException {
-                if (members.contains(type)) {
-                    try {
-                        Constructor<T> constructor = type
-                                .getDeclaredConstructor(enclosing);
-                        constructor.setAccessible(true);
-                        return constructor.newInstance(context);
-                    } catch (NoSuchMethodException nsme) {
+                if (members.containsKey(type)) {
+                    Constructor<T> constructor = members.get(type);
+                    if (constructor == null) {
                         throw new InstantiationException(
                                 "Missing valid default constructor.");
+                    }
+                    try {
+                        return constructor.newInstance(context);
                     } catch (IllegalArgumentException e) {
                         throw new InstantiationException(
                                 "Enclosing instance not accepted as argument.");
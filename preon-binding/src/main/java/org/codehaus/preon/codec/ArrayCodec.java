@@ -94,6 +94,20 @@ class ArrayCodec implements Codec<Object> {
         return result;
     }
 
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        int length = size.eval(resolver).intValue();
+        Expression<Integer, Resolver> elementSize = codec.getSize();
+        if (elementSize != null && !elementSize.isParameterized()) {
+            buffer.setBitPos(buffer.getBitPos() + (long) length
+                    * elementSize.eval(resolver));
+        } else {
+            for (int i = 0; i < length; i++) {
+                codec.skip(buffer, resolver, builder);
+            }
+        }
+    }
+
     public void encode(Object object, BitChannel channel, Resolver resolver) throws IOException {
         int numberOfElements = size.eval(resolver);
         for (int i = 0; i < numberOfElements; i++) {
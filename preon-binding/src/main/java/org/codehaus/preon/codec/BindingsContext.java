@@ -34,7 +34,9 @@ package org.codehaus.preon.codec;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.codehaus.preon.el.*;
 import org.codehaus.preon.el.ctx.MultiReference;
@@ -57,6 +59,9 @@ public class BindingsContext implements ObjectResolverContext {
     /** All {@link Binding}s, indexed by their name. */
     private HashMap<String, Binding> bindingsByName;
 
+    /** The names of all {@link Binding}s referred to by expressions. */
+    private Set<String> referenced;
+
     /** The "outer" {@link ResolverContext}. */
     private ResolverContext outer;
 
@@ -69,6 +74,7 @@ public class BindingsContext implements ObjectResolverContext {
     public BindingsContext(Class<?> type, ResolverContext outer) {
         this.orderedBindings = new ArrayList<Binding>();
         this.bindingsByName = new HashMap<String, Binding>();
+        this.referenced = new HashSet<String>();
         this.outer = outer;
     }
 
@@ -102,6 +108,7 @@ public class BindingsContext implements ObjectResolverContext {
                         "Failed to create binding for bound data called "
                                 + name);
             }
+            referenced.add(name);
             return new BindingReference(binding);
         }
     }
@@ -174,6 +181,16 @@ public class BindingsContext implements ObjectResolverContext {
         return orderedBindings;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.codehaus.preon.el.ObjectResolverContext#isReferenced(java.lang.String)
+     */
+
+    public boolean isReferenced(String name) {
+        return referenced.contains(name);
+    }
+
     /** A {@link Reference} referring to a {@link Binding}. */
     private class BindingReference implements Reference<Resolver> {
 
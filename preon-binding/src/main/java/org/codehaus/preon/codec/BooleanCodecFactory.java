@@ -87,6 +87,11 @@ public class BooleanCodecFactory implements CodecFactory {
             return buffer.readAsBoolean();
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            buffer.setBitPos(buffer.getBitPos() + 1);
+        }
+
         public void encode(Boolean value, BitChannel channel, Resolver resolver) throws IOException {
             channel.write(value);
         }
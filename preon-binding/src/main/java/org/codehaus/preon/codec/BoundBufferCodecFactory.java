@@ -39,34 +39,73 @@ import nl.flotsam.pecia.ParaContents;
 import nl.flotsam.pecia.SimpleContents;
 import org.codehaus.preon.*;
 import org.codehaus.preon.annotation.BoundBuffer;
+import org.codehaus.preon.annotation.BoundList;
 import org.codehaus.preon.buffer.BitBuffer;
 import org.codehaus.preon.channel.BitChannel;
 import org.codehaus.preon.descriptor.Documenters;
+import org.codehaus.preon.el.BindingException;
+import org.codehaus.preon.el.InvalidExpressionException;
 
 import java.io.IOException;
 import java.lang.reflect.AnnotatedElement;
+import java.nio.ByteBuffer;
 
+/**
+ * The {@link CodecFactory} for sequences of bytes that are not decoded any further. It creates {@link Codec Codecs} for
+ * byte arrays or {@link ByteBuffer ByteBuffers} annotated with {@link BoundBuffer}, and for {@link ByteBuffer
+ * ByteBuffers} annotated with {@link BoundList}, in which case the size is the number of bytes. {@link ByteBuffer
+ * ByteBuffers} decoded are read-only, and whenever possible a view on the data decoded rather than a copy.
+ */
 public class BoundBufferCodecFactory implements CodecFactory {
 
     private Class<?> BYTE_CLASS = (new byte[0]).getClass();
 
     public <T> Codec<T> create(AnnotatedElement metadata, Class<T> type,
                                ResolverContext context) {
-        if (type.isArray() && BYTE_CLASS.equals(type)
+        if (metadata == null) {
+            return null;
+        } else if ((BYTE_CLASS.equals(type) || ByteBuffer.class.equals(type))
                 && metadata.isAnnotationPresent(BoundBuffer.class)) {
             return (Codec<T>) new BoundBufferCodec(metadata.getAnnotation(
-                    BoundBuffer.class).match());
+                    BoundBuffer.class).match(), ByteBuffer.class.equals(type));
+        } else if (ByteBuffer.class.equals(type)
+                && metadata.isAnnotationPresent(BoundList.class)) {
+            return (Codec<T>) new ByteBufferCodec(getSizeExpression(
+                    metadata.getAnnotation(BoundList.class), context));
         } else {
             return null;
         }
     }
 
+    private Expression<Integer, Resolver> getSizeExpression(
+            BoundList settings, ResolverContext context)
+            throws CodecConstructionException {
+        if (settings.size() == null || settings.size().length() == 0) {
+            throw new CodecConstructionException(
+                    "ByteBuffers bound by a BoundList require a size.");
+        }
+        try {
+            return Expressions.createInteger(context, settings.size());
+        } catch (InvalidExpressionException iee) {
+            throw new CodecConstructionException(iee);
+        } catch (BindingException be) {
+            throw new CodecConstructionException(be);
+        }
+    }
+
     private static class BoundBufferCodec implements Codec<Object> {
 
-        private byte[] criterion;
+        private final byte[] criterion;
+
+        /**
+         * A read-only view on {@link #criterion}, returned instead of the array itself for {@link ByteBuffer} fields,
+         * or <code>null</code> for byte array fields.
+         */
+        private final ByteBuffer view;
 
-        public BoundBufferCodec(byte[] matches) {
+        public BoundBufferCodec(byte[] matches, boolean byteBuffer) {
             this.criterion = matches;
+            this.view = byteBuffer ? ByteBuffer.wrap(matches).asReadOnlyBuffer() : null;
         }
 
         public Object decode(BitBuffer buffer, Resolver resolver,
@@ -77,7 +116,14 @@ public class BoundBufferCodecFactory implements CodecFactory {
                             + " bytes do not match expected value.");
                 }
             }
-            return criterion;
+            return view == null ? criterion : view.duplicate();
+        }
+
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            // Matching does not allocate anything, and skipping should fail
+            // the same way decoding would fail.
+            decode(buffer, resolver, builder);
         }
 
         public void encode(Object object, BitChannel channel, Resolver resolver) throws IOException {
@@ -80,6 +80,15 @@ public class ByteAligningDecorator implements CodecDecorator {
             return result;
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            decorated.skip(buffer, resolver, builder);
+            long pos = buffer.getBitPos() % 8;
+            if (pos > 0) {
+                buffer.setBitPos(buffer.getBitPos() + 8 - pos);
+            }
+        }
+
         public void encode(T object, BitChannel channel, Resolver resolver) throws IOException {
             int bits = 8 - channel.getRelativeBitPos();
             if (bits != 8) {
@@ -37,11 +37,16 @@ import org.codehaus.preon.*;
 import org.codehaus.preon.buffer.BitBuffer;
 import org.codehaus.preon.channel.BitChannel;
 import org.codehaus.preon.descriptor.PassThroughCodecDescriptor2;
-import org.codehaus.preon.util.AnnotationUtils;
 
 import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.AnnotatedElement;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * An implementation of the {@link CodecFactory} interface that will prevent the same {@link Codec} from being
@@ -72,10 +77,25 @@ import java.util.*;
 public class CachingCodecFactory implements CodecFactory {
 
     /**
-     * A list of all {@link Codecs} already constructed, indexed by just the
-     * type. (In the future, this should include the metadata as well.)
+     * All {@link Codec Codecs} already constructed (or under construction), indexed by type first, and then by the
+     * annotations of the metadata. Since the map of a type is held on to by the type itself, {@link Codec Codecs} for
+     * types loaded by a class loader that is no longer used can be garbage collected along with that class loader.
      */
-    private Map<Key, CodecHolder<?>> created;
+    private final ClassValue<ConcurrentMap<Key, Entry<?>>> created = new ClassValue<ConcurrentMap<Key, Entry<?>>>() {
+        protected ConcurrentMap<Key, Entry<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Key, Entry<?>>();
+        }
+    };
+
+    /**
+     * The {@link Codec Codecs} constructed, in order of construction. Only weakly referenced, for the same reason.
+     */
+    private final Queue<WeakReference<Codec<?>>> constructed = new ConcurrentLinkedQueue<WeakReference<Codec<?>>>();
+
+    /**
+     * The entries each thread is waiting for, in order to detect threads waiting for each other.
+     */
+    private final ConcurrentMap<Thread, Entry<?>> waiting = new ConcurrentHashMap<Thread, Entry<?>>();
 
     /**
      * The object to which the actual construction of the {@link Codec} will be
@@ -104,7 +124,6 @@ public class CachingCodecFactory implements CodecFactory {
      *            before.
      */
     public CachingCodecFactory(CodecFactory delegate) {
-        created = new HashMap<Key, CodecHolder<?>>();
         this.delegate = delegate;
     }
 
@@ -117,48 +136,140 @@ public class CachingCodecFactory implements CodecFactory {
         this.listener = listener;
     }
 
-    // JavaDoc inherited
-
+    /**
+     * {@inheritDoc} Safe to be called from several threads at once. Only one thread constructs the {@link Codec} for a
+     * certain type and metadata; other threads wait for it to finish. Requests for a {@link Codec} still under
+     * construction by the same thread (or by a thread waiting for the current thread) are considered to be circular
+     * references, and receive a {@link CodecHolder} that will delegate to the {@link Codec} once it is constructed.
+     */
     @SuppressWarnings("unchecked")
     public <T> Codec<T> create(AnnotatedElement metadata, Class<T> type,
                                ResolverContext context) {
-        Key key = new Key(metadata, type, context);
-        Codec<T> result = (Codec<T>) created.get(key);
-        if (result == null) {
-            CodecHolder<T> holder = new CodecHolder<T>(type);
-            created.put(key, holder);
-            result = delegate.create(metadata, type, context);
-            if (result == null) {
-                return null;
-            } else {
-                listener.constructed(result);
-                holder.set(result);
-                return result;
+        ConcurrentMap<Key, Entry<?>> entries = created.get(type);
+        Key key = new Key(metadata);
+        Entry<T> entry = (Entry<T>) entries.get(key);
+        if (entry == null) {
+            Entry<T> pending = new Entry<T>(type);
+            entry = (Entry<T>) entries.putIfAbsent(key, pending);
+            if (entry == null) {
+                return construct(entries, key, pending, metadata, type, context);
+            }
+        }
+        if (!entry.isDone() && !isCircular(entry)) {
+            waiting.put(Thread.currentThread(), entry);
+            try {
+                entry.await();
+            } finally {
+                waiting.remove(Thread.currentThread());
             }
+        }
+        if (entry.isDone() && entry.holder.get() == null) {
+            return null;
         } else {
-            if (result instanceof CodecHolder) {
-                CodecHolder<T> holder = (CodecHolder<T>) result;
-                if (holder.get() == null) {
-                    return null;
-                }
+            return entry.holder;
+        }
+    }
+
+    private <T> Codec<T> construct(ConcurrentMap<Key, Entry<?>> entries, Key key, Entry<T> entry,
+                                   AnnotatedElement metadata, Class<T> type, ResolverContext context) {
+        try {
+            Codec<T> result = delegate.create(metadata, type, context);
+            if (result != null) {
+                listener.constructed(result);
+                entry.holder.set(result);
+                constructed.add(new WeakReference<Codec<?>>(result));
             }
             return result;
+        } catch (RuntimeException re) {
+            // Allow the next request to try again.
+            entries.remove(key, entry);
+            throw re;
+        } finally {
+            entry.done();
         }
     }
 
+    /**
+     * Returns whether waiting for the {@link Entry} would make the current thread wait for itself.
+     */
+    private boolean isCircular(Entry<?> entry) {
+        Thread current = Thread.currentThread();
+        Set<Thread> visited = new HashSet<Thread>();
+        Entry<?> next = entry;
+        while (next != null && !next.isDone()) {
+            if (next.owner == current) {
+                return true;
+            } else if (!visited.add(next.owner)) {
+                return false;
+            }
+            next = waiting.get(next.owner);
+        }
+        return false;
+    }
+
     /**
      * Returns the {@link Codec Codecs} created by this factory
      *
      * @return A {@link List} of {@link Codec Codecs} created by this factory.
      */
     public List<Codec<?>> getCodecs() {
-        return Collections.unmodifiableList(new ArrayList<Codec<?>>(created
-                .values()));
+        List<Codec<?>> result = new ArrayList<Codec<?>>();
+        for (WeakReference<Codec<?>> reference : constructed) {
+            Codec<?> codec = reference.get();
+            if (codec != null) {
+                result.add(codec);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The state of the construction of a single {@link Codec}.
+     */
+    private static class Entry<T> {
+
+        private final CodecHolder<T> holder;
+
+        /**
+         * The thread constructing the {@link Codec}.
+         */
+        private final Thread owner;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        public Entry(Class<T> type) {
+            this.holder = new CodecHolder<T>(type);
+            this.owner = Thread.currentThread();
+        }
+
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        public void done() {
+            done.countDown();
+        }
+
+        public void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
     }
 
     private static class CodecHolder<T> implements Codec<T> {
 
-        private Codec<T> codec;
+        private volatile Codec<T> codec;
 
         private Class<T> type;
 
@@ -171,6 +282,11 @@ public class CachingCodecFactory implements CodecFactory {
             return codec.decode(buffer, resolver, builder);
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            codec.skip(buffer, resolver, builder);
+        }
+
         public void encode(T value, BitChannel channel, Resolver resolver) throws IOException {
             codec.encode(value, channel, resolver);
         }
@@ -202,19 +318,25 @@ public class CachingCodecFactory implements CodecFactory {
 
     }
 
+    /**
+     * The key of a {@link Codec} within the {@link Codec Codecs} of the same type: the annotations of the metadata. The
+     * metadata itself is not held on to, since it might refer to a type loaded by a different class loader.
+     */
     private static class Key {
 
-        private AnnotatedElement metadata;
-
-        private Class<?> type;
+        private final Annotation[] annotations;
 
-        private ResolverContext context;
+        private final int hashCode;
 
-        public Key(AnnotatedElement metadata, Class<?> type,
-                   ResolverContext context) {
-            this.metadata = metadata;
-            this.type = type;
-            this.context = context;
+        public Key(AnnotatedElement metadata) {
+            this.annotations = metadata == null ? null : metadata.getAnnotations();
+            int result = 7;
+            if (annotations != null) {
+                for (Annotation annotation : annotations) {
+                    result += annotation.hashCode();
+                }
+            }
+            this.hashCode = result;
         }
 
         @Override
@@ -224,23 +346,21 @@ public class CachingCodecFactory implements CodecFactory {
             } else {
                 Key key = (Key) obj;
                 // TODO: Add ResolverContext
-                return ((metadata == null && key.metadata == null) || AnnotationUtils
-                        .equivalent(metadata, key.metadata))
-                        && ((type == null && key.type == null) || type
-                        .equals(key.type));
+                if (annotations == null || key.annotations == null) {
+                    return annotations == key.annotations;
+                } else if (annotations.length != key.annotations.length) {
+                    return false;
+                } else {
+                    return new HashSet<Annotation>(Arrays.asList(annotations))
+                            .containsAll(Arrays.asList(key.annotations));
+                }
             }
         }
 
         @Override
         public int hashCode() {
             // TODO: Add ResolverContext
-            int result = 7;
-            result = result
-                    * 31
-                    + (metadata == null ? 0 : AnnotationUtils
-                    .calculateHashCode(metadata));
-            result = result * 31 + (type == null ? 0 : type.hashCode());
-            return result;
+            return hashCode;
         }
 
     }
@@ -57,16 +57,42 @@ import java.lang.reflect.AnnotatedElement;
  */
 public class EnumCodec<T> implements Codec<T> {
 
-    private final Class<T> type;
+    /**
+     * The maximum number of slots of the dense lookup table. Values spanning a wider range, or spread out too thinly
+     * over their range, are looked up in an {@link OpenLongMap} instead.
+     */
+    static final int MAX_TABLE_SIZE = 1024;
+
+    private static final int MAX_TABLE_SPREAD = 4;
 
     private final Map<Long, T> mapping;
 
+    private final Class<T> type;
+
+    /**
+     * The symbols indexed by their value minus {@link #lowest}, or <code>null</code> if the values are too sparse.
+     */
+    private final T[] table;
+
+    private final long lowest;
+
+    /**
+     * The symbols indexed by their value, in case {@link #table} is <code>null</code>.
+     */
+    private final OpenLongMap<T> sparse;
+
+    /**
+     * The symbol to return for values not covered by any {@link org.codehaus.preon.annotation.BoundEnumOption}.
+     */
+    private final T defaultValue;
+
     private final Map<T, Long> inverseMapping;
 
     private final Expression<Integer, Resolver> size;
 
     private final ByteOrder byteOrder;
 
+    @SuppressWarnings("unchecked")
     public EnumCodec(Class<T> type, Map<Long, T> mapping,
                      Expression<Integer, Resolver> sizeExpr, ByteOrder endian) {
         assert type != null;
@@ -77,6 +103,37 @@ public class EnumCodec<T> implements Codec<T> {
         this.mapping = mapping;
         this.size = sizeExpr;
         this.byteOrder = endian;
+        this.defaultValue = mapping.get(null);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        int count = 0;
+        for (Long value : mapping.keySet()) {
+            if (value != null) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                count++;
+            }
+        }
+        if (count > 0 && max - min >= 0 && max - min < MAX_TABLE_SIZE
+                && max - min < Math.max(count, 16) * MAX_TABLE_SPREAD) {
+            this.lowest = min;
+            this.table = (T[]) new Object[(int) (max - min + 1)];
+            this.sparse = null;
+            for (Map.Entry<Long, T> entry : mapping.entrySet()) {
+                if (entry.getKey() != null) {
+                    table[(int) (entry.getKey() - min)] = entry.getValue();
+                }
+            }
+        } else {
+            this.lowest = 0;
+            this.table = null;
+            this.sparse = new OpenLongMap<T>(count);
+            for (Map.Entry<Long, T> entry : mapping.entrySet()) {
+                if (entry.getKey() != null) {
+                    sparse.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
         inverseMapping = new HashMap<T, Long>();
         for (Map.Entry<Long, T> entry : mapping.entrySet()) {
             inverseMapping.put(entry.getValue(), entry.getKey());
@@ -86,11 +143,19 @@ public class EnumCodec<T> implements Codec<T> {
     public T decode(BitBuffer buffer, Resolver resolver, Builder builder)
             throws DecodingException {
         long value = buffer.readAsLong(size.eval(resolver), byteOrder);
-        T result = mapping.get(value);
-        if (result == null) {
-            result = mapping.get(null);
+        T result;
+        if (table != null) {
+            long index = value - lowest;
+            result = index >= 0 && index < table.length ? table[(int) index] : null;
+        } else {
+            result = sparse.get(value);
         }
-        return result;
+        return result == null ? defaultValue : result;
+    }
+
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        buffer.setBitPos(buffer.getBitPos() + size.eval(resolver));
     }
 
     public void encode(T object, BitChannel channel, Resolver resolver) throws IOException {
@@ -187,6 +252,54 @@ public class EnumCodec<T> implements Codec<T> {
         };
     }
 
+    /**
+     * A minimal open-addressing hash map from primitive <code>long</code> keys to values, using linear probing. Only
+     * supports insertion up front and lookups afterwards, which is all the {@link EnumCodec} needs, and saves boxing the
+     * decoded value on every lookup.
+     */
+    static class OpenLongMap<V> {
+
+        private final long[] keys;
+
+        private final Object[] values;
+
+        private final int mask;
+
+        OpenLongMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 2) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+
+        void put(long key, V value) {
+            int i = indexOf(key);
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            int i = indexOf(key);
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        private int indexOf(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+    }
+
     /**
      * A {@link org.codehaus.preon.CodecFactory} creating {@link org.codehaus.preon.Codec Codecs} capable of decoding enum
      * values. At this state, it will be triggered by enum type of fields with a {@link
@@ -40,7 +40,7 @@ import nl.flotsam.pecia.SimpleContents;
 import org.codehaus.preon.*;
 import org.codehaus.preon.annotation.BoundString;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CharsetDecoder;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.io.StringWriter;
@@ -58,8 +58,6 @@ import java.io.IOException;
 public class FixedLengthStringCodec implements Codec<String> {
 
     private final Charset encoding;
-    
-    private final CharsetEncoder encoder;
 
     private final Expression<Integer, Resolver> sizeExpr;
 
@@ -67,6 +65,8 @@ public class FixedLengthStringCodec implements Codec<String> {
 
     private final BoundString.ByteConverter byteConverter;
 
+    private final ThreadLocal<CharsetDecoder> decoders;
+
     public FixedLengthStringCodec(Charset encoding,
                                   Expression<Integer, Resolver> sizeExpr, String match,
                                   BoundString.ByteConverter byteConverter) {
@@ -74,24 +74,14 @@ public class FixedLengthStringCodec implements Codec<String> {
         this.sizeExpr = sizeExpr;
         this.match = match;
         this.byteConverter = byteConverter;
-        this.encoder = encoding.newEncoder();
+        this.decoders = StringDecoding.decoders(encoding);
     }
 
     public String decode(BitBuffer buffer, Resolver resolver,
                          Builder builder) throws DecodingException {
-		/* This takes a slice of the BitBuffer as a ByteBuffer,
-		 * and feeds it into encoding.decode.
-		 * */
         int size = sizeExpr.eval(resolver);
-        ByteBuffer bytebuffer = ByteBuffer.allocate(size);
-		byte readbyte;
-		for (int i = 0; i < size; i++) {
-			readbyte = byteConverter.convert(buffer.readAsByte(8));
-            bytebuffer.put(readbyte);
-        }
-        bytebuffer.rewind();
-        String result;
-        result = encoding.decode(bytebuffer).toString();
+        String result = StringDecoding.decode(
+                StringDecoding.read(buffer, size, byteConverter), encoding, decoders);
         result = result.trim(); // remove padding characters
         if (match.length() > 0) {
             if (!match.equals(result)) {
@@ -103,10 +93,21 @@ public class FixedLengthStringCodec implements Codec<String> {
         return result;
     }
 
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        if (match.length() > 0) {
+            // Skipping should fail the same way decoding would fail.
+            decode(buffer, resolver, builder);
+        } else {
+            buffer.setBitPos(buffer.getBitPos() + 8L * sizeExpr.eval(resolver));
+        }
+    }
+
     public void encode(String value, BitChannel channel, Resolver resolver) throws IOException {
         int size = sizeExpr.eval(resolver);
         ByteBuffer bytebuffer = ByteBuffer.allocate(size);
-        encoder.encode(CharBuffer.wrap(value), bytebuffer, true);
+        // CharsetEncoders are stateful, so sharing one would make this codec unsafe to use from multiple threads.
+        encoding.newEncoder().encode(CharBuffer.wrap(value), bytebuffer, true);
 
         if (bytebuffer.position() < size) { // pad with 0's
             bytebuffer.put(new byte[size - bytebuffer.position()]);
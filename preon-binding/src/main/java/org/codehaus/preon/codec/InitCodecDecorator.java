@@ -121,6 +121,11 @@ public class InitCodecDecorator implements CodecDecorator {
             return result;
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            codec.skip(buffer, resolver, builder);
+        }
+
         public void encode(T value, BitChannel channel, Resolver resolver) throws IOException {
             codec.encode(value, channel, resolver);
         }
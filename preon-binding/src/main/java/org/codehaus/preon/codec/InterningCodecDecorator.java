@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.Builder;
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.CodecDecorator;
+import org.codehaus.preon.CodecDescriptor;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.Resolver;
+import org.codehaus.preon.ResolverContext;
+import org.codehaus.preon.annotation.Intern;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.channel.BitChannel;
+import org.codehaus.preon.el.Expression;
+import org.codehaus.preon.util.InternCache;
+
+import java.io.IOException;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link CodecDecorator} sharing instances decoded from identical encoded representations, triggered by the {@link
+ * Intern} annotation. The caches are kept by name, for as long as the decorator itself: every {@link Codec} created by
+ * {@link org.codehaus.preon.DefaultCodecFactory} gets its own decorator, unless an instance is passed in as one of the
+ * additional {@link CodecDecorator CodecDecorators}, in which case all {@link Codec Codecs} created with that instance
+ * share its caches, and the statistics of every cache can be obtained through {@link #getCache(String)}.
+ * <p/>
+ * Caches sharing the same name share their capacity, but an instance is only shared among values decoded by the same
+ * {@link Codec}, since other {@link Codec Codecs} may decode the same bits into different values.
+ */
+public class InterningCodecDecorator implements CodecDecorator {
+
+    private final ConcurrentMap<String, InternCache<Key, Object>> caches =
+            new ConcurrentHashMap<String, InternCache<Key, Object>>();
+
+    public <T> Codec<T> decorate(Codec<T> decorated, AnnotatedElement metadata,
+                                 Class<T> type, ResolverContext context) {
+        Intern settings = null;
+        if (metadata != null) {
+            settings = metadata.getAnnotation(Intern.class);
+        }
+        if (settings == null) {
+            settings = type.getAnnotation(Intern.class);
+        }
+        if (settings == null) {
+            return decorated;
+        } else {
+            return new InterningCodec<T>(decorated, getCache(getName(settings, metadata, type), settings));
+        }
+    }
+
+    /**
+     * Returns the cache with the given name, or <code>null</code> if no {@link Codec} using it has been created yet.
+     *
+     * @param name The name of the cache, as passed to {@link Intern#value()}, or the default name derived from the
+     *             field or type annotated.
+     */
+    public InternCache<?, ?> getCache(String name) {
+        return caches.get(name);
+    }
+
+    private InternCache<Key, Object> getCache(String name, Intern settings) {
+        InternCache<Key, Object> cache = caches.get(name);
+        if (cache == null) {
+            if (settings.eviction() == Intern.Eviction.CLOCK) {
+                cache = InternCache.clock(settings.capacity());
+            } else {
+                cache = InternCache.lru(settings.capacity());
+            }
+            InternCache<Key, Object> existing = caches.putIfAbsent(name, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        return cache;
+    }
+
+    private static String getName(Intern settings, AnnotatedElement metadata, Class<?> type) {
+        if (settings.value().length() > 0) {
+            return settings.value();
+        } else if (metadata instanceof Field) {
+            Field field = (Field) metadata;
+            return field.getDeclaringClass().getName() + "." + field.getName();
+        } else {
+            return type.getName();
+        }
+    }
+
+    /**
+     * The key under which instances are cached: the bits of their encoded representation, and the {@link Codec}
+     * decoding them.
+     */
+    static class Key {
+
+        private final Codec<?> codec;
+
+        private final byte[] bytes;
+
+        private final long bits;
+
+        private final int hashCode;
+
+        Key(Codec<?> codec, byte[] bytes, long bits) {
+            this.codec = codec;
+            this.bytes = bytes;
+            this.bits = bits;
+            this.hashCode = 31 * (31 * System.identityHashCode(codec) + Arrays.hashCode(bytes)) + (int) bits;
+        }
+
+        /**
+         * Reads the bits in between <code>start</code> and <code>end</code> from the {@link BitBuffer}, in bulk if
+         * possible. Leaves the position of the {@link BitBuffer} untouched.
+         */
+        static Key read(Codec<?> codec, BitBuffer buffer, long start, long end) {
+            long bits = end - start;
+            BitBuffer source = buffer.duplicate();
+            source.setBitPos(start);
+            byte[] bytes = new byte[(int) ((bits + 7) / 8)];
+            if (bits % 8 == 0 && source.getActualBitPos() % 8 == 0) {
+                source.readAsByteBuffer(bytes.length).get(bytes);
+            } else {
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = source.readAsByte((int) Math.min(8, bits - 8L * i));
+                }
+            }
+            return new Key(codec, bytes, bits);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return codec == other.codec && bits == other.bits && Arrays.equals(bytes, other.bytes);
+            } else {
+                return false;
+            }
+        }
+
+    }
+
+    /**
+     * A {@link Codec} looking up the encoded representation in the cache before decoding. It determines the end of the
+     * encoded representation through {@link Codec#getSize()} if possible, or by skipping it otherwise.
+     */
+    private static class InterningCodec<T> implements Codec<T> {
+
+        private final Codec<T> codec;
+
+        private final InternCache<Key, Object> cache;
+
+        public InterningCodec(Codec<T> codec, InternCache<Key, Object> cache) {
+            this.codec = codec;
+            this.cache = cache;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T decode(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            long start = buffer.getBitPos();
+            long end;
+            Expression<Integer, Resolver> size = codec.getSize();
+            if (size != null) {
+                end = start + size.eval(resolver);
+            } else {
+                BitBuffer probe = buffer.duplicate();
+                codec.skip(probe, resolver, builder);
+                end = probe.getBitPos();
+            }
+            Key key = Key.read(codec, buffer, start, end);
+            Object cached = cache.get(key);
+            if (cached != null) {
+                buffer.setBitPos(end);
+                return (T) cached;
+            } else {
+                T result = codec.decode(buffer, resolver, builder);
+                if (result != null) {
+                    // Some other thread may have cached a value in the meantime; share that one.
+                    result = (T) cache.put(key, result);
+                }
+                return result;
+            }
+        }
+
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            codec.skip(buffer, resolver, builder);
+        }
+
+        public void encode(T value, BitChannel channel, Resolver resolver) throws IOException {
+            codec.encode(value, channel, resolver);
+        }
+
+        public Expression<Integer, Resolver> getSize() {
+            return codec.getSize();
+        }
+
+        public CodecDescriptor getCodecDescriptor() {
+            return codec.getCodecDescriptor();
+        }
+
+        public Class<?>[] getTypes() {
+            return codec.getTypes();
+        }
+
+        public Class<?> getType() {
+            return codec.getType();
+        }
+
+    }
+
+}
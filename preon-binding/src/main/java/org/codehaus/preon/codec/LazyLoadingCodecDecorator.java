@@ -33,6 +33,7 @@
 package org.codehaus.preon.codec;
 
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
 import org.codehaus.preon.el.Expression;
@@ -48,9 +49,9 @@ import java.lang.reflect.Method;
 
 /**
  * An attempt to create a general purpose {@link CodecFactory} whose {@link Codec Codecs} will only load their data once
- * operations are invoked upon them. <p/> <p> Note that there are some concurrency issues with this approach. The {@link
- * Codec} will create a proxy. When an operation is invoked on that proxy, the proxy will check if it already obtained
- * the actual value. This is where it's getting nasty. Multiple threads might come in simultaneously. </p>
+ * operations are invoked upon them. <p/> <p> The {@link Codec} will create a proxy. When an operation is invoked on that
+ * proxy, the proxy will check if it already obtained the actual value, and load it if it didn't, from its own duplicate
+ * of the {@link BitBuffer}. Multiple threads might come in simultaneously; only one of them will load the value. </p>
  *
  * @author Wilfred Springer
  */
@@ -59,12 +60,73 @@ public class LazyLoadingCodecDecorator implements CodecDecorator {
     public <T> Codec<T> decorate(Codec<T> decorated, AnnotatedElement metadata,
                                  Class<T> type, ResolverContext context) {
         if (metadata != null && metadata.isAnnotationPresent(LazyLoading.class)) {
-            return new LazyLoadingCodec<T>(decorated, type);
+            return new LazyLoadingCodec<T>(decorated, type, context);
         } else {
             return decorated;
         }
     }
 
+    /**
+     * The callback of the prototype proxies, which are never handed out.
+     */
+    private static final MethodInterceptor UNLOADED = new MethodInterceptor() {
+        public Object intercept(Object target, Method method, Object[] args,
+                                MethodProxy proxy) throws Throwable {
+            throw new IllegalStateException("Prototype proxy should never be invoked.");
+        }
+    };
+
+    /**
+     * The callback of a single proxy, holding everything required to load the actual value on first access. It reads
+     * from a duplicate of the {@link BitBuffer} the proxy was decoded from, so loading does not move the position of a
+     * buffer that others may still be reading from. Loading happens only once, even if the proxy is used by multiple
+     * threads.
+     *
+     * @param <T> The type of value loaded.
+     */
+    private static class LazyValue<T> implements MethodInterceptor {
+
+        private final Codec<T> codec;
+
+        /** A duplicate of the {@link BitBuffer} the value is loaded from, not shared with anyone else. */
+        private final BitBuffer buffer;
+
+        private final long pos;
+
+        private final Resolver resolver;
+
+        private final Builder builder;
+
+        /** The value loaded, or <code>null</code> if not loaded yet. */
+        private volatile Object actual;
+
+        public LazyValue(Codec<T> codec, BitBuffer buffer, long pos,
+                         Resolver resolver, Builder builder) {
+            this.codec = codec;
+            this.buffer = buffer;
+            this.pos = pos;
+            this.resolver = resolver;
+            this.builder = builder;
+        }
+
+        public Object intercept(Object target, Method method, Object[] args,
+                                MethodProxy proxy) throws Throwable {
+            Object result = actual;
+            if (result == null) {
+                synchronized (this) {
+                    result = actual;
+                    if (result == null) {
+                        buffer.setBitPos(pos);
+                        result = codec.decode(buffer, resolver, builder);
+                        actual = result;
+                    }
+                }
+            }
+            return proxy.invoke(result, args);
+        }
+
+    }
+
     /**
      * A {@link Codec} that will only start loading the data when one of the
      * methods of that object are invoked.
@@ -78,12 +140,34 @@ public class LazyLoadingCodecDecorator implements CodecDecorator {
         /**
          * The {@link Codec} to use.
          */
-        private Codec<T> wrapped;
+        private final Codec<T> wrapped;
 
         /**
          * The type of object created.
          */
-        private Class<T> type;
+        private final Class<T> type;
+
+        /**
+         * The context in which the value is decoded.
+         */
+        private final ResolverContext context;
+
+        /**
+         * The size of the value, if it can be determined without loading the
+         * value itself. Determined lazily.
+         */
+        private Expression<Integer, Resolver> size;
+
+        /**
+         * Whether {@link #size} has been determined. Volatile, and written after {@link #size}, so that a thread
+         * observing <code>true</code> also observes the size.
+         */
+        private volatile boolean sizeResolved;
+
+        /**
+         * The prototype proxy, creating new proxies of the same generated class. Determined lazily.
+         */
+        private volatile Factory factory;
 
         /**
          * Constructs a new instance.
@@ -94,8 +178,24 @@ public class LazyLoadingCodecDecorator implements CodecDecorator {
          *            The type of object that will be returned.
          */
         public LazyLoadingCodec(Codec<T> wrapped, Class<T> type) {
+            this(wrapped, type, null);
+        }
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param wrapped
+         *            The {@link Codec} to use when loading the data.
+         * @param type
+         *            The type of object that will be returned.
+         * @param context
+         *            The context in which the value is decoded.
+         */
+        public LazyLoadingCodec(Codec<T> wrapped, Class<T> type,
+                                ResolverContext context) {
             this.wrapped = wrapped;
             this.type = type;
+            this.context = context;
         }
 
         /*
@@ -106,29 +206,59 @@ public class LazyLoadingCodecDecorator implements CodecDecorator {
          */
 
         @SuppressWarnings("unchecked")
-        public T decode(final BitBuffer buffer, final Resolver resolver,
-                        final Builder builder) throws DecodingException {
-            final int size = wrapped.getSize().eval(resolver);
+        public T decode(BitBuffer buffer, Resolver resolver,
+                        Builder builder) throws DecodingException {
+            final Expression<Integer, Resolver> size = getSizeInContext();
+            final int bits = size == null ? -1 : size.eval(resolver);
             final long pos = buffer.getBitPos();
-            ClassLoader loader = this.getClass().getClassLoader();
-            Enhancer enhancer = new Enhancer();
-            enhancer.setClassLoader(loader);
-            enhancer.setSuperclass(type);
-            enhancer.setCallback(new MethodInterceptor() {
+            final BitBuffer source = buffer.duplicate();
+            if (bits >= 0) {
+                buffer.setBitPos(pos + bits);
+            } else {
+                // Size is data-dependent; let the wrapped Codec find its end.
+                wrapped.skip(buffer, resolver, builder);
+            }
+            return (T) getFactory().newInstance(
+                    new LazyValue<T>(wrapped, source, pos, resolver, builder));
+        }
 
-                private Object actual;
+        /**
+         * Returns the {@link Factory} creating new proxies for {@link #type}. The proxy class is generated only once,
+         * the first time a value is decoded. (Concurrent first invocations may generate a factory each; that's
+         * harmless, since cglib will hand out the same class anyway.)
+         */
+        private Factory getFactory() {
+            Factory result = factory;
+            if (result == null) {
+                Enhancer enhancer = new Enhancer();
+                enhancer.setClassLoader(this.getClass().getClassLoader());
+                enhancer.setSuperclass(type);
+                enhancer.setCallback(UNLOADED);
+                result = (Factory) enhancer.create();
+                factory = result;
+            }
+            return result;
+        }
 
-                public Object intercept(Object target, Method method,
-                                        Object[] args, MethodProxy proxy) throws Throwable {
-                    if (actual == null) {
-                        buffer.setBitPos(pos);
-                        actual = wrapped.decode(buffer, resolver, builder);
-                    }
-                    return proxy.invoke(actual, args);
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            wrapped.skip(buffer, resolver, builder);
+        }
+
+        /**
+         * Returns the size of the value, if it can be evaluated without
+         * having the value itself, or <code>null</code> otherwise.
+         */
+        private Expression<Integer, Resolver> getSizeInContext() {
+            if (!sizeResolved) {
+                Expression<Integer, Resolver> expr = wrapped.getSize();
+                if (expr != null && (!expr.isParameterized()
+                        || (context != null && expr.isConstantFor(context)))) {
+                    size = expr;
                 }
-            });
-            buffer.setBitPos(pos + size);
-            return (T) enhancer.create();
+                sizeResolved = true;
+            }
+            return size;
         }
 
         public void encode(T value, BitChannel channel, Resolver resolver) throws IOException {
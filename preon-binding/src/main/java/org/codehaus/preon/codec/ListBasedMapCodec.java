@@ -66,6 +66,10 @@ public class ListBasedMapCodec<K,V> implements Codec<Map<K,V>> {
         return result;
     }
 
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder) throws DecodingException {
+        listCodec.skip(buffer, resolver, builder);
+    }
+
     public void encode(Map value, BitChannel channel, Resolver resolver) throws IOException {
         throw new UnsupportedOperationException();
     }
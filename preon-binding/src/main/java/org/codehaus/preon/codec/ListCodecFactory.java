@@ -32,11 +32,18 @@
  */
 package org.codehaus.preon.codec;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.codehaus.preon.el.BindingException;
 import org.codehaus.preon.el.Document;
@@ -59,6 +66,7 @@ import org.codehaus.preon.ResolverContext;
 import org.codehaus.preon.annotation.BoundList;
 import org.codehaus.preon.annotation.BoundObject;
 import org.codehaus.preon.annotation.Choices;
+import org.codehaus.preon.annotation.Parallel;
 import org.codehaus.preon.buffer.BitBuffer;
 import org.codehaus.preon.buffer.BitBufferUnderflowException;
 import org.codehaus.preon.buffer.SlicedBitBuffer;
@@ -68,8 +76,13 @@ import org.codehaus.preon.descriptor.NullCodecDescriptor2;
 import org.codehaus.preon.el.ContextReplacingReference;
 import org.codehaus.preon.util.AnnotationWrapper;
 import org.codehaus.preon.util.CodecDescriptorHolder;
+import org.codehaus.preon.util.ElementCaches;
 import org.codehaus.preon.util.EvenlyDistributedLazyList;
+import org.codehaus.preon.util.IntList;
+import org.codehaus.preon.util.LongList;
 import org.codehaus.preon.util.ParaContentsDocument;
+import org.codehaus.preon.util.RecordSpliterator;
+import org.codehaus.preon.util.UnevenlyDistributedLazyList;
 
 import javax.annotation.Nullable;
 
@@ -111,7 +124,18 @@ public class ListCodecFactory implements CodecFactory {
         BoundList settings = null;
         if (metadata != null
                 && (settings = metadata.getAnnotation(BoundList.class)) != null
+                && Iterable.class.equals(type)) {
+            if (settings.size().length() != 0 || settings.offset().length() != 0
+                    || settings.filter().length() != 0) {
+                throw new CodecConstructionException(
+                        "Iterables are only supported for Lists without a size, offsets or filter.");
+            }
+            return (Codec<T>) new IterableCodec(createElementCodec(context, settings));
+        } else if (settings != null
                 && java.util.List.class.equals(type)) {
+            if (settings.filter().length() != 0) {
+                return (Codec<T>) createFilteringCodec(context, settings);
+            }
             Codec<?> codec = createElementCodec(context, settings);
             if (settings.size().length() == 0) {
                 // So, we don't know the number of elements in this list.
@@ -146,15 +170,26 @@ public class ListCodecFactory implements CodecFactory {
                 Expression<Integer, Resolver> expr = getSizeExpression(
                         settings, context);
                 Expression<Integer, Resolver> elementSize = codec.getSize();
-                if (elementSize != null && (!elementSize.isParameterized() || elementSize.isConstantFor(context))) {
-                    if (!elementSize.isParameterized()) {
-                        return new StaticListCodec(expr, codec, elementSize);
-                    } else {
+                if (codec instanceof NumericCodec && ((NumericCodec) codec).isPackable()) {
+                    return (Codec<T>) new NumericListCodec(expr, (NumericCodec) codec);
+                } else if (elementSize != null
+                        && (!elementSize.isParameterized() || elementSize.isConstantFor(context))) {
+                    if (elementSize.isParameterized()) {
                         elementSize = elementSize.rescope(context);
-                        return new StaticListCodec(expr.rescope(context), codec, elementSize);
+                        expr = expr.rescope(context);
+                    }
+                    Parallel parallel = metadata.getAnnotation(Parallel.class);
+                    if (parallel != null) {
+                        return new ParallelListCodec(expr, codec, elementSize, parallel.threshold());
+                    } else {
+                        return new StaticListCodec(expr, codec, elementSize, settings.cache(),
+                                settings.cacheCapacity());
                     }
                 } else {
-                    return new DynamicListCodec(codec);
+                    // Elements differ in size, but we know how many there
+                    // are. Find the positions of the elements by skipping
+                    // them, and decode them only when required.
+                    return new IndexedListCodec(expr, codec, settings.cache(), settings.cacheCapacity());
                 }
             }
         } else {
@@ -163,10 +198,34 @@ public class ListCodecFactory implements CodecFactory {
 
     }
 
+    /**
+     * Creates the {@link Codec} for a List of which the elements are filtered while decoding. The element {@link Codec}
+     * receives the {@link BoundList} annotation, allowing the {@link ObjectCodecFactory} to evaluate the filter as soon
+     * as the fields it depends upon have been decoded, and to skip the remainder of rejected elements.
+     */
+    @SuppressWarnings("unchecked")
+    private Codec<?> createFilteringCodec(ResolverContext context, BoundList settings) {
+        if (settings.types().length > 0 || settings.offset().length() != 0) {
+            throw new CodecConstructionException(
+                    "Filtering is only supported for Lists of a single type, without offsets.");
+        }
+        Codec<?> codec = delegate.create(new AnnotationWrapper(settings), settings.type(), context);
+        if (codec == null) {
+            throw new CodecConstructionException("Failed to construct Codec for elements of type "
+                    + settings.type().getName() + ".");
+        }
+        if (settings.size().length() == 0) {
+            return new FilteringListCodec(codec, null);
+        } else {
+            return new FilteringListCodec(codec, getSizeExpression(settings, context));
+        }
+    }
+
     private <T> Codec<?> createElementCodec(ResolverContext context, BoundList settings) {
         if (settings.types().length > 0) {
             BoundObject objectSettings = getObjectSettings(settings);
-            return delegate.create(toAnnotatedElemented(objectSettings), objectSettings.type() == Void.class ? Object.class : objectSettings.type(), context);
+            Class<?> type = objectSettings.type() == Void.class ? Object.class : objectSettings.type();
+            return delegate.create(toAnnotatedElemented(objectSettings), type, context);
         } else if (settings.type() != null) {
             return delegate.create(null, settings.type(), context);
         } else {
@@ -242,25 +301,52 @@ public class ListCodecFactory implements CodecFactory {
          */
         private Expression<Integer, Resolver> elementSize;
 
+        /**
+         * The way elements are retained once decoded.
+         */
+        private final BoundList.Caching caching;
+
+        /**
+         * The maximum number of elements retained, if {@link #caching} is {@link BoundList.Caching#LRU}.
+         */
+        private final int cacheCapacity;
+
         /**
          * Constructs a new instance.
          *
-         * @param maxSize An {@link Expression} representing the number of elements in the {@link List}.
-         * @param codec   The {@link Codec} constructing elements in the {@link List}.
+         * @param maxSize       An {@link Expression} representing the number of elements in the {@link List}.
+         * @param codec         The {@link Codec} constructing elements in the {@link List}.
+         * @param caching       The way elements are retained once decoded.
+         * @param cacheCapacity The maximum number of elements retained by an LRU cache.
          */
         public StaticListCodec(Expression<Integer, Resolver> maxSize,
                                Codec<T> codec,
-                               Expression<Integer, Resolver> elementSize) {
+                               Expression<Integer, Resolver> elementSize,
+                               BoundList.Caching caching, int cacheCapacity) {
             this.size = maxSize;
             this.codec = codec;
             this.elementSize = elementSize;
+            this.caching = caching;
+            this.cacheCapacity = cacheCapacity;
         }
 
         @SuppressWarnings("unchecked")
         public List<T> decode(BitBuffer buffer, Resolver resolver,
                               Builder builder) throws DecodingException {
-            return new EvenlyDistributedLazyList(codec, buffer.getBitPos(),
-                    buffer, size.eval(resolver), builder, resolver, elementSize.eval(resolver));
+            int numberOfElements = size.eval(resolver);
+            int bits = elementSize.eval(resolver);
+            long pos = buffer.getBitPos();
+            List<T> result = new EvenlyDistributedLazyList<T>(codec, pos,
+                    buffer.duplicate(), numberOfElements, builder, resolver, bits,
+                    ElementCaches.<T>create(caching, cacheCapacity, numberOfElements));
+            buffer.setBitPos(pos + (long) numberOfElements * bits);
+            return result;
+        }
+
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            buffer.setBitPos(buffer.getBitPos() + (long) size.eval(resolver)
+                    * elementSize.eval(resolver));
         }
 
         public void encode(List<T> value, BitChannel channel, Resolver resolver) {
@@ -280,56 +366,430 @@ public class ListCodecFactory implements CodecFactory {
         }
 
         public CodecDescriptor getCodecDescriptor() {
-            return new CodecDescriptor() {
+            return createListDescriptor(size, codec);
+        }
 
-                public <C extends SimpleContents<?>> Documenter<C> details(
-                        final String bufferReference) {
-                    return new Documenter<C>() {
-                        public void document(C target) {
-                            target.para().text("The number of elements in ")
-                                    .document(reference(Adjective.THE, false)).text(
-                                    " is ").document(
-                                    Documenters.forExpression(size))
-                                    .text(".")
-                                    .end();
-                            if (!codec.getCodecDescriptor().requiresDedicatedSection()) {
-                                target.document(codec.getCodecDescriptor().details(bufferReference));
-                            }
-                        }
-                    };
-                }
+    }
 
-                public String getTitle() {
-                    return null;
-                }
+    /**
+     * The {@link Codec} for reading a {@link List} of elements that all occupy the same number of bits, decoding all of
+     * them immediately. Since the position of every element is known in advance, large Lists are split into ranges of
+     * elements decoded in parallel, each from its own {@link BitBuffer#duplicate() duplicate} of the {@link
+     * BitBuffer}.
+     *
+     * @see Parallel
+     */
+    private static class ParallelListCodec<T> implements Codec<List<T>> {
 
-                public <C extends ParaContents<?>> Documenter<C> reference(
-                        final Adjective adjective, final boolean startWithCapital) {
-                    return new Documenter<C>() {
-                        public void document(C target) {
-                            target.text(adjective.asTextPreferA(startWithCapital)).text(
-                                    "list of ").document(
-                                    codec.getCodecDescriptor().reference(
-                                            Adjective.NONE, false));
-                        }
-                    };
+        /**
+         * The minimal number of elements decoded by a single task, to keep the overhead of forking tasks low.
+         */
+        private static final int MIN_RANGE = 1024;
+
+        private final Expression<Integer, Resolver> size;
+
+        private final Codec<T> codec;
+
+        private final Expression<Integer, Resolver> elementSize;
+
+        /**
+         * The minimal number of elements for which decoding is split over multiple threads.
+         */
+        private final int threshold;
+
+        public ParallelListCodec(Expression<Integer, Resolver> size, Codec<T> codec,
+                                 Expression<Integer, Resolver> elementSize, int threshold) {
+            this.size = size;
+            this.codec = codec;
+            this.elementSize = elementSize;
+            this.threshold = threshold;
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<T> decode(BitBuffer buffer, Resolver resolver,
+                              Builder builder) throws DecodingException {
+            int numberOfElements = size.eval(resolver);
+            int bits = elementSize.eval(resolver);
+            long pos = buffer.getBitPos();
+            T[] elements = (T[]) new Object[numberOfElements];
+            DecodeRange<T> task = new DecodeRange<T>(codec, buffer, pos, bits, resolver, builder, elements,
+                    new AtomicReference<DecodingException>(), 0, numberOfElements,
+                    Math.max(MIN_RANGE, numberOfElements / (4 * ForkJoinPool.getCommonPoolParallelism())));
+            if (numberOfElements < threshold) {
+                task.decodeRange();
+            } else {
+                ForkJoinPool.commonPool().invoke(task);
+            }
+            if (task.failure.get() != null) {
+                throw task.failure.get();
+            }
+            buffer.setBitPos(pos + (long) numberOfElements * bits);
+            return Arrays.asList(elements);
+        }
+
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            buffer.setBitPos(buffer.getBitPos() + (long) size.eval(resolver)
+                    * elementSize.eval(resolver));
+        }
+
+        public void encode(List<T> value, BitChannel channel, Resolver resolver) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Class<?>[] getTypes() {
+            return codec.getTypes();
+        }
+
+        public Expression<Integer, Resolver> getSize() {
+            return Expressions.multiply(size, elementSize);
+        }
+
+        public Class<?> getType() {
+            return List.class;
+        }
+
+        public CodecDescriptor getCodecDescriptor() {
+            return createListDescriptor(size, codec);
+        }
+
+    }
+
+    /**
+     * Decodes a range of elements of a {@link ParallelListCodec List}, splitting the range in halves until it holds
+     * no more than a given number of elements. The first {@link DecodingException} is kept, and prevents the other
+     * tasks from decoding any further elements.
+     */
+    private static class DecodeRange<T> extends RecursiveAction {
+
+        private final Codec<T> codec;
+
+        private final BitBuffer buffer;
+
+        /** The position of the first element of the List. */
+        private final long pos;
+
+        private final int bits;
+
+        private final Resolver resolver;
+
+        private final Builder builder;
+
+        private final T[] elements;
+
+        private final AtomicReference<DecodingException> failure;
+
+        private final int from;
+
+        private final int to;
+
+        private final int granularity;
+
+        public DecodeRange(Codec<T> codec, BitBuffer buffer, long pos, int bits, Resolver resolver, Builder builder,
+                           T[] elements, AtomicReference<DecodingException> failure, int from, int to,
+                           int granularity) {
+            this.codec = codec;
+            this.buffer = buffer;
+            this.pos = pos;
+            this.bits = bits;
+            this.resolver = resolver;
+            this.builder = builder;
+            this.elements = elements;
+            this.failure = failure;
+            this.from = from;
+            this.to = to;
+            this.granularity = granularity;
+        }
+
+        protected void compute() {
+            if (to - from <= granularity) {
+                decodeRange();
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(split(from, middle), split(middle, to));
+            }
+        }
+
+        private DecodeRange<T> split(int from, int to) {
+            return new DecodeRange<T>(codec, buffer, pos, bits, resolver, builder, elements, failure, from, to,
+                    granularity);
+        }
+
+        void decodeRange() {
+            BitBuffer cursor = buffer.duplicate();
+            try {
+                for (int i = from; i < to && failure.get() == null; i++) {
+                    // Elements may not consume all of their bits, so every element is positioned explicitly.
+                    cursor.setBitPos(pos + (long) i * bits);
+                    elements[i] = codec.decode(cursor, resolver, builder);
                 }
+            } catch (DecodingException de) {
+                failure.compareAndSet(null, de);
+            }
+        }
 
-                public boolean requiresDedicatedSection() {
-                    return false;
+    }
+
+    /**
+     * The {@link Codec} for an {@link Iterable} of elements taking up the remainder of the {@link BitBuffer}. Rather
+     * than decoding the elements upfront, every {@link Iterable#iterator() iteration} decodes them one at a time, in
+     * the context of the object holding them, allowing an unbounded number of elements to be processed in constant
+     * memory.
+     *
+     * @see RecordSpliterator
+     */
+    private static class IterableCodec<T> implements Codec<Iterable<T>> {
+
+        private final Codec<T> codec;
+
+        public IterableCodec(Codec<T> codec) {
+            this.codec = codec;
+        }
+
+        public Iterable<T> decode(final BitBuffer buffer, final Resolver resolver,
+                                  final Builder builder) throws DecodingException {
+            final BitBuffer elements = buffer.duplicate();
+            buffer.setBitPos(buffer.getBitBufBitSize());
+            return new Iterable<T>() {
+
+                public Iterator<T> iterator() {
+                    return Spliterators.iterator(spliterator());
                 }
 
-                public <C extends ParaContents<?>> Documenter<C> summary() {
-                    return new Documenter<C>() {
-                        public void document(C target) {
-                            target.document(reference(Adjective.A, true)).text(".");
-                        }
-                    };
+                public Spliterator<T> spliterator() {
+                    return new RecordSpliterator<T>(codec, elements, builder, resolver);
                 }
 
             };
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            buffer.setBitPos(buffer.getBitBufBitSize());
+        }
+
+        public void encode(Iterable<T> value, BitChannel channel, Resolver resolver) throws IOException {
+            for (T element : value) {
+                codec.encode(element, channel, resolver);
+            }
+        }
+
+        public Class<?>[] getTypes() {
+            return codec.getTypes();
+        }
+
+        public Expression<Integer, Resolver> getSize() {
+            return null;
+        }
+
+        public Class<?> getType() {
+            return Iterable.class;
+        }
+
+        public CodecDescriptor getCodecDescriptor() {
+            return new DynamicListCodec<T>(codec).getCodecDescriptor();
+        }
+
+    }
+
+    /**
+     * Returns a {@link CodecDescriptor} for a List with a given number of elements.
+     *
+     * @param size  The number of elements in the List.
+     * @param codec The {@link Codec} constructing elements in the List.
+     */
+    private static CodecDescriptor createListDescriptor(final Expression<Integer, Resolver> size,
+                                                        final Codec<?> codec) {
+        return new CodecDescriptor() {
+
+            public <C extends SimpleContents<?>> Documenter<C> details(
+                    final String bufferReference) {
+                return new Documenter<C>() {
+                    public void document(C target) {
+                        target.para().text("The number of elements in ")
+                                .document(reference(Adjective.THE, false)).text(
+                                " is ").document(
+                                Documenters.forExpression(size))
+                                .text(".")
+                                .end();
+                        if (!codec.getCodecDescriptor().requiresDedicatedSection()) {
+                            target.document(codec.getCodecDescriptor().details(bufferReference));
+                        }
+                    }
+                };
+            }
+
+            public String getTitle() {
+                return null;
+            }
+
+            public <C extends ParaContents<?>> Documenter<C> reference(
+                    final Adjective adjective, final boolean startWithCapital) {
+                return new Documenter<C>() {
+                    public void document(C target) {
+                        target.text(adjective.asTextPreferA(startWithCapital)).text(
+                                "list of ").document(
+                                codec.getCodecDescriptor().reference(
+                                        Adjective.NONE, false));
+                    }
+                };
+            }
+
+            public boolean requiresDedicatedSection() {
+                return false;
+            }
+
+            public <C extends ParaContents<?>> Documenter<C> summary() {
+                return new Documenter<C>() {
+                    public void document(C target) {
+                        target.document(reference(Adjective.A, true)).text(".");
+                    }
+                };
+            }
+
+        };
+    }
+
+
+    /**
+     * The {@link Codec} for reading a {@link List} of {@link Integer} or {@link Long} values. Instead of a {@link List}
+     * of boxed values, it will create an {@link IntList} or {@link LongList}, reading the values directly from the
+     * {@link BitBuffer} on demand.
+     */
+    private static class NumericListCodec implements Codec<List<?>> {
+
+        /**
+         * The number of elements in the list.
+         */
+        private Expression<Integer, Resolver> size;
+
+        /**
+         * The {@link Codec} of the elements.
+         */
+        private NumericCodec codec;
+
+        public NumericListCodec(Expression<Integer, Resolver> size, NumericCodec codec) {
+            this.size = size;
+            this.codec = codec;
+        }
+
+        public List<?> decode(BitBuffer buffer, Resolver resolver,
+                              Builder builder) throws DecodingException {
+            int numberOfElements = size.eval(resolver);
+            int bits = codec.sizeExpr.eval(resolver);
+            long pos = buffer.getBitPos();
+            List<?> result;
+            if (codec.type == NumericCodec.NumericType.Long) {
+                result = LongList.view(buffer, pos, numberOfElements, bits, codec.byteOrder);
+            } else {
+                result = IntList.view(buffer, pos, numberOfElements, bits, codec.byteOrder);
+            }
+            buffer.setBitPos(pos + (long) numberOfElements * bits);
+            return result;
+        }
+
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            buffer.setBitPos(buffer.getBitPos() + (long) size.eval(resolver)
+                    * codec.sizeExpr.eval(resolver));
+        }
+
+        public void encode(List<?> value, BitChannel channel, Resolver resolver) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Class<?>[] getTypes() {
+            return codec.getTypes();
+        }
+
+        public Expression<Integer, Resolver> getSize() {
+            return Expressions.multiply(size, codec.getSize());
+        }
+
+        public Class<?> getType() {
+            return List.class;
+        }
+
+        public CodecDescriptor getCodecDescriptor() {
+            return createListDescriptor(size, codec);
+        }
+
+    }
+
+    /**
+     * The {@link Codec} for reading a {@link List} of elements that do not all have the same size, on demand. Instances
+     * of this class will create a {@link UnevenlyDistributedLazyList}, skipping over all elements in order to find the
+     * end of the List, and recording the positions of the elements while doing that. The elements themselves will only
+     * be constructed when required.
+     */
+    private static class IndexedListCodec<T> implements Codec<List<T>> {
+
+        /**
+         * The number of elements in the list.
+         */
+        private Expression<Integer, Resolver> size;
+
+        /**
+         * The {@link Codec} that will construct elements from the {@link List}.
+         */
+        private Codec<T> codec;
+
+        /**
+         * The way elements are retained once decoded.
+         */
+        private final BoundList.Caching caching;
+
+        /**
+         * The maximum number of elements retained, if {@link #caching} is {@link BoundList.Caching#LRU}.
+         */
+        private final int cacheCapacity;
+
+        public IndexedListCodec(Expression<Integer, Resolver> size, Codec<T> codec,
+                                BoundList.Caching caching, int cacheCapacity) {
+            this.size = size;
+            this.codec = codec;
+            this.caching = caching;
+            this.cacheCapacity = cacheCapacity;
+        }
+
+        public List<T> decode(BitBuffer buffer, Resolver resolver,
+                              Builder builder) throws DecodingException {
+            int numberOfElements = size.eval(resolver);
+            UnevenlyDistributedLazyList<T> result = new UnevenlyDistributedLazyList<T>(codec,
+                    buffer.getBitPos(), buffer.duplicate(), numberOfElements, builder, resolver,
+                    ElementCaches.<T>create(caching, cacheCapacity, numberOfElements));
+            buffer.setBitPos(result.getEnd());
+            return result;
+        }
+
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            int numberOfElements = size.eval(resolver);
+            for (int i = 0; i < numberOfElements; i++) {
+                codec.skip(buffer, resolver, builder);
+            }
+        }
+
+        public void encode(List<T> value, BitChannel channel, Resolver resolver) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Class<?>[] getTypes() {
+            return codec.getTypes();
+        }
+
+        public Expression<Integer, Resolver> getSize() {
+            return null;
+        }
+
+        public Class<?> getType() {
+            return List.class;
+        }
+
+        public CodecDescriptor getCodecDescriptor() {
+            return createListDescriptor(size, codec);
+        }
+
     }
 
     /**
@@ -344,28 +804,45 @@ public class ListCodecFactory implements CodecFactory {
         return Expressions.createInteger(context, listSettings.size());
     }
 
+    /**
+     * The {@link Codec} for Lists of unknown length. Elements will be decoded until the end of the {@link BitBuffer}
+     * has been reached, or until an element fails to decode, in which case the {@link BitBuffer} is reset to the end of
+     * the last element decoded successfully.
+     */
     private static class DynamicListCodec<T> implements Codec<List<T>> {
 
         private Codec<T> codec;
 
+        /**
+         * The minimal number of bits occupied by an element, used to prevent attempts to decode elements that will
+         * never fit in the remainder of the {@link BitBuffer}.
+         */
+        private int minimalElementSize;
+
         public DynamicListCodec(Codec<T> codec) {
             this.codec = codec;
+            Expression<Integer, Resolver> elementSize = codec.getSize();
+            if (elementSize != null && !elementSize.isParameterized()) {
+                minimalElementSize = Math.max(1, elementSize.eval(null));
+            } else {
+                minimalElementSize = 1;
+            }
         }
 
         public List<T> decode(BitBuffer buffer, Resolver resolver,
                               Builder builder) throws DecodingException {
-            List<T> result = new LinkedList<T>();
+            List<T> result = new ArrayList<T>();
             long mark = buffer.getBitPos();
+            long end = buffer.getBitBufBitSize();
             try {
-                while (true) {
+                while (end - mark >= minimalElementSize) {
                     T value = codec.decode(buffer, resolver, builder);
                     result.add(value);
                     mark = buffer.getBitPos();
                 }
             } catch (BitBufferUnderflowException oore) {
-                // Trying to read beyond the end of the file.
-                // TODO: Make a difference between failing half-way and failing
-                // starting to read the next element.
+                // The last element got truncated.
+                buffer.setBitPos(mark);
             } catch (DecodingException de) {
                 // So we can't decode the element. Maybe it's no longer an
                 // element of this List. Let's consider this list to be
@@ -375,6 +852,31 @@ public class ListCodecFactory implements CodecFactory {
             return result;
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            long mark = buffer.getBitPos();
+            long end = buffer.getBitBufBitSize();
+            try {
+                while (end - mark >= minimalElementSize) {
+                    codec.skip(buffer, resolver, builder);
+                    if (buffer.getBitPos() > end) {
+                        // The last element got truncated, but skipping it
+                        // did not need to read beyond the end.
+                        buffer.setBitPos(mark);
+                        break;
+                    }
+                    mark = buffer.getBitPos();
+                }
+            } catch (BitBufferUnderflowException oore) {
+                // The last element got truncated.
+                buffer.setBitPos(mark);
+            } catch (DecodingException de) {
+                // Same as while decoding: the element is no longer part of
+                // this List.
+                buffer.setBitPos(mark);
+            }
+        }
+
         public void encode(List<T> value, BitChannel channel, Resolver resolver) {
             throw new UnsupportedOperationException();
         }
@@ -444,6 +946,122 @@ public class ListCodecFactory implements CodecFactory {
 
     }
 
+    /**
+     * A {@link Codec} for Lists of which the elements are filtered while decoding. The element {@link Codec} is expected
+     * to return <code>null</code> for every element rejected by the filter; these elements will not be added to the
+     * List. If the number of elements is not known in advance, this {@link Codec} keeps on decoding elements in the same
+     * way as the {@link DynamicListCodec} does.
+     */
+    private static class FilteringListCodec<T> implements Codec<List<T>> {
+
+        private final Codec<T> codec;
+
+        /**
+         * The number of elements encoded, or <code>null</code> if unknown.
+         */
+        private final Expression<Integer, Resolver> size;
+
+        /**
+         * The minimal number of bits occupied by an element, used to stop at the end of the {@link BitBuffer} if the
+         * number of elements is not known in advance.
+         */
+        private final int minimalElementSize;
+
+        public FilteringListCodec(Codec<T> codec, Expression<Integer, Resolver> size) {
+            this.codec = codec;
+            this.size = size;
+            Expression<Integer, Resolver> elementSize = codec.getSize();
+            if (elementSize != null && !elementSize.isParameterized()) {
+                minimalElementSize = Math.max(1, elementSize.eval(null));
+            } else {
+                minimalElementSize = 1;
+            }
+        }
+
+        public List<T> decode(BitBuffer buffer, Resolver resolver,
+                              Builder builder) throws DecodingException {
+            List<T> result = new ArrayList<T>();
+            if (size != null) {
+                int count = size.eval(resolver);
+                for (int i = 0; i < count; i++) {
+                    add(result, codec.decode(buffer, resolver, builder));
+                }
+            } else {
+                long mark = buffer.getBitPos();
+                long end = buffer.getBitBufBitSize();
+                try {
+                    while (end - mark >= minimalElementSize) {
+                        add(result, codec.decode(buffer, resolver, builder));
+                        mark = buffer.getBitPos();
+                    }
+                } catch (BitBufferUnderflowException oore) {
+                    // The last element got truncated.
+                    buffer.setBitPos(mark);
+                } catch (DecodingException de) {
+                    buffer.setBitPos(mark);
+                }
+            }
+            return result;
+        }
+
+        private void add(List<T> result, T value) {
+            if (value != null) {
+                result.add(value);
+            }
+        }
+
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            if (size != null) {
+                int count = size.eval(resolver);
+                for (int i = 0; i < count; i++) {
+                    codec.skip(buffer, resolver, builder);
+                }
+            } else {
+                long mark = buffer.getBitPos();
+                long end = buffer.getBitBufBitSize();
+                try {
+                    while (end - mark >= minimalElementSize) {
+                        codec.skip(buffer, resolver, builder);
+                        if (buffer.getBitPos() > end) {
+                            // The last element got truncated, but skipping it
+                            // did not need to read beyond the end.
+                            buffer.setBitPos(mark);
+                            break;
+                        }
+                        mark = buffer.getBitPos();
+                    }
+                } catch (BitBufferUnderflowException oore) {
+                    // The last element got truncated.
+                    buffer.setBitPos(mark);
+                } catch (DecodingException de) {
+                    buffer.setBitPos(mark);
+                }
+            }
+        }
+
+        public void encode(List<T> value, BitChannel channel, Resolver resolver) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Class<?>[] getTypes() {
+            return codec.getTypes();
+        }
+
+        public Expression<Integer, Resolver> getSize() {
+            return null;
+        }
+
+        public Class<?> getType() {
+            return List.class;
+        }
+
+        public CodecDescriptor getCodecDescriptor() {
+            return new NullCodecDescriptor2();
+        }
+
+    }
+
     /**
      * A {@link Codec} for Lists. The type of List that will be created is determined at runtime, right before the
      * actual List is decoded. The {@link #skipListCodec} Codec will be used when the size of the individual list item
@@ -471,6 +1089,16 @@ public class ListCodecFactory implements CodecFactory {
             }
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            Expression<Integer, Resolver> sizeExpr = skipListCodec.getSize();
+            if (sizeExpr != null && sizeExpr.eval(resolver) >= 0) {
+                skipListCodec.skip(buffer, resolver, builder);
+            } else {
+                nonSkipListCodec.skip(buffer, resolver, builder);
+            }
+        }
+
         public void encode(List<T> value, BitChannel channel, Resolver resolver) {
             throw new UnsupportedOperationException();
         }
@@ -609,14 +1237,19 @@ public class ListCodecFactory implements CodecFactory {
 
     }
 
+    /**
+     * A {@link Resolver} binding the 'index' variable to a fixed value. Immutable, so a new instance is created for every
+     * index, rather than updating one instance that might be reachable from elsewhere.
+     */
     private static class IndexResolver implements Resolver {
 
-        private Resolver resolver;
+        private final Resolver resolver;
 
-        private int index;
+        private final int index;
 
-        public IndexResolver(Resolver resolver) {
+        public IndexResolver(Resolver resolver, int index) {
             this.resolver = resolver;
+            this.index = index;
         }
 
         public Object get(String name) {
@@ -631,10 +1264,6 @@ public class ListCodecFactory implements CodecFactory {
         // // return resolver.getOuter();
         // }
 
-        public void setIndex(int index) {
-            this.index = index;
-        }
-
         public Resolver getOriginalResolver() {
             return this;
         }
@@ -653,17 +1282,17 @@ public class ListCodecFactory implements CodecFactory {
          * The expression to calculate the offset. (Note that you can use the 'index' variable to point to the position
          * of this element in the list.
          */
-        private Expression<Integer, Resolver> offsets;
+        private final Expression<Integer, Resolver> offsets;
 
         /**
          * The size of the list.
          */
-        private Expression<Integer, Resolver> size;
+        private final Expression<Integer, Resolver> size;
 
         /**
          * The Codec for decoding elements from the list.
          */
-        private Codec<T> codec;
+        private final Codec<T> codec;
 
         /**
          * Constructs a new instance.
@@ -685,13 +1314,10 @@ public class ListCodecFactory implements CodecFactory {
             int maxSize = size.eval(resolver);
             List<T> result = new ArrayList<T>(maxSize);
             long curPos = buffer.getBitPos();
-            IndexResolver indexResolver = new IndexResolver(resolver);
             for (int i = 0; i < maxSize; i++) {
-                indexResolver.setIndex(i);
-                int offset = offsets.eval(indexResolver);
+                int offset = offsets.eval(new IndexResolver(resolver, i));
                 if (i < maxSize - 1) {
-                    indexResolver.setIndex(i + 1);
-                    int nextOffset = offsets.eval(indexResolver); //- 1;
+                    int nextOffset = offsets.eval(new IndexResolver(resolver, i + 1)); //- 1;
                     buffer.setBitPos(curPos + offset);
                     T value = codec.decode(new SlicedBitBuffer(buffer,
                             nextOffset - offset), resolver, builder);
@@ -704,6 +1330,18 @@ public class ListCodecFactory implements CodecFactory {
             return result;
         }
 
+        public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+                throws DecodingException {
+            int maxSize = size.eval(resolver);
+            if (maxSize > 0) {
+                // Only the last element needs to be skipped; the offsets tell
+                // us where it starts.
+                buffer.setBitPos(buffer.getBitPos()
+                        + offsets.eval(new IndexResolver(resolver, maxSize - 1)));
+                codec.skip(buffer, resolver, builder);
+            }
+        }
+
         public void encode(List<T> value, BitChannel channel, Resolver resolver) {
             throw new UnsupportedOperationException();
         }
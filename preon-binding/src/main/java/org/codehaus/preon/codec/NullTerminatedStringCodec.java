@@ -41,16 +41,11 @@ import nl.flotsam.pecia.SimpleContents;
 import nl.flotsam.pecia.Documenter;
 import nl.flotsam.pecia.ParaContents;
 
-import java.io.ByteArrayOutputStream;
-import java.io.UnsupportedEncodingException;
-
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CharsetDecoder;
-import java.nio.BufferUnderflowException;
-import java.io.StringWriter;
 import java.io.IOException;
 
 /**
@@ -64,64 +59,72 @@ public class NullTerminatedStringCodec implements Codec<String> {
 
 	private static int BUFFER_SIZE = 32; //32 Bytes is probably overkill, but these days it hardly matters
 
-    private Charset encoding;
+    private final Charset encoding;
+
+    private final String match;
+
+    private final BoundString.ByteConverter byteConverter;
 
-    private String match;
+    /**
+     * Whether a null byte always terminates the String in the encoding used, which allows us to skip the String
+     * without decoding its characters.
+     */
+    private final boolean nullByteTerminated;
 
-    private BoundString.ByteConverter byteConverter;
+    private final ThreadLocal<CharsetDecoder> decoders;
 
     public NullTerminatedStringCodec(Charset encoding, String match,
                                      BoundString.ByteConverter byteConverter) {
         this.encoding = encoding;
         this.match = match;
         this.byteConverter = byteConverter;
+        this.nullByteTerminated = encoding.newEncoder().maxBytesPerChar() == 1.0f
+                || "UTF-8".equals(encoding.name());
+        this.decoders = StringDecoding.decoders(encoding);
     }
 
     public String decode(BitBuffer buffer, Resolver resolver,
                          Builder builder) throws DecodingException {
-		/* This has been gutted, and now uses Charsets to do decoding.
-		 * It opens the bitbuffer as a bytebuffer (taking care to note
-		 * and preserve positions), creates a CharBuffer with space for
-		 * one character, and decodes the ByteBuffer one character at a
-		 * time. If the character decoded is NULL, it finishes up (it has
-		 * to use the decoded character, not the byte, as multibyte
-		 * encodings can include null bytes in non-null characters).
-		 * 
-		 * I used a StringWriter for the string, as it's more memory
-		 * efficient, for what it's worth.
-		 * 
-		 * I wasn't able to find a way to include the byteConverter in
-		 * the decoding process. I'm guessing the main use for byteConverter
-		 * was encoding conversion anyway, but if it's needed, it might
-		 * be possible to subclass ByteBuffer.
-		 * */
-        CharsetDecoder decoder = encoding.newDecoder();
+        if (nullByteTerminated) {
+            return StringDecoding.decode(StringDecoding.readNullTerminated(buffer, byteConverter), encoding, decoders);
+        } else {
+            return decodeCharacters(buffer);
+        }
+    }
+
+    /**
+     * Decodes the String one character at a time, for encodings in which a null byte may be part of a non-null
+     * character. (It has to use the decoded character, not the byte, in order to find the end of the String.)
+     */
+    private String decodeCharacters(BitBuffer buffer) {
+        CharsetDecoder decoder = decoders.get();
+        decoder.reset();
         ByteBuffer bytebuffer = ByteBuffer.allocate(BUFFER_SIZE); //Allocate a bytebuffer. We'll need this for multibyte encodings
-		CharBuffer charbuffer = CharBuffer.allocate(1); //Decode one character at a time
-        StringWriter sw = new StringWriter(); //This will eventually hold our string
-        byte bytevalue;
-        char charvalue;
-        boolean readOK = true;
-		do {
-			bytevalue = byteConverter.convert(buffer.readAsByte(8)); //Convert our byte
-			bytebuffer.put(bytevalue); // and add it to the bytebuffer
-			bytebuffer.flip(); // Flip the buffer, so we can read it
-			decoder.decode(bytebuffer,charbuffer,false); // Decode up to one char from bytebuffer
-			if (charbuffer.position() == 1) {
-				charbuffer.rewind();
-				charvalue = charbuffer.get();
-				charbuffer.rewind();
-				if (charvalue == 0) { //If character is null, we're finished
-					readOK = false;
-				}
-				else {
-					sw.append(charvalue); //Write character to StringWriter
-				}
-			}
-			bytebuffer.compact(); //Compact the buffer, so we can write to it
-		}
-		while(readOK);
-		return sw.toString();
+        CharBuffer charbuffer = CharBuffer.allocate(1); //Decode one character at a time
+        StringBuilder result = new StringBuilder();
+        while (true) {
+            bytebuffer.put(byteConverter.convert(buffer.readAsByte(8)));
+            bytebuffer.flip(); // Flip the buffer, so we can read it
+            decoder.decode(bytebuffer, charbuffer, false); // Decode up to one char from bytebuffer
+            if (charbuffer.position() == 1) {
+                char charvalue = charbuffer.get(0);
+                charbuffer.clear();
+                if (charvalue == 0) { //If character is null, we're finished
+                    return result.toString();
+                }
+                result.append(charvalue);
+            }
+            bytebuffer.compact(); //Compact the buffer, so we can write to it
+        }
+    }
+
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        if (nullByteTerminated) {
+            StringDecoding.skipNullTerminated(buffer, byteConverter);
+        } else {
+            decode(buffer, resolver, builder);
+        }
     }
 
     public void encode(String value, BitChannel channel, Resolver resolver) throws IOException {
@@ -121,6 +121,17 @@ public class NumericCodec implements Codec<Object> {
         return result;
     }
 
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        if (matchExpr != null) {
+            // Skipping should fail the same way decoding would fail.
+            decode(buffer, resolver, builder);
+        } else {
+            buffer.setBitPos(buffer.getBitPos()
+                    + ((Number) (this.sizeExpr.eval(resolver))).intValue());
+        }
+    }
+
     public void encode(Object value, BitChannel channel, Resolver resolver) throws IOException {
         type.encode(channel, sizeExpr.eval(resolver), byteOrder, value);
     }
@@ -207,6 +218,17 @@ public class NumericCodec implements Codec<Object> {
         return "Codec of " + byteOrder + " " + type;
     }
 
+    /**
+     * Returns whether the values decoded by this {@link Codec} are plain {@link java.lang.Integer} or {@link
+     * java.lang.Long} values read from a fixed number of bits, without having to match any expected value. Lists of
+     * these values can be represented by an {@link org.codehaus.preon.util.IntList} or {@link
+     * org.codehaus.preon.util.LongList}.
+     */
+    boolean isPackable() {
+        return matchExpr == null && !sizeExpr.isParameterized()
+                && (type == NumericType.Integer || type == NumericType.Long);
+    }
+
     public enum NumericType {
 
         Float {
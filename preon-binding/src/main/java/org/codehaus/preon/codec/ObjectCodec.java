@@ -63,14 +63,50 @@ public class ObjectCodec<T> implements Codec<T> {
 
     private final ObjectResolverContext context;
 
+    /** The fields to be decoded, or <code>null</code> if all fields need to be decoded. */
+    private final Projection projection;
+
+    /**
+     * The condition that needs to hold for an instance to be returned, or <code>null</code> if all instances are to be
+     * returned.
+     */
+    private final Expression<Boolean, Resolver> filter;
+
+    /** The index of the last binding referred to by the {@link #filter}; the filter is evaluated after loading it. */
+    private final int filterIndex;
+
     public ObjectCodec(Class<T> type, IdentifierRewriter rewriter,
                        ObjectResolverContext context) {
+        this(type, rewriter, context, null);
+    }
+
+    /**
+     * Constructs a new instance, only decoding the fields selected by the {@link Projection} passed in, and the fields
+     * referred to by expressions. All other fields will be skipped.
+     */
+    public ObjectCodec(Class<T> type, IdentifierRewriter rewriter,
+                       ObjectResolverContext context, Projection projection) {
+        this(type, rewriter, context, projection, null, -1);
+    }
+
+    /**
+     * Constructs a new instance, returning <code>null</code> instead of an instance if the filter passed in does not
+     * hold. The filter is evaluated as soon as the binding at the given index has been loaded (or before loading any
+     * binding, if the index is -1), and once it fails, all subsequent bindings will be skipped, unless referred to by
+     * expressions.
+     */
+    public ObjectCodec(Class<T> type, IdentifierRewriter rewriter,
+                       ObjectResolverContext context, Projection projection,
+                       Expression<Boolean, Resolver> filter, int filterIndex) {
         assert type != null;
         assert rewriter != null;
         assert context != null;
         this.type = type;
         this.rewriter = rewriter;
         this.context = context;
+        this.projection = projection;
+        this.filter = filter;
+        this.filterIndex = filterIndex;
     }
 
     public T decode(BitBuffer buffer, Resolver resolver, Builder builder)
@@ -81,10 +117,21 @@ public class ObjectCodec<T> implements Codec<T> {
             final T result = builder.create(type);
             resolver = context.getResolver(result, resolver);
             // TODO: I think I need a replacement resolver here.
-            for (Binding binding : context.getBindings()) {
-                binding.load(result, buffer, resolver, builder);
+            List<Binding> bindings = context.getBindings();
+            boolean accepted = filter == null || filterIndex >= 0 || filter.eval(resolver);
+            for (int i = 0; i < bindings.size(); i++) {
+                Binding binding = bindings.get(i);
+                if ((accepted && (projection == null || projection.includes(binding.getName())))
+                        || context.isReferenced(binding.getName())) {
+                    binding.load(result, buffer, resolver, builder);
+                } else {
+                    binding.skip(result, buffer, resolver, builder);
+                }
+                if (accepted && i == filterIndex) {
+                    accepted = filter.eval(resolver);
+                }
             }
-            return result;
+            return accepted ? result : null;
         }
         catch (InstantiationException ie) {
             ie.printStackTrace();
@@ -95,6 +142,41 @@ public class ObjectCodec<T> implements Codec<T> {
         }
     }
 
+    /**
+     * Skips an instance. Only the bindings referred to by expressions will get loaded (into an instance that is never
+     * returned), since later bindings may depend on them. All other bindings will be skipped, leaving it to their
+     * {@link Codec Codecs} to simply move the {@link BitBuffer} forward if their size is constant, or to check the
+     * values that need to match an expected value, failing the same way decoding would fail.
+     */
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        assert buffer != null;
+        assert builder != null;
+        try {
+            T result = null;
+            for (Binding binding : context.getBindings()) {
+                if (context.isReferenced(binding.getName())) {
+                    result = builder.create(type);
+                    break;
+                }
+            }
+            resolver = context.getResolver(result, resolver);
+            for (Binding binding : context.getBindings()) {
+                if (result != null && context.isReferenced(binding.getName())) {
+                    binding.load(result, buffer, resolver, builder);
+                } else {
+                    binding.skip(result, buffer, resolver, builder);
+                }
+            }
+        }
+        catch (InstantiationException ie) {
+            throw new DecodingException(type, ie);
+        }
+        catch (IllegalAccessException iae) {
+            throw new DecodingException(iae);
+        }
+    }
+
     public void encode(T value, BitChannel channel, Resolver resolver) throws IOException {
         resolver = context.getResolver(value, resolver);
         for (Binding binding : context.getBindings()) {
@@ -121,13 +203,9 @@ public class ObjectCodec<T> implements Codec<T> {
     public Expression<Integer, Resolver> getSize() {
         List<Binding> bindings = context.getBindings();
         if (bindings.size() > 0) {
-            Expression<Integer, Resolver> result = null;
-            for (Binding binding : bindings) {
-                if (result == null) {
-                    result = binding.getSize();
-                } else {
-                    result = Expressions.add(result, binding.getSize());
-                }
+            Expression<Integer, Resolver> result = bindings.get(0).getSize();
+            for (int i = 1; i < bindings.size() && result != null; i++) {
+                result = Expressions.add(result, bindings.get(i).getSize());
             }
             return result;
         } else {
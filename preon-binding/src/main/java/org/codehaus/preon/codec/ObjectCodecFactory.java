@@ -36,12 +36,18 @@ import nl.flotsam.pecia.Documenter;
 import nl.flotsam.pecia.ParaContents;
 import org.codehaus.preon.*;
 import org.codehaus.preon.annotation.Bound;
+import org.codehaus.preon.annotation.BoundList;
 import org.codehaus.preon.annotation.BoundObject;
 import org.codehaus.preon.binding.Binding;
 import org.codehaus.preon.binding.BindingFactory;
 import org.codehaus.preon.binding.StandardBindingFactory;
+import org.codehaus.preon.el.BindingException;
+import org.codehaus.preon.el.Document;
+import org.codehaus.preon.el.Expression;
+import org.codehaus.preon.el.Expressions;
 import org.codehaus.preon.el.ImportSupportingObjectResolverContext;
 import org.codehaus.preon.el.ObjectResolverContext;
+import org.codehaus.preon.el.Reference;
 import org.codehaus.preon.rendering.ClassNameRewriter;
 import org.codehaus.preon.rendering.IdentifierRewriter;
 import org.codehaus.preon.util.HidingAnnotatedElement;
@@ -50,7 +56,9 @@ import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /** The {@link CodecFactory} for {@link ObjectCodec}s. */
 public class ObjectCodecFactory implements CodecFactory {
@@ -67,6 +75,12 @@ public class ObjectCodecFactory implements CodecFactory {
     /** The object used to turn Java identifiers into something that is potentially readable by humans. */
     private IdentifierRewriter rewriter = new ClassNameRewriter();
 
+    /** The type to which the {@link #projection} applies, if any. */
+    private Class<?> projectedType;
+
+    /** The fields of the {@link #projectedType} to be decoded, or <code>null</code> if all fields are to be decoded. */
+    private Projection projection;
+
     /**
      * Constructs a new instance, using a default mechanism for constructing {@link org.codehaus.preon.binding.Binding}
      * instances.
@@ -98,6 +112,23 @@ public class ObjectCodecFactory implements CodecFactory {
         this.bindingFactory = bindingFactory;
     }
 
+    /**
+     * Constructs a new instance, creating {@link Codec Codecs} for the type passed in that will only decode the fields
+     * selected by the {@link Projection}.
+     *
+     * @param codecFactory   The object used to create <code>Codecs</code>.
+     * @param bindingFactory The object used to create <code>Bindings</code>.
+     * @param projectedType  The type to which the projection applies.
+     * @param projection     The fields to be decoded, or <code>null</code> if all fields are to be decoded.
+     */
+    public ObjectCodecFactory(CodecFactory codecFactory,
+                              BindingFactory bindingFactory, Class<?> projectedType,
+                              Projection projection) {
+        this(codecFactory, bindingFactory);
+        this.projectedType = projectedType;
+        this.projection = projection;
+    }
+
     /*
     * (non-Javadoc)
     *
@@ -114,6 +145,10 @@ public class ObjectCodecFactory implements CodecFactory {
             return createCodec(type, context);
         } else if (metadata.isAnnotationPresent(BoundObject.class)) {
             return createCodec(type, context, metadata);
+        } else if (metadata.isAnnotationPresent(BoundList.class)
+                && metadata.getAnnotation(BoundList.class).filter().length() > 0) {
+            // Elements of a filtered List
+            return createCodec(type, context, metadata.getAnnotation(BoundList.class).filter());
         } else {
             return null;
         }
@@ -121,6 +156,11 @@ public class ObjectCodecFactory implements CodecFactory {
 
     private <T> ObjectCodec<T> createCodec(Class<T> type,
                                            ResolverContext context) {
+        return createCodec(type, context, (String) null);
+    }
+
+    private <T> ObjectCodec<T> createCodec(Class<T> type,
+                                           ResolverContext context, String filter) {
         ObjectResolverContext passThroughContext = new BindingsContext(type,
                 context);
         passThroughContext = ImportSupportingObjectResolverContext.decorate(
@@ -130,8 +170,21 @@ public class ObjectCodecFactory implements CodecFactory {
         if (passThroughContext.getBindings().size() == 0) {
             throw new CodecConstructionException("Failed to find a single bound field on " + type.getName());
         }
-        ObjectCodec<T> result = new ObjectCodec<T>(type, rewriter,
-                passThroughContext);
+        Projection projection = null;
+        if (this.projection != null && type.equals(projectedType)) {
+            checkProjection(type, passThroughContext);
+            projection = this.projection;
+        }
+        ObjectCodec<T> result;
+        if (filter != null) {
+            RecordingResolverContext recording = new RecordingResolverContext(passThroughContext);
+            Expression<Boolean, Resolver> expr = Expressions.createBoolean(recording, filter);
+            result = new ObjectCodec<T>(type, rewriter, passThroughContext,
+                    projection, expr, getLastIndex(passThroughContext.getBindings(), recording.getNames()));
+        } else {
+            result = new ObjectCodec<T>(type, rewriter, passThroughContext,
+                    projection);
+        }
         reference.setCodec(result);
         return result;
     }
@@ -164,6 +217,32 @@ public class ObjectCodecFactory implements CodecFactory {
         }
     }
 
+    /**
+     * Returns the index of the last binding with one of the names passed in, or <code>-1</code> if there is none.
+     */
+    private static int getLastIndex(List<Binding> bindings, Set<String> names) {
+        int result = -1;
+        for (int i = 0; i < bindings.size(); i++) {
+            if (names.contains(bindings.get(i).getName())) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    private void checkProjection(Class<?> type, ObjectResolverContext context) {
+        List<String> names = new ArrayList<String>();
+        for (Binding binding : context.getBindings()) {
+            names.add(binding.getName());
+        }
+        for (String field : projection.getFields()) {
+            if (!names.contains(field)) {
+                throw new CodecConstructionException("Failed to find a bound field called "
+                        + field + " on " + type.getName());
+            }
+        }
+    }
+
     private AnnotatedElement hideChoices(AnnotatedElement metadata) {
         return new HidingAnnotatedElement(BoundObject.class, metadata);
     }
@@ -192,6 +271,43 @@ public class ObjectCodecFactory implements CodecFactory {
         }
     }
 
+    /**
+     * A {@link ResolverContext} recording the names of the attributes selected, in order to find out when the values
+     * referred to by an expression have been decoded.
+     */
+    private static class RecordingResolverContext implements ResolverContext {
+
+        private final ResolverContext delegate;
+
+        private final Set<String> names = new HashSet<String>();
+
+        public RecordingResolverContext(ResolverContext delegate) {
+            this.delegate = delegate;
+        }
+
+        public Reference<Resolver> selectAttribute(String name) throws BindingException {
+            names.add(name);
+            return delegate.selectAttribute(name);
+        }
+
+        public Reference<Resolver> selectItem(String index) throws BindingException {
+            return delegate.selectItem(index);
+        }
+
+        public Reference<Resolver> selectItem(Expression<Integer, Resolver> index) throws BindingException {
+            return delegate.selectItem(index);
+        }
+
+        public void document(Document target) {
+            delegate.document(target);
+        }
+
+        public Set<String> getNames() {
+            return names;
+        }
+
+    }
+
     private static class CodecReference implements Documenter<ParaContents<?>> {
 
         private Codec<?> codec;
@@ -46,7 +46,11 @@ import org.codehaus.preon.el.*;
 
 import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * A Codec supporting the {@link Choices} annotation.
@@ -96,6 +100,36 @@ public class SelectFromCodec<T> implements Codec<T> {
      */
     private Codec<?> defaultCodec;
 
+    /**
+     * The pattern of conditions comparing the prefix to a literal integer value.
+     */
+    private final static Pattern PREFIX_EQUALS_CONSTANT = Pattern.compile(
+            "\\s*(?:" + PREFIX_NAME + "\\s*==\\s*(0x\\p{XDigit}+|0b[01]+|\\d+)"
+                    + "|(0x\\p{XDigit}+|0b[01]+|\\d+)\\s*==\\s*" + PREFIX_NAME + ")\\s*");
+
+    /**
+     * The largest number of entries in a {@link #table}.
+     */
+    private final static int MAX_TABLE_SIZE = 1024;
+
+    /**
+     * The {@link Codec Codecs} selected by the leading <code>prefix == constant</code> conditions, indexed by prefix
+     * value, if these values are small enough. <code>null</code> otherwise.
+     */
+    private Codec<?>[] table;
+
+    /**
+     * The {@link Codec Codecs} selected by the leading <code>prefix == constant</code> conditions, if there is no
+     * {@link #table}.
+     */
+    private Map<Integer, Codec<?>> map;
+
+    /**
+     * The index of the first condition that is not a <code>prefix == constant</code> condition. All conditions from
+     * this index onwards need to be evaluated while decoding.
+     */
+    private int firstEvaluated;
+
     /**
      * Constructs a new instance, accepting the type, choices, a {@link ResolverContext} to wrap for introducing the
      * <code>prefix</code> variable, the {@link CodecFactory} to delegate to, and the metadata.
@@ -126,30 +160,116 @@ public class SelectFromCodec<T> implements Codec<T> {
             codecs.add(factory.create(null, choices.alternatives()[i].type(),
                     passThroughContext));
         }
+        if (prefixSize > 0) {
+            buildLookupTable(choices, context);
+        }
+    }
+
+    /**
+     * Turns the leading conditions comparing the prefix to a constant into a lookup table. Since the first condition
+     * that holds determines the {@link Codec}, all conditions following the first condition of any other kind still
+     * need to be evaluated in order.
+     */
+    private void buildLookupTable(Choices choices, ResolverContext context) {
+        Map<Integer, Codec<?>> constants = new HashMap<Integer, Codec<?>>();
+        int max = -1;
+        firstEvaluated = 0;
+        while (firstEvaluated < conditions.size()) {
+            Integer value = getPrefixConstant(choices.alternatives()[firstEvaluated].condition(), context);
+            if (value == null) {
+                break;
+            }
+            if (!constants.containsKey(value)) {
+                constants.put(value, codecs.get(firstEvaluated));
+            }
+            max = Math.max(max, value);
+            firstEvaluated++;
+        }
+        if (max < MAX_TABLE_SIZE) {
+            table = new Codec<?>[max + 1];
+            for (Map.Entry<Integer, Codec<?>> entry : constants.entrySet()) {
+                if (entry.getKey() >= 0) {
+                    table[entry.getKey()] = entry.getValue();
+                }
+            }
+        } else {
+            map = constants;
+        }
+    }
+
+    /**
+     * Returns the value the prefix is compared to, if the condition passed in does nothing but comparing the prefix to
+     * a literal value, or <code>null</code> otherwise.
+     */
+    private static Integer getPrefixConstant(String condition, ResolverContext context) {
+        Matcher matcher = PREFIX_EQUALS_CONSTANT.matcher(condition);
+        if (matcher.matches()) {
+            String literal = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            try {
+                Expression<Integer, Resolver> value = Expressions.createInteger(context, literal);
+                if (!value.isParameterized()) {
+                    return value.eval(null);
+                }
+            } catch (InvalidExpressionException iee) {
+                // Not a constant after all; will be evaluated.
+            }
+        }
+        return null;
     }
 
     public T decode(BitBuffer buffer, Resolver resolver, Builder builder)
             throws DecodingException {
+        Codec<?> codec = select(buffer, resolver);
+        if (codec != null) {
+            return (T) codec.decode(buffer, resolver, builder);
+        } else {
+            return null;
+        }
+    }
+
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        Codec<?> codec = select(buffer, resolver);
+        if (codec != null) {
+            codec.skip(buffer, resolver, builder);
+        }
+    }
+
+    /**
+     * Selects the {@link Codec} to be used for the next value, reading the prefix from the {@link BitBuffer} if there
+     * is one.
+     *
+     * @return The {@link Codec} selected, or <code>null</code> if none of the conditions holds and there is no
+     *         default.
+     */
+    private Codec<?> select(BitBuffer buffer, Resolver resolver) {
         if (prefixSize <= 0) {
             for (int i = 0; i < conditions.size(); i++) {
                 if (conditions.get(i).eval(resolver)) {
-                    return (T) codecs.get(i).decode(buffer, resolver, builder);
+                    return codecs.get(i);
                 }
             }
         } else {
             int prefix = buffer.readAsInt(this.prefixSize, byteOrder);
-            for (int i = 0; i < conditions.size(); i++) {
-                if (conditions.get(i)
-                        .eval(new PrefixResolver(resolver, prefix))) {
-                    return (T) codecs.get(i).decode(buffer, resolver, builder);
+            Codec<?> result;
+            if (table != null) {
+                result = prefix >= 0 && prefix < table.length ? table[prefix] : null;
+            } else {
+                result = map.get(prefix);
+            }
+            if (result != null) {
+                return result;
+            }
+            if (firstEvaluated < conditions.size()) {
+                Resolver prefixResolver = new PrefixResolver(resolver, prefix);
+                for (int i = firstEvaluated; i < conditions.size(); i++) {
+                    if (conditions.get(i).eval(prefixResolver)) {
+                        return codecs.get(i);
+                    }
                 }
             }
         }
-        if (defaultCodec != null) {
-            return (T) defaultCodec.decode(buffer, resolver, builder);
-        } else {
-            return null;
-        }
+        return defaultCodec;
     }
 
     public void encode(T value, BitChannel channel, Resolver resolver) {
@@ -158,7 +278,11 @@ public class SelectFromCodec<T> implements Codec<T> {
 
     public Expression<Integer, Resolver> getSize() {
         Integer result = null;
-        for (Codec<?> codec : codecs) {
+        List<Codec<?>> candidates = new ArrayList<Codec<?>>(codecs);
+        if (defaultCodec != null) {
+            candidates.add(defaultCodec);
+        }
+        for (Codec<?> codec : candidates) {
             Expression<Integer, Resolver> size = codec.getSize();
             if (size == null || size.isParameterized()) {
                 return null;
@@ -174,7 +298,8 @@ public class SelectFromCodec<T> implements Codec<T> {
             }
         }
         if (result != null) {
-            return Expressions.createInteger(result, Resolver.class);
+            // The prefix is part of the encoded representation as well
+            return Expressions.createInteger(result + Math.max(0, prefixSize), Resolver.class);
         } else {
             return null;
         }
@@ -78,6 +78,11 @@ class SlicingCodec<T> implements Codec<T> {
         return wrapped.decode(slice, resolver, builder);
     }
 
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        buffer.setBitPos(buffer.getBitPos() + sizeExpr.eval(resolver));
+    }
+
     public void encode(T value, BitChannel channel, Resolver resolver) throws IOException {
         wrapped.encode(value, new BoundedBitChannel(channel, sizeExpr.eval(resolver)), resolver);
     }
@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.BitBufferUnderflowException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Helper methods shared by the {@link FixedLengthStringCodec} and the {@link NullTerminatedStringCodec}, reading the
+ * encoded representation of a String in bulk rather than one byte at a time.
+ */
+final class StringDecoding {
+
+    /**
+     * Scratch arrays larger than this are not kept around after use.
+     */
+    private static final int MAX_SCRATCH_SIZE = 64 * 1024;
+
+    private static final long ONES = 0x0101010101010101L;
+
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>() {
+        protected byte[] initialValue() {
+            return new byte[256];
+        }
+    };
+
+    private StringDecoding() {
+    }
+
+    /**
+     * Returns a {@link ThreadLocal} handing out a {@link CharsetDecoder} for the given encoding to every thread,
+     * replacing malformed input and unmappable characters just like {@link Charset#decode(ByteBuffer)} does.
+     */
+    static ThreadLocal<CharsetDecoder> decoders(final Charset encoding) {
+        return new ThreadLocal<CharsetDecoder>() {
+            protected CharsetDecoder initialValue() {
+                return encoding.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+        };
+    }
+
+    /**
+     * Returns whether the {@link CharsetDecoder} is not needed to decode Strings in the given encoding, since the JDK
+     * is able to construct those Strings straight from the bytes.
+     */
+    static boolean isFastPath(Charset encoding) {
+        return ISO_8859_1.equals(encoding) || US_ASCII.equals(encoding) || UTF_8.equals(encoding);
+    }
+
+    /**
+     * Returns whether the {@link BoundString.ByteConverter} leaves the bytes untouched.
+     */
+    static boolean isIdentity(BoundString.ByteConverter converter) {
+        return converter.getClass() == BoundString.NullConverter.class;
+    }
+
+    /**
+     * Returns a view on all bytes from the current position of the {@link BitBuffer} up to its end, without moving
+     * the current position, or <code>null</code> if the current position is not byte aligned.
+     */
+    static ByteBuffer remaining(BitBuffer buffer) {
+        if (buffer.getActualBitPos() % 8 != 0) {
+            return null;
+        } else {
+            int length = (int) ((buffer.getBitBufBitSize() - buffer.getBitPos()) / 8);
+            return buffer.duplicate().readAsByteBuffer(length);
+        }
+    }
+
+    /**
+     * Returns the index of the first null byte in the {@link ByteBuffer}, relative to its position, or <code>-1</code>
+     * if there is none. The bytes are scanned eight at a time, as long as the converter leaves them untouched.
+     */
+    static int indexOfNull(ByteBuffer bytes, BoundString.ByteConverter converter) {
+        int start = bytes.position();
+        int end = bytes.limit();
+        int i = start;
+        if (isIdentity(converter)) {
+            for (; i + 8 <= end; i += 8) {
+                long word = bytes.getLong(i);
+                if (((word - ONES) & ~word & HIGHS) != 0) {
+                    break;
+                }
+            }
+            for (; i < end; i++) {
+                if (bytes.get(i) == 0) {
+                    return i - start;
+                }
+            }
+        } else {
+            for (; i < end; i++) {
+                if (converter.convert(bytes.get(i)) == 0) {
+                    return i - start;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads <code>length</code> bytes from the {@link BitBuffer}, in bulk if the current position is byte aligned. The
+     * {@link ByteBuffer} returned may be backed by a per-thread scratch array, so it should be consumed before this
+     * method is called again.
+     */
+    static ByteBuffer read(BitBuffer buffer, int length, BoundString.ByteConverter converter) {
+        if (buffer.getActualBitPos() % 8 == 0) {
+            return convert(buffer.readAsByteBuffer(length), converter);
+        } else {
+            byte[] scratch = scratch(length);
+            for (int i = 0; i < length; i++) {
+                scratch[i] = converter.convert(buffer.readAsByte(8));
+            }
+            return ByteBuffer.wrap(scratch, 0, length);
+        }
+    }
+
+    /**
+     * Reads the bytes up to the first null byte from the {@link BitBuffer}, leaving the buffer positioned right after
+     * that null byte.
+     *
+     * @throws BitBufferUnderflowException If there is no null byte before the end of the {@link BitBuffer}.
+     */
+    static ByteBuffer readNullTerminated(BitBuffer buffer, BoundString.ByteConverter converter) {
+        ByteBuffer remaining = remaining(buffer);
+        if (remaining == null) {
+            byte[] scratch = scratch(256);
+            int length = 0;
+            byte value;
+            while ((value = converter.convert(buffer.readAsByte(8))) != 0) {
+                if (length == scratch.length) {
+                    byte[] larger = new byte[length * 2];
+                    System.arraycopy(scratch, 0, larger, 0, length);
+                    scratch = larger;
+                    if (larger.length <= MAX_SCRATCH_SIZE) {
+                        SCRATCH.set(larger);
+                    }
+                }
+                scratch[length++] = value;
+            }
+            return ByteBuffer.wrap(scratch, 0, length);
+        } else {
+            int length = indexOfNull(remaining, converter);
+            skipTo(buffer, remaining, length);
+            remaining.limit(remaining.position() + length);
+            return convert(remaining, converter);
+        }
+    }
+
+    /**
+     * Moves the {@link BitBuffer} right past the first null byte, without decoding anything.
+     *
+     * @throws BitBufferUnderflowException If there is no null byte before the end of the {@link BitBuffer}.
+     */
+    static void skipNullTerminated(BitBuffer buffer, BoundString.ByteConverter converter) {
+        ByteBuffer remaining = remaining(buffer);
+        if (remaining == null) {
+            while (converter.convert(buffer.readAsByte(8)) != 0) {
+                // Keep on reading until we hit the terminating null byte.
+            }
+        } else {
+            skipTo(buffer, remaining, indexOfNull(remaining, converter));
+        }
+    }
+
+    /**
+     * Decodes all remaining bytes of the {@link ByteBuffer} into a String.
+     */
+    static String decode(ByteBuffer bytes, Charset encoding, ThreadLocal<CharsetDecoder> decoders) {
+        if (isFastPath(encoding)) {
+            int length = bytes.remaining();
+            if (bytes.hasArray()) {
+                return new String(bytes.array(), bytes.arrayOffset() + bytes.position(), length, encoding);
+            } else {
+                byte[] scratch = scratch(length);
+                bytes.duplicate().get(scratch, 0, length);
+                return new String(scratch, 0, length, encoding);
+            }
+        } else {
+            CharsetDecoder decoder = decoders.get();
+            decoder.reset();
+            try {
+                return decoder.decode(bytes).toString();
+            } catch (CharacterCodingException cce) {
+                // Never happens, since errors are replaced.
+                throw new IllegalStateException(cce);
+            }
+        }
+    }
+
+    private static void skipTo(BitBuffer buffer, ByteBuffer remaining, int length) {
+        if (length < 0) {
+            throw new BitBufferUnderflowException(buffer.getBitPos(), 8L * (remaining.remaining() + 1));
+        }
+        buffer.setBitPos(buffer.getBitPos() + 8L * (length + 1));
+    }
+
+    private static ByteBuffer convert(ByteBuffer bytes, BoundString.ByteConverter converter) {
+        if (isIdentity(converter)) {
+            return bytes;
+        } else {
+            int length = bytes.remaining();
+            byte[] scratch = scratch(length);
+            for (int i = 0; i < length; i++) {
+                scratch[i] = converter.convert(bytes.get(bytes.position() + i));
+            }
+            return ByteBuffer.wrap(scratch, 0, length);
+        }
+    }
+
+    private static byte[] scratch(int length) {
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new byte[length];
+            if (length <= MAX_SCRATCH_SIZE) {
+                SCRATCH.set(scratch);
+            }
+        }
+        return scratch;
+    }
+
+}
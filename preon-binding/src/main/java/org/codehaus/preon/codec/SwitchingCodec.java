@@ -80,6 +80,12 @@ public class SwitchingCodec implements Codec<Object> {
         return codec.decode(buffer, resolver, builder);
     }
 
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        Codec<?> codec = selector.select(buffer, resolver);
+        codec.skip(buffer, resolver, builder);
+    }
+
     public void encode(Object value, BitChannel channel, Resolver resolver) throws IOException {
         Codec codec = selector.select(value.getClass(), channel, resolver);
         codec.encode(value, channel, resolver);
@@ -113,6 +113,12 @@ public class TypePrefixSelectorFactory implements CodecSelectorFactory {
      */
     private static class TypePrefixSelector implements CodecSelector {
 
+        /**
+         * The largest number of entries in a {@link #table}. Prefix values beyond this number cause a {@link #map} to
+         * be used instead.
+         */
+        private static final int MAX_TABLE_SIZE = 1024;
+
         private List<Codec<?>> codecs;
 
         private Set<Codec<?>> uniqueCodecs;
@@ -123,6 +129,24 @@ public class TypePrefixSelectorFactory implements CodecSelectorFactory {
 
         private int size;
 
+        /**
+         * The {@link Codec Codecs} selected by the constant prefixes preceding the first parameterized prefix, indexed
+         * by prefix value, if all of these values are small enough. <code>null</code> otherwise.
+         */
+        private Codec<?>[] table;
+
+        /**
+         * The {@link Codec Codecs} selected by the constant prefixes preceding the first parameterized prefix, if
+         * {@link #table} is <code>null</code>.
+         */
+        private Map<Long, Codec<?>> map;
+
+        /**
+         * The index of the first parameterized prefix expression. All expressions from this index onwards need to be
+         * evaluated while decoding.
+         */
+        private int firstParameterized;
+
         public TypePrefixSelector(
                 List<Expression<Integer, Resolver>> expressions,
                 List<Codec<?>> codecs, int size, ByteOrder byteOrder) {
@@ -132,6 +156,37 @@ public class TypePrefixSelectorFactory implements CodecSelectorFactory {
             this.size = size;
             this.byteOrder = byteOrder;
             this.uniqueCodecs.addAll(codecs);
+            buildLookupTable();
+        }
+
+        /**
+         * Prepares the lookup of {@link Codec Codecs} by prefix value. Only the constant prefixes preceding the first
+         * parameterized prefix are taken into account; since the first matching prefix wins, anything else needs to be
+         * evaluated in order.
+         */
+        private void buildLookupTable() {
+            Map<Long, Codec<?>> constants = new HashMap<Long, Codec<?>>();
+            long max = -1;
+            boolean dense = true;
+            firstParameterized = 0;
+            while (firstParameterized < expressions.size()
+                    && !expressions.get(firstParameterized).isParameterized()) {
+                long value = expressions.get(firstParameterized).eval(null);
+                if (!constants.containsKey(value)) {
+                    constants.put(value, codecs.get(firstParameterized));
+                }
+                dense &= value >= 0 && value < MAX_TABLE_SIZE;
+                max = Math.max(max, value);
+                firstParameterized++;
+            }
+            if (dense) {
+                table = new Codec<?>[(int) max + 1];
+                for (Map.Entry<Long, Codec<?>> entry : constants.entrySet()) {
+                    table[entry.getKey().intValue()] = entry.getValue();
+                }
+            } else {
+                map = constants;
+            }
         }
 
         public Collection<Codec<?>> getChoices() {
@@ -141,7 +196,16 @@ public class TypePrefixSelectorFactory implements CodecSelectorFactory {
         public Codec<?> select(BitBuffer buffer, Resolver resolver)
                 throws DecodingException {
             long index = buffer.readAsLong(size, byteOrder);
-            for (int i = 0; i < codecs.size(); i++) {
+            Codec<?> result;
+            if (table != null) {
+                result = index >= 0 && index < table.length ? table[(int) index] : null;
+            } else {
+                result = map.get(index);
+            }
+            if (result != null) {
+                return result;
+            }
+            for (int i = firstParameterized; i < codecs.size(); i++) {
                 if (index == expressions.get(i).eval(resolver)) {
                     return codecs.get(i);
                 }
@@ -65,6 +65,10 @@ public class ImportSupportingObjectResolverContext implements
         return this.context.getResolver(context, resolver);
     }
 
+    public boolean isReferenced(String name) {
+        return context.isReferenced(name);
+    }
+
     public Reference<Resolver> selectAttribute(String name)
             throws BindingException {
         if (references.containsKey(name)) {
@@ -47,4 +47,11 @@ public interface ObjectResolverContext extends ResolverContext {
 
     void add(String name, Binding binding);
 
+    /**
+     * Returns whether the binding with the given name has been referred to by any expression constructed using this
+     * context. Values of bindings that are not referred to do not need to be loaded in order to decode subsequent
+     * values.
+     */
+    boolean isReferenced(String name);
+
 }
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.nio;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct {@link ByteBuffer ByteBuffers} of the same capacity, shared by {@link FrameDecoder FrameDecoders}
+ * in order to avoid allocating (and zeroing) a new direct buffer for every connection, and to avoid holding on to
+ * buffers while connections are idle. Safe for use by multiple threads.
+ */
+public class BufferPool {
+
+    private final int capacity;
+
+    /** The maximal number of buffers retained by the pool. */
+    private final int maximum;
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param capacity The capacity of the buffers, in bytes, which is also the maximal size of frames.
+     * @param maximum  The maximal number of buffers retained by the pool; buffers released beyond that number are left
+     *                 to the garbage collector.
+     */
+    public BufferPool(int capacity, int maximum) {
+        this.capacity = capacity;
+        this.maximum = maximum;
+    }
+
+    /**
+     * Returns a cleared buffer, either taken from the pool or newly allocated.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        } else {
+            pooled.decrementAndGet();
+            buffer.clear();
+            return buffer;
+        }
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer should no longer be used by the caller, nor by anyone holding views on
+     * its content.
+     */
+    public void release(ByteBuffer buffer) {
+        if (pooled.incrementAndGet() <= maximum) {
+            buffers.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the capacity of the buffers in this pool, in bytes.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of buffers currently retained by the pool.
+     */
+    public int size() {
+        return pooled.get();
+    }
+
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+
+import org.codehaus.preon.Builder;
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.DefaultBuilder;
+import org.codehaus.preon.Resolver;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.BitBufferUnderflowException;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+
+/**
+ * Decodes frames read from a (typically non-blocking) channel, passing them on to a {@link FrameHandler}. One instance
+ * is needed per channel.
+ * <p/>
+ * Data is read into a direct buffer taken from a {@link BufferPool}, and decoded from that buffer without copying: the
+ * value is decoded by a {@link Codec} from the start of each frame, and the remainder of the frame is passed on to the
+ * handler as a view on that same buffer. The end of a frame is determined either by a {@link FrameLength}, or, if
+ * none is given, by the {@link Codec} itself, in which case the frame ends where the value ends. Once all frames
+ * received have been handled, the buffer is returned to the pool.
+ * <p/>
+ * A {@link FrameHandler} can ask for reading to be suspended by returning <code>false</code>. The decoder then stops
+ * reading from its channel (and, if it is reading on behalf of a {@link SelectionKey}, stops selecting it for reading)
+ * until {@link #resume()} is called. Frames that have been received already are delivered once resumed.
+ * <p/>
+ * Instances are not safe for use by multiple threads: {@link #resume()} needs to be called by the thread calling
+ * {@link #read(SelectionKey)}.
+ *
+ * @param <T> The type of value decoded from the start of each frame.
+ */
+public class FrameDecoder<T> {
+
+    private final Codec<T> codec;
+
+    /** The length of frames, or <code>null</code> if frames end where the value decoded ends. */
+    private final FrameLength length;
+
+    private final BufferPool pool;
+
+    private final FrameHandler<T> handler;
+
+    private final Builder builder;
+
+    private final Resolver resolver;
+
+    /**
+     * The buffer receiving data, in which the first frame not handled yet always starts at position 0. The buffer is
+     * kept ready for reading from the channel; <code>null</code> if there is no data pending.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The number of bytes that need to be available before another attempt to decode a frame delimited by the {@link
+     * Codec} could succeed.
+     */
+    private int required;
+
+    private boolean paused;
+
+    /** The {@link SelectionKey} on behalf of which data is read, if any. */
+    private SelectionKey key;
+
+    /**
+     * Constructs a new instance, decoding frames delimited by the {@link Codec}.
+     *
+     * @param codec   The {@link Codec} decoding frames.
+     * @param pool    The pool providing buffers.
+     * @param handler The handler receiving the frames decoded.
+     */
+    public FrameDecoder(Codec<T> codec, BufferPool pool, FrameHandler<T> handler) {
+        this(codec, null, pool, handler, new DefaultBuilder(), null);
+    }
+
+    /**
+     * Constructs a new instance, decoding frames delimited by a {@link FrameLength}.
+     *
+     * @param codec   The {@link Codec} decoding the value at the start of every frame.
+     * @param length  The length of frames.
+     * @param pool    The pool providing buffers.
+     * @param handler The handler receiving the frames decoded.
+     */
+    public FrameDecoder(Codec<T> codec, FrameLength length, BufferPool pool, FrameHandler<T> handler) {
+        this(codec, length, pool, handler, new DefaultBuilder(), null);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param codec    The {@link Codec} decoding the value at the start of every frame.
+     * @param length   The length of frames, or <code>null</code> if frames end where the value decoded ends.
+     * @param pool     The pool providing buffers.
+     * @param handler  The handler receiving the frames decoded.
+     * @param builder  The object capable of constructing new instances of a class.
+     * @param resolver The context for evaluating expressions.
+     */
+    public FrameDecoder(Codec<T> codec, FrameLength length, BufferPool pool, FrameHandler<T> handler,
+                        Builder builder, Resolver resolver) {
+        this.codec = codec;
+        this.length = length;
+        this.pool = pool;
+        this.handler = handler;
+        this.builder = builder;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Reads the data available on the channel of a {@link SelectionKey}, and handles the frames received. If the
+     * {@link FrameHandler} asks for reading to be suspended, then the key will no longer be selected for reading until
+     * {@link #resume()} is called.
+     *
+     * @return The number of bytes read, or <code>-1</code> if the end of the stream has been reached.
+     * @throws IOException       If reading from the channel fails.
+     * @throws DecodingException If a frame cannot be decoded, or exceeds the capacity of the pooled buffers.
+     */
+    public int read(SelectionKey key) throws IOException, DecodingException {
+        this.key = key;
+        int result = read((ReadableByteChannel) key.channel());
+        if (paused && key.isValid()) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the data available on the channel, and handles the frames received. Returns immediately if reading is
+     * suspended.
+     *
+     * @return The number of bytes read, or <code>-1</code> if the end of the stream has been reached.
+     * @throws IOException       If reading from the channel fails.
+     * @throws DecodingException If a frame cannot be decoded, or exceeds the capacity of the pooled buffers.
+     */
+    public int read(ReadableByteChannel channel) throws IOException, DecodingException {
+        int total = 0;
+        try {
+            while (!paused) {
+                if (buffer == null) {
+                    buffer = pool.acquire();
+                }
+                int count = channel.read(buffer);
+                if (count < 0) {
+                    return total > 0 ? total : -1;
+                } else if (count == 0) {
+                    return total;
+                }
+                total += count;
+                deliver();
+            }
+            return total;
+        } finally {
+            releaseIfEmpty();
+        }
+    }
+
+    /**
+     * Resumes reading after a {@link FrameHandler} asked for it to be suspended. Frames that have been received
+     * already are handled first, which may suspend reading again.
+     *
+     * @throws DecodingException If a frame cannot be decoded.
+     */
+    public void resume() throws DecodingException {
+        paused = false;
+        if (buffer != null) {
+            deliver();
+            releaseIfEmpty();
+        }
+        if (!paused && key != null && key.isValid()) {
+            // Takes effect at the next select; being called by the selecting thread, there is no select to wake up.
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Returns whether reading has been suspended by the {@link FrameHandler}.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Returns the number of bytes received but not handled yet.
+     */
+    public int getBytesPending() {
+        return buffer == null ? 0 : buffer.position();
+    }
+
+    /**
+     * Returns the buffer to the pool, discarding any data pending. To be called once the channel has been closed.
+     */
+    public void close() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Handles the complete frames in the buffer, until reading is suspended, and moves the remaining data to the start
+     * of the buffer.
+     */
+    private void deliver() throws DecodingException {
+        buffer.flip();
+        try {
+            while (!paused && buffer.hasRemaining()) {
+                int size = deliver(buffer.slice());
+                if (size < 0) {
+                    break;
+                }
+                buffer.position(buffer.position() + size);
+            }
+        } finally {
+            buffer.compact();
+        }
+        if (!paused && !buffer.hasRemaining()) {
+            throw new DecodingException("Frame exceeds the capacity of " + buffer.capacity() + " bytes.");
+        }
+    }
+
+    /**
+     * Handles the frame at the start of the data passed in, if it has been received entirely.
+     *
+     * @return The size of the frame handled in bytes, or <code>-1</code> if it has not been received entirely.
+     */
+    private int deliver(ByteBuffer data) throws DecodingException {
+        BitBuffer bits;
+        T value;
+        int size;
+        if (length != null) {
+            size = length.getLength(data);
+            if (size > buffer.capacity()) {
+                throw new DecodingException("Frame of " + size + " bytes exceeds the capacity of "
+                        + buffer.capacity() + " bytes.");
+            } else if (size < 0 || size > data.remaining()) {
+                return -1;
+            }
+            data.limit(size);
+            bits = new DefaultBitBuffer(data.slice());
+            value = codec.decode(bits, resolver, builder);
+        } else {
+            if (data.remaining() < required) {
+                return -1;
+            }
+            bits = new DefaultBitBuffer(data.slice());
+            try {
+                value = codec.decode(bits, resolver, builder);
+            } catch (BitBufferUnderflowException bbue) {
+                long end = bbue.getBitPos() + bbue.getBitsRequested();
+                if (end <= 8L * data.remaining()) {
+                    // Not lacking data; reading beyond the end of a slice, for instance.
+                    throw bbue;
+                }
+                return require(Math.min(Integer.MAX_VALUE, (end + 7) >>> 3));
+            }
+            size = (int) ((bits.getBitPos() + 7) >>> 3);
+            if (size > data.remaining()) {
+                // Skipped over data that has not been received yet, without reading it.
+                return require(size);
+            }
+            required = 0;
+        }
+        if (size == 0) {
+            throw new DecodingException("Frames cannot be empty.");
+        }
+        // The payload starts at the first byte boundary following the value.
+        long start = (bits.getBitPos() + 7) & ~7L;
+        bits.setBitPos(start);
+        ByteBuffer payload = bits.readAsByteBuffer(size - (int) (start >>> 3));
+        paused = !handler.handle(value, payload.asReadOnlyBuffer());
+        return size;
+    }
+
+    /**
+     * Records the number of bytes required for decoding the next frame, and returns -1.
+     */
+    private int require(long bytes) throws DecodingException {
+        if (bytes > buffer.capacity()) {
+            throw new DecodingException("Frame of at least " + bytes + " bytes exceeds the capacity of "
+                    + buffer.capacity() + " bytes.");
+        }
+        required = (int) bytes;
+        return -1;
+    }
+
+    private void releaseIfEmpty() {
+        if (buffer != null && buffer.position() == 0) {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+
+}
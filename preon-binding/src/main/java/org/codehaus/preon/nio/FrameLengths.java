@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.nio;
+
+import java.nio.ByteBuffer;
+
+import org.codehaus.preon.buffer.ByteOrder;
+
+/**
+ * Factory methods for {@link FrameLength FrameLengths}.
+ */
+public class FrameLengths {
+
+    private FrameLengths() {
+    }
+
+    /**
+     * Returns a {@link FrameLength} reading the length of a frame from a length field.
+     *
+     * @param offset     The position of the length field within the frame, in bytes.
+     * @param size       The size of the length field, in bytes: 1, 2, 3 or 4.
+     * @param byteOrder  The byte order of the length field.
+     * @param adjustment The number of bytes to add to the value of the length field, in order to get the length of the
+     *                   entire frame. (Which is <code>offset + size</code> if the length field holds the number of
+     *                   bytes following it, and 0 if it holds the length of the entire frame.)
+     */
+    public static FrameLength field(final int offset, final int size, final ByteOrder byteOrder,
+                                    final int adjustment) {
+        if (size < 1 || size > 4) {
+            throw new IllegalArgumentException("Length fields of " + size + " bytes are not supported.");
+        }
+        return new FrameLength() {
+            public int getLength(ByteBuffer buffer) {
+                if (buffer.remaining() < offset + size) {
+                    return -1;
+                }
+                long value = 0;
+                for (int i = 0; i < size; i++) {
+                    int current = byteOrder == ByteOrder.BigEndian ? i : size - 1 - i;
+                    value = (value << 8) | (buffer.get(buffer.position() + offset + current) & 0xff);
+                }
+                return (int) Math.min(Integer.MAX_VALUE, value + adjustment);
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link FrameLength} for frames of the given length.
+     */
+    public static FrameLength fixed(final int length) {
+        return new FrameLength() {
+            public int getLength(ByteBuffer buffer) {
+                return length;
+            }
+        };
+    }
+
+}
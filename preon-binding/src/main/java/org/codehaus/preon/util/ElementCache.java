@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+/**
+ * A cache of elements of a lazily loaded {@link java.util.List}, keyed by index. Implementations need to be safe for
+ * use by multiple threads. Use {@link ElementCaches} to obtain an instance.
+ *
+ * @param <E> The type of elements cached.
+ */
+public interface ElementCache<E> {
+
+    /**
+     * Returns the element at the given index, or <code>null</code> if not cached (anymore).
+     *
+     * @param index The index of the element.
+     * @return The element cached, or <code>null</code>.
+     */
+    E get(int index);
+
+    /**
+     * Caches the element passed in, unless another element has been cached for the same index already.
+     *
+     * @param index The index of the element.
+     * @param value The element.
+     * @return The element cached for the index after this operation; either the element passed in, or the element
+     *         already present.
+     */
+    E putIfAbsent(int index, E value);
+
+}
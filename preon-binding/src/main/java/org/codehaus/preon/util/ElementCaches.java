@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.codehaus.preon.annotation.BoundList;
+
+/**
+ * Factory methods for the different types of {@link ElementCache ElementCaches}.
+ */
+public class ElementCaches {
+
+    private static final ElementCache<Object> NONE = new ElementCache<Object>() {
+
+        public Object get(int index) {
+            return null;
+        }
+
+        public Object putIfAbsent(int index, Object value) {
+            return value;
+        }
+
+    };
+
+    private ElementCaches() {
+    }
+
+    /**
+     * Returns the {@link ElementCache} selected by {@link BoundList#cache()}.
+     *
+     * @param caching  The type of cache.
+     * @param capacity The maximum number of elements cached, if the type of cache is {@link BoundList.Caching#LRU}.
+     * @param size     The number of elements in the List.
+     */
+    public static <E> ElementCache<E> create(BoundList.Caching caching, int capacity, int size) {
+        switch (caching) {
+            case NONE:
+                return none();
+            case STRONG:
+                return strong(size);
+            case LRU:
+                return lru(capacity);
+            default:
+                return soft(size);
+        }
+    }
+
+    /**
+     * Returns an {@link ElementCache} not caching anything at all. Every attempt to get an element from the List will
+     * cause it to be decoded again.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> ElementCache<E> none() {
+        return (ElementCache<E>) NONE;
+    }
+
+    /**
+     * Returns an {@link ElementCache} holding on to every element ever decoded, for as long as the List exists.
+     *
+     * @param size The number of elements in the List.
+     */
+    public static <E> ElementCache<E> strong(int size) {
+        return new StrongElementCache<E>(size);
+    }
+
+    /**
+     * Returns an {@link ElementCache} holding on to elements decoded until the garbage collector needs the memory.
+     *
+     * @param size The number of elements in the List.
+     */
+    public static <E> ElementCache<E> soft(int size) {
+        return new SoftElementCache<E>(size);
+    }
+
+    /**
+     * Returns an {@link ElementCache} holding on to the elements accessed most recently.
+     *
+     * @param capacity The maximum number of elements cached.
+     */
+    public static <E> ElementCache<E> lru(int capacity) {
+        return new LruElementCache<E>(capacity);
+    }
+
+    /**
+     * The base class of caches holding one entry per element. The entries are only allocated once the first element
+     * gets cached, so Lists of which no element is ever accessed cost nothing beyond the cache itself.
+     */
+    private abstract static class ArrayElementCache<E, R> implements ElementCache<E> {
+
+        private final int size;
+
+        private final AtomicReference<AtomicReferenceArray<R>> entries = new AtomicReference<AtomicReferenceArray<R>>();
+
+        protected ArrayElementCache(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Returns the entries, or <code>null</code> if nothing has been cached yet.
+         */
+        protected AtomicReferenceArray<R> getEntries() {
+            return entries.get();
+        }
+
+        /**
+         * Returns the entries, allocating them if required.
+         */
+        protected AtomicReferenceArray<R> getOrCreateEntries() {
+            AtomicReferenceArray<R> result = entries.get();
+            if (result == null) {
+                entries.compareAndSet(null, new AtomicReferenceArray<R>(size));
+                result = entries.get();
+            }
+            return result;
+        }
+
+    }
+
+    private static class StrongElementCache<E> extends ArrayElementCache<E, E> {
+
+        public StrongElementCache(int size) {
+            super(size);
+        }
+
+        public E get(int index) {
+            AtomicReferenceArray<E> elements = getEntries();
+            return elements == null ? null : elements.get(index);
+        }
+
+        public E putIfAbsent(int index, E value) {
+            AtomicReferenceArray<E> elements = getOrCreateEntries();
+            if (elements.compareAndSet(index, null, value)) {
+                return value;
+            } else {
+                return elements.get(index);
+            }
+        }
+
+    }
+
+    private static class SoftElementCache<E> extends ArrayElementCache<E, SoftReference<E>> {
+
+        public SoftElementCache(int size) {
+            super(size);
+        }
+
+        public E get(int index) {
+            AtomicReferenceArray<SoftReference<E>> elements = getEntries();
+            SoftReference<E> reference = elements == null ? null : elements.get(index);
+            return reference == null ? null : reference.get();
+        }
+
+        public E putIfAbsent(int index, E value) {
+            AtomicReferenceArray<SoftReference<E>> elements = getOrCreateEntries();
+            while (true) {
+                SoftReference<E> current = elements.get(index);
+                E cached = current == null ? null : current.get();
+                if (cached != null) {
+                    return cached;
+                } else if (elements.compareAndSet(index, current, new SoftReference<E>(value))) {
+                    return value;
+                }
+            }
+        }
+
+    }
+
+    private static class LruElementCache<E> implements ElementCache<E> {
+
+        private final Map<Integer, E> elements;
+
+        public LruElementCache(final int capacity) {
+            elements = new LinkedHashMap<Integer, E>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<Integer, E> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        public synchronized E get(int index) {
+            return elements.get(index);
+        }
+
+        public synchronized E putIfAbsent(int index, E value) {
+            E cached = elements.get(index);
+            if (cached != null) {
+                return cached;
+            } else {
+                elements.put(index, value);
+                return value;
+            }
+        }
+
+    }
+
+}
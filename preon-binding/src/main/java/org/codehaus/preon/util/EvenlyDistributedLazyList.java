@@ -37,6 +37,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import org.codehaus.preon.Builder;
 import org.codehaus.preon.Codec;
@@ -46,9 +48,10 @@ import org.codehaus.preon.Resolver;
 import org.codehaus.preon.buffer.BitBuffer;
 
 /**
- * A {@link List} that will lazily load objects from a {@link BitBuffer}. Note that it does <em>not</em> cache the
- * elements in any way. Since the objects will be instantiated on the fly, different threads will return instances with
- * a different object identity.
+ * A {@link List} that will lazily load objects from a {@link BitBuffer}. Elements decoded are kept in an {@link
+ * ElementCache}; depending on the type of cache passed in, subsequent attempts to get the same element may return the
+ * same instance, or decode the element again. Every element is decoded from a {@link BitBuffer#duplicate() duplicate}
+ * of the {@link BitBuffer}, so the List can safely be accessed by multiple threads, including by parallel streams.
  *
  * @author Wilfred Springer
  * @param <E> The type of elements in the {@link List}.
@@ -69,6 +72,12 @@ public class EvenlyDistributedLazyList<E> implements List<E> {
     /** The maximum number of elements in the list. */
     private int maxSize;
 
+    /** The elements decoded so far, keyed by their index relative to {@link #offset}. */
+    private ElementCache<E> cache;
+
+    /** The index in the {@link #cache} of the first element of this list. (Non-zero for sublists only.) */
+    private int first;
+
     /**
      * The size of the element in number of bits. (Remember, this implementation of List is for decoding equally-sized
      * elements.)
@@ -96,6 +105,32 @@ public class EvenlyDistributedLazyList<E> implements List<E> {
      */
     public EvenlyDistributedLazyList(Codec<E> codec, long offset, BitBuffer buffer, int numberOfElements,
                                      Builder builder, Resolver resolver, int elementSize) {
+        this(codec, offset, buffer, numberOfElements, builder, resolver, elementSize,
+                ElementCaches.<E>none());
+    }
+
+    /**
+     * Constructs a new instance, caching elements decoded in the {@link ElementCache} passed in.
+     *
+     * @param codec    The {@link Codec} responsible for decoding elements in the list.
+     * @param offset   The start position of the encoded list, relative to the start of the {@link BitBuffer}.
+     * @param buffer   The {@link BitBuffer} from which data will be decoded.
+     * @param numberOfElements  The number of elements in the list.
+     * @param builder  The object capable of constructing new instances of a class, including non-static inner classes.
+     * @param resolver The context for evaluating expressions.
+     * @param elementSize The number of bits occupied by every element.
+     * @param cache    The cache of elements decoded, keyed by index.
+     */
+    public EvenlyDistributedLazyList(Codec<E> codec, long offset, BitBuffer buffer, int numberOfElements,
+                                     Builder builder, Resolver resolver, int elementSize, ElementCache<E> cache) {
+        this(codec, offset, buffer, numberOfElements, builder, resolver, elementSize, cache, 0);
+    }
+
+    private EvenlyDistributedLazyList(Codec<E> codec, long offset, BitBuffer buffer, int numberOfElements,
+                                      Builder builder, Resolver resolver, int elementSize, ElementCache<E> cache,
+                                      int first) {
+        this.cache = cache;
+        this.first = first;
         this.codec = codec;
         this.offset = offset;
         this.buffer = buffer;
@@ -194,12 +229,18 @@ public class EvenlyDistributedLazyList<E> implements List<E> {
         if (index < 0 || index >= maxSize) {
             throw new IndexOutOfBoundsException();
         }
-        buffer.setBitPos(offset + index * elementSize);
-        try {
-            return codec.decode(buffer, resolver, builder);
-        } catch (DecodingException de) {
-            return policy.handle(de);
+        int key = first + index;
+        E result = cache.get(key);
+        if (result == null) {
+            BitBuffer cursor = buffer.duplicate();
+            cursor.setBitPos(offset + (long) key * elementSize);
+            try {
+                result = cache.putIfAbsent(key, codec.decode(cursor, resolver, builder));
+            } catch (DecodingException de) {
+                return policy.handle(de);
+            }
         }
+        return result;
     }
 
     /*
@@ -220,7 +261,7 @@ public class EvenlyDistributedLazyList<E> implements List<E> {
      */
 
     public boolean isEmpty() {
-        return maxSize != 0;
+        return maxSize == 0;
     }
 
     /*
@@ -330,8 +371,21 @@ public class EvenlyDistributedLazyList<E> implements List<E> {
      */
 
     public List<E> subList(int fromIndex, int toIndex) {
-        return new EvenlyDistributedLazyList<E>(codec, offset + elementSize * fromIndex, buffer,
-                toIndex - fromIndex, builder, resolver, elementSize);
+        if (fromIndex < 0 || toIndex > maxSize || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new EvenlyDistributedLazyList<E>(codec, offset, buffer,
+                toIndex - fromIndex, builder, resolver, elementSize, cache, first + fromIndex);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Collection#spliterator()
+     */
+
+    public Spliterator<E> spliterator() {
+        return new LazyListSpliterator(0, maxSize);
     }
 
     /*
@@ -472,6 +526,53 @@ public class EvenlyDistributedLazyList<E> implements List<E> {
 
     }
 
+    /**
+     * A {@link Spliterator} splitting the range of indexes it covers in two halves. Since every element is decoded
+     * from its own duplicate of the {@link BitBuffer}, the halves can be traversed in parallel.
+     */
+    private class LazyListSpliterator implements Spliterator<E> {
+
+        /** The index of the next element. */
+        private int index;
+
+        /** The index following the last element covered. */
+        private final int fence;
+
+        public LazyListSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (index < fence) {
+                action.accept(get(index++));
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        public Spliterator<E> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            } else {
+                Spliterator<E> prefix = new LazyListSpliterator(index, mid);
+                index = mid;
+                return prefix;
+            }
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+        }
+
+    }
+
     /**
      * The problem with lazy loading data is that the exception occurs not while calling the decode operation on the
      * {@link Codec}, but later on, while obtaining the data. This interface allows this class to have a strategy for
@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import java.nio.ByteBuffer;
+
+import org.codehaus.preon.Builder;
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.DefaultBuilder;
+import org.codehaus.preon.Resolver;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.BitBufferUnderflowException;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+import org.codehaus.preon.el.Expression;
+
+/**
+ * Decodes a sequence of records from data arriving in pieces, such as data read from a socket, or appended to a file
+ * that is still growing. Data is {@link #append(ByteBuffer) appended} as it arrives, after which {@link #poll()}
+ * returns the next record if the data received so far holds all of it. If it does not, then {@link #poll()} returns
+ * <code>null</code>, and {@link #getBitsRequired()} tells how many more bits are needed at least before another attempt
+ * could succeed.
+ * <p/>
+ * A record that fails to decode is decoded again from its start once more data has arrived; the state of a partially
+ * decoded record lives on the stack of the {@link Codec Codecs} decoding it, so it cannot be retained. In order to
+ * keep re-parsing to a minimum, {@link #poll()} does not make another attempt until the bits that were missing in the
+ * previous attempt have arrived.
+ * <p/>
+ * Records decoded may refer to the data they were decoded from (lazily loaded Lists, for instance). That data is never
+ * modified: when the data buffered needs to be compacted, it is copied into a new array.
+ * <p/>
+ * Instances are not safe for use by multiple threads.
+ *
+ * @param <T> The type of records decoded.
+ */
+public class IncrementalDecoder<T> {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /** The {@link Codec} decoding individual records. */
+    private final Codec<T> codec;
+
+    private final Builder builder;
+
+    private final Resolver resolver;
+
+    /** The minimal number of bits occupied by a record. */
+    private final long minimalSize;
+
+    /** The data received, of which the bytes preceding {@link #limit} are valid. */
+    private byte[] data = new byte[INITIAL_CAPACITY];
+
+    /** The number of valid bytes in {@link #data}. */
+    private int limit;
+
+    /** The position of the start of the next record, in bits, relative to the start of {@link #data}. */
+    private long start;
+
+    /** The number of bytes discarded from the start of the data received so far. */
+    private long discarded;
+
+    /**
+     * The number of bits that need to be available from {@link #start} before another attempt to decode a record
+     * could succeed.
+     */
+    private long required;
+
+    /**
+     * Constructs a new instance, using the default {@link Builder} and no {@link Resolver}.
+     *
+     * @param codec The {@link Codec} decoding individual records.
+     */
+    public IncrementalDecoder(Codec<T> codec) {
+        this(codec, new DefaultBuilder(), null);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param codec    The {@link Codec} decoding individual records.
+     * @param builder  The object capable of constructing new instances of a class, including non-static inner classes.
+     * @param resolver The context for evaluating expressions.
+     */
+    public IncrementalDecoder(Codec<T> codec, Builder builder, Resolver resolver) {
+        this.codec = codec;
+        this.builder = builder;
+        this.resolver = resolver;
+        Expression<Integer, Resolver> size = codec.getSize();
+        if (size != null && !size.isParameterized()) {
+            minimalSize = Math.max(1, size.eval(null));
+        } else {
+            minimalSize = 1;
+        }
+        required = minimalSize;
+    }
+
+    /**
+     * Appends the data remaining in the {@link ByteBuffer} passed in, moving its position to its limit.
+     */
+    public void append(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        ensureCapacity(length);
+        buffer.get(data, limit, length);
+        limit += length;
+    }
+
+    /**
+     * Appends data.
+     *
+     * @param bytes  The array holding the data.
+     * @param offset The position of the first byte to append.
+     * @param length The number of bytes to append.
+     */
+    public void append(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, data, limit, length);
+        limit += length;
+    }
+
+    /**
+     * Decodes the next record, if the data received so far holds all of it.
+     *
+     * @return The record decoded, or <code>null</code> if more data is required.
+     * @throws DecodingException If the record cannot be decoded, for other reasons than lacking data. The next attempt
+     *                           will start from the same position.
+     */
+    public T poll() throws DecodingException {
+        long available = getBitsAvailable();
+        if (available < required) {
+            return null;
+        }
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(data, 0, limit).slice());
+        buffer.setBitPos(start);
+        T result;
+        try {
+            result = codec.decode(buffer, resolver, builder);
+        } catch (BitBufferUnderflowException bbue) {
+            long end = bbue.getBitPos() + bbue.getBitsRequested() - start;
+            if (end <= available) {
+                // Not lacking data; reading beyond the end of a slice, for instance.
+                throw bbue;
+            }
+            required = end;
+            return null;
+        }
+        long end = buffer.getBitPos();
+        if (end > 8L * limit) {
+            // Decoded without reading all of it; skipping over (lazily loaded) data that has not been received yet.
+            required = end - start;
+            return null;
+        }
+        start = end;
+        required = minimalSize;
+        return result;
+    }
+
+    /**
+     * Returns the minimal number of bits that need to be appended before {@link #poll()} could return another record.
+     * (Which does not guarantee that it will, since the record may turn out to be larger than assumed so far.)
+     */
+    public long getBitsRequired() {
+        return Math.max(0, required - getBitsAvailable());
+    }
+
+    /**
+     * Returns the number of bits received but not decoded yet.
+     */
+    public long getBitsAvailable() {
+        return 8L * limit - start;
+    }
+
+    /**
+     * Returns the position of the start of the next record, in bits, relative to the start of all data appended. Once
+     * recorded, decoding can be restarted from that position by a new instance, when appending the data from the byte
+     * containing it (and skipping the first <code>position % 8</code> bits by decoding and discarding them, if records
+     * are not byte-aligned).
+     */
+    public long getBitPos() {
+        return 8 * discarded + start;
+    }
+
+    /**
+     * Makes room for appending the given number of bytes. Bytes preceding the next record are discarded, by copying
+     * the remaining bytes into a new array, rather than moving them within the same array, since records decoded
+     * before may still refer to them.
+     */
+    private void ensureCapacity(int length) {
+        if (data.length - limit >= length) {
+            return;
+        }
+        int first = (int) (start >>> 3);
+        int retained = limit - first;
+        byte[] copy = new byte[Math.max(INITIAL_CAPACITY, Math.max(retained + length, 2 * retained))];
+        System.arraycopy(data, first, copy, 0, retained);
+        data = copy;
+        limit = retained;
+        start -= 8L * first;
+        discarded += first;
+    }
+
+}
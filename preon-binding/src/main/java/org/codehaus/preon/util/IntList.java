@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.ByteOrder;
+
+/**
+ * A {@link java.util.List} of {@link Integer Integers} not requiring every element to be boxed. Use {@link
+ * #getInt(int)} to access elements without boxing them at all. Instances are either a {@link #view(BitBuffer, long,
+ * int, int, ByteOrder) view} on the {@link BitBuffer} holding the encoded values, reading elements when accessed, or
+ * {@link #pack() packed} in a <code>long[]</code>, using no more bits per element than the encoded representation.
+ *
+ * @see LongList
+ */
+public abstract class IntList extends AbstractList<Integer> implements RandomAccess {
+
+    /**
+     * Returns a {@link IntList} reading its elements from the {@link BitBuffer} passed in, when accessed. The List
+     * reads from its own duplicate of the {@link BitBuffer}, created once, and reads elements by their absolute
+     * position, so accessing an element allocates nothing, and the List can be accessed by multiple threads at the
+     * same time. Bulk operations read all elements sequentially.
+     *
+     * @param buffer    The {@link BitBuffer} holding the encoded values.
+     * @param offset    The position of the first element.
+     * @param size      The number of elements.
+     * @param bits      The number of bits per element.
+     * @param byteOrder The byte order of the encoded values.
+     */
+    public static IntList view(BitBuffer buffer, long offset, int size, int bits, ByteOrder byteOrder) {
+        return new View(buffer.duplicate(), offset, size, bits, byteOrder);
+    }
+
+    /**
+     * Returns the element at the given position, without boxing it.
+     *
+     * @param index The position of the element.
+     * @return The value of the element.
+     */
+    public abstract int getInt(int index);
+
+    /**
+     * Returns the number of bits used per element.
+     */
+    public abstract int getBitsPerElement();
+
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    /**
+     * Returns an array holding all elements of this List.
+     */
+    public int[] toIntArray() {
+        int[] result = new int[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getInt(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of this List, holding all of its elements packed in memory, no longer depending on the source it
+     * has been read from.
+     */
+    public IntList pack() {
+        int size = size();
+        int bits = getBitsPerElement();
+        PackedBits packed = new PackedBits(size, bits);
+        for (int i = 0; i < size; i++) {
+            packed.set(i, getInt(i));
+        }
+        return new Packed(packed, bits);
+    }
+
+    private static class View extends IntList {
+
+        private final BitBuffer buffer;
+
+        private final long offset;
+
+        private final int size;
+
+        private final int bits;
+
+        private final ByteOrder byteOrder;
+
+        public View(BitBuffer buffer, long offset, int size, int bits, ByteOrder byteOrder) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.size = size;
+            this.bits = bits;
+            this.byteOrder = byteOrder;
+        }
+
+        public int getInt(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException();
+            }
+            // Reading by position only depends on the position passed in. (It does move the position of the buffer, but
+            // this List never relies on that position, and no one else has access to the buffer.)
+            return buffer.readAsInt(offset + (long) index * bits, bits, byteOrder);
+        }
+
+        public int[] toIntArray() {
+            BitBuffer cursor = createCursor();
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = cursor.readAsInt(bits, byteOrder);
+            }
+            return result;
+        }
+
+        public IntList pack() {
+            BitBuffer cursor = createCursor();
+            PackedBits packed = new PackedBits(size, bits);
+            for (int i = 0; i < size; i++) {
+                packed.set(i, cursor.readAsInt(bits, byteOrder));
+            }
+            return new Packed(packed, bits);
+        }
+
+        /**
+         * Returns a {@link BitBuffer} positioned at the first element, for reading all elements sequentially.
+         */
+        private BitBuffer createCursor() {
+            BitBuffer cursor = buffer.duplicate();
+            cursor.setBitPos(offset);
+            return cursor;
+        }
+
+        public int getBitsPerElement() {
+            return bits;
+        }
+
+        public int size() {
+            return size;
+        }
+
+    }
+
+    private static class Packed extends IntList {
+
+        private final PackedBits values;
+
+        private final int bits;
+
+        public Packed(PackedBits values, int bits) {
+            this.values = values;
+            this.bits = bits;
+        }
+
+        public int getInt(int index) {
+            if (index < 0 || index >= values.size()) {
+                throw new IndexOutOfBoundsException();
+            }
+            return (int) values.get(index);
+        }
+
+        public int getBitsPerElement() {
+            return bits;
+        }
+
+        public int size() {
+            return values.size();
+        }
+
+        public IntList pack() {
+            return this;
+        }
+
+    }
+
+}
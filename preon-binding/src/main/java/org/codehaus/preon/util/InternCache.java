@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache, safe for concurrent use, keeping track of the number of hits and misses.
+ *
+ * @param <K> The type of key.
+ * @param <V> The type of value.
+ */
+public abstract class InternCache<K, V> {
+
+    private final int capacity;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    protected InternCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive, but is " + capacity + ".");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns a cache evicting the value used least recently.
+     *
+     * @param capacity The maximum number of values cached.
+     */
+    public static <K, V> InternCache<K, V> lru(int capacity) {
+        return new LruInternCache<K, V>(capacity);
+    }
+
+    /**
+     * Returns a cache evicting values using the clock (second chance) algorithm.
+     *
+     * @param capacity The maximum number of values cached.
+     */
+    public static <K, V> InternCache<K, V> clock(int capacity) {
+        return new ClockInternCache<K, V>(capacity);
+    }
+
+    /**
+     * Returns the value cached for the given key, or <code>null</code> if there is none, counting a hit or a miss.
+     */
+    public V get(K key) {
+        V value = lookup(key);
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Caches the value for the given key, evicting another value if the cache is full. Returns the value cached for
+     * the key, which is the value passed in, unless some other value got cached for the same key in the meantime.
+     */
+    public abstract V put(K key, V value);
+
+    /**
+     * Returns the number of values currently cached.
+     */
+    public abstract int size();
+
+    /**
+     * Returns the maximum number of values cached.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of times {@link #get(Object)} found a value.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of times {@link #get(Object)} did not find a value.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    protected abstract V lookup(K key);
+
+    private static class LruInternCache<K, V> extends InternCache<K, V> {
+
+        private final Map<K, V> values;
+
+        public LruInternCache(final int capacity) {
+            super(capacity);
+            values = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        protected synchronized V lookup(K key) {
+            return values.get(key);
+        }
+
+        public synchronized V put(K key, V value) {
+            V current = values.get(key);
+            if (current == null) {
+                values.put(key, value);
+                return value;
+            } else {
+                return current;
+            }
+        }
+
+        public synchronized int size() {
+            return values.size();
+        }
+
+    }
+
+    /**
+     * Keeps the entries in a ring. Hits only set the referenced flag of the entry, without any locking. Evictions
+     * sweep the ring, clearing referenced flags, until they hit an entry that has not been referenced since the last
+     * sweep.
+     */
+    private static class ClockInternCache<K, V> extends InternCache<K, V> {
+
+        private final ConcurrentHashMap<K, Entry<K, V>> index;
+
+        private final Entry<K, V>[] ring;
+
+        private int used;
+
+        private int hand;
+
+        @SuppressWarnings("unchecked")
+        public ClockInternCache(int capacity) {
+            super(capacity);
+            index = new ConcurrentHashMap<K, Entry<K, V>>(capacity);
+            ring = new Entry[capacity];
+        }
+
+        protected V lookup(K key) {
+            Entry<K, V> entry = index.get(key);
+            if (entry == null) {
+                return null;
+            } else {
+                entry.referenced = true;
+                return entry.value;
+            }
+        }
+
+        public synchronized V put(K key, V value) {
+            Entry<K, V> current = index.get(key);
+            if (current != null) {
+                return current.value;
+            }
+            Entry<K, V> entry = new Entry<K, V>(key, value);
+            if (used < ring.length) {
+                ring[used++] = entry;
+            } else {
+                while (ring[hand].referenced) {
+                    ring[hand].referenced = false;
+                    hand = (hand + 1) % ring.length;
+                }
+                index.remove(ring[hand].key);
+                ring[hand] = entry;
+                hand = (hand + 1) % ring.length;
+            }
+            index.put(key, entry);
+            return value;
+        }
+
+        public int size() {
+            return index.size();
+        }
+
+        private static class Entry<K, V> {
+
+            private final K key;
+
+            private final V value;
+
+            private volatile boolean referenced;
+
+            public Entry(K key, V value) {
+                this.key = key;
+                this.value = value;
+            }
+
+        }
+
+    }
+
+}
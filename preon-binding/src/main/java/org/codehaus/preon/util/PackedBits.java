@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+/**
+ * A fixed number of values of a fixed number of bits, packed into a <code>long[]</code>. Used as the backing store of
+ * packed {@link IntList IntLists} and {@link LongList LongLists}.
+ */
+class PackedBits {
+
+    /** The number of bits per value. */
+    private final int bits;
+
+    /** The number of values. */
+    private final int size;
+
+    /** The values, packed. */
+    private final long[] words;
+
+    public PackedBits(int size, int bits) {
+        this.size = size;
+        this.bits = bits;
+        this.words = new long[(int) (((long) size * bits + 63) >>> 6)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value at the given index.
+     */
+    public long get(int index) {
+        long bitIndex = (long) index * bits;
+        int word = (int) (bitIndex >>> 6);
+        int shift = (int) (bitIndex & 63);
+        long result = words[word] >>> shift;
+        if (shift + bits > 64) {
+            result |= words[word + 1] << (64 - shift);
+        }
+        return bits == 64 ? result : result & ((1L << bits) - 1);
+    }
+
+    /**
+     * Sets the value at the given index. Only the least significant bits will be stored.
+     */
+    public void set(int index, long value) {
+        long bitIndex = (long) index * bits;
+        int word = (int) (bitIndex >>> 6);
+        int shift = (int) (bitIndex & 63);
+        long mask = bits == 64 ? -1L : (1L << bits) - 1;
+        value &= mask;
+        words[word] = (words[word] & ~(mask << shift)) | (value << shift);
+        if (shift + bits > 64) {
+            int remaining = 64 - shift;
+            words[word + 1] = (words[word + 1] & ~(mask >>> remaining)) | (value >>> remaining);
+        }
+    }
+
+}
@@ -0,0 +1,397 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.ToLongFunction;
+
+import org.codehaus.preon.buffer.BitBuffer;
+
+/**
+ * A persistent index of the positions of the records in a file, optionally along with a couple of numeric keys of
+ * every record, stored in a side-car file. It is built by a {@link Writer} while decoding the records one after the
+ * other (see {@link org.codehaus.preon.Codecs#indexedStream(org.codehaus.preon.Codec, BitBuffer, Writer)}), and
+ * opened later on to move a {@link BitBuffer} to the start of any record in constant time, or to find the records with
+ * keys in a given range.
+ * <p/>
+ * The side-car file holds a header, followed by an entry of a fixed size for every record: the position of the record
+ * in bits, followed by its keys. It is memory-mapped while opened. The header records the size and modification time
+ * of the file indexed, so an index that no longer matches the file is detected, and not opened.
+ */
+public class RecordIndex {
+
+    /** The magic number identifying an index file: "PRIX". */
+    private static final int MAGIC = 0x50524958;
+
+    private static final int VERSION = 1;
+
+    /** The number of bytes in the header: magic, version, file size, modification time, count, keys and flags. */
+    private static final int HEADER_SIZE = 40;
+
+    /** The maximal number of bytes mapped at once. */
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    /** The memory-mapped entries, split in segments holding a whole number of entries each. */
+    private final ByteBuffer[] segments;
+
+    /** The number of entries in every segment. */
+    private final int entriesPerSegment;
+
+    /** The number of bytes in every entry. */
+    private final int entrySize;
+
+    /** The number of records indexed. */
+    private final long count;
+
+    /** The number of keys of every record. */
+    private final int keys;
+
+    /** For every key, a bit telling whether its values never decrease from one record to the next. */
+    private final int sorted;
+
+    private RecordIndex(ByteBuffer[] segments, int entriesPerSegment, long count, int keys, int sorted) {
+        this.segments = segments;
+        this.entriesPerSegment = entriesPerSegment;
+        this.entrySize = 8 * (1 + keys);
+        this.count = count;
+        this.keys = keys;
+        this.sorted = sorted;
+    }
+
+    /**
+     * Opens the index of the file passed in.
+     *
+     * @param index  The side-car file holding the index.
+     * @param source The file indexed.
+     * @return The index, or <code>null</code> if the index does not exist, has not been completed, or no longer
+     *         matches the size and modification time of the file indexed.
+     * @throws IOException If the index cannot be read.
+     */
+    public static RecordIndex open(File index, File source) throws IOException {
+        if (!index.isFile()) {
+            return null;
+        }
+        RandomAccessFile file = new RandomAccessFile(index, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getLong(8) != source.length() || header.getLong(16) != source.lastModified()) {
+                return null;
+            }
+            long count = header.getLong(24);
+            int keys = header.getInt(32);
+            int sorted = header.getInt(36);
+            int entrySize = 8 * (1 + keys);
+            if (count < 0 || channel.size() != HEADER_SIZE + count * entrySize) {
+                return null;
+            }
+            int entriesPerSegment = SEGMENT_SIZE / entrySize;
+            long segmentSize = (long) entriesPerSegment * entrySize;
+            ByteBuffer[] segments = new ByteBuffer[(int) ((count + entriesPerSegment - 1) / entriesPerSegment)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = HEADER_SIZE + i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(segmentSize, channel.size() - start));
+            }
+            return new RecordIndex(segments, entriesPerSegment, count, keys, sorted);
+        } finally {
+            // The mappings remain valid after closing the file.
+            file.close();
+        }
+    }
+
+    /**
+     * Creates a {@link Writer} for building the index of the file passed in. The index is only opened by {@link
+     * #open(File, File)} after the {@link Writer} has been {@link Writer#commit() committed}.
+     *
+     * @param index  The side-car file that will hold the index. Replaced if it exists, once the {@link Writer} is
+     *               committed.
+     * @param source The file to be indexed. Its size and modification time are recorded when the {@link Writer} is
+     *               committed.
+     * @param keys   The functions extracting the keys to be stored along with the position of every record.
+     * @return A {@link Writer}, expecting the records in the order in which they occur in the file.
+     * @throws IOException If the index cannot be created.
+     */
+    @SafeVarargs
+    public static <E> Writer<E> writer(File index, File source, ToLongFunction<? super E>... keys)
+            throws IOException {
+        return new Writer<E>(index, source, keys);
+    }
+
+    /**
+     * Returns the number of records indexed.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Returns the number of keys stored for every record.
+     */
+    public int getKeyCount() {
+        return keys;
+    }
+
+    /**
+     * Returns the position of a record, in bits.
+     *
+     * @param record The number of the record, starting at 0.
+     */
+    public long getBitPos(long record) {
+        return read(record, 0);
+    }
+
+    /**
+     * Returns a key of a record.
+     *
+     * @param record The number of the record, starting at 0.
+     * @param key    The index of the key, in the order of the functions passed to {@link #writer(File, File,
+     *               ToLongFunction[])}.
+     */
+    public long getKey(long record, int key) {
+        if (key < 0 || key >= keys) {
+            throw new IndexOutOfBoundsException("No key " + key + ".");
+        }
+        return read(record, 1 + key);
+    }
+
+    /**
+     * Moves the {@link BitBuffer} to the start of a record, after which the record can be decoded.
+     *
+     * @param buffer The {@link BitBuffer} holding the file indexed.
+     * @param record The number of the record, starting at 0.
+     */
+    public void seek(BitBuffer buffer, long record) {
+        buffer.setBitPos(getBitPos(record));
+    }
+
+    /**
+     * Returns whether the values of a key never decrease from one record to the next, in which case records can be
+     * looked up by key using a binary search.
+     */
+    public boolean isSorted(int key) {
+        return (sorted & (1 << key)) != 0;
+    }
+
+    /**
+     * Returns the number of the first record with a key not less than the value passed in, or {@link #size()} if there
+     * is none. The records with keys in the range <code>[from, to)</code> are therefore the records numbered from
+     * <code>lowerBound(key, from)</code> up to <code>lowerBound(key, to)</code>. Takes logarithmic time if the key
+     * {@link #isSorted(int) is sorted}.
+     *
+     * @param key   The index of the key.
+     * @param value The value to look for.
+     * @throws IllegalStateException If the values of the key are not sorted.
+     */
+    public long lowerBound(int key, long value) {
+        if (!isSorted(key)) {
+            throw new IllegalStateException("The values of key " + key + " are not sorted.");
+        }
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (getKey(middle, key) < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long read(long record, int field) {
+        if (record < 0 || record >= count) {
+            throw new IndexOutOfBoundsException("No record " + record + ".");
+        }
+        ByteBuffer segment = segments[(int) (record / entriesPerSegment)];
+        return segment.getLong((int) (record % entriesPerSegment) * entrySize + 8 * field);
+    }
+
+    /**
+     * Builds an index, receiving the position of every record in the order in which the records occur in the file. The
+     * index is written to a temporary file first, and only moved into place by {@link #commit()}, once all records have
+     * been added, so an incomplete index is never mistaken for a complete one. Closing the {@link Writer} without
+     * committing it, when decoding the records failed half-way for instance, discards the temporary file:
+     * <pre>
+     * RecordIndex.Writer&lt;Record&gt; writer = RecordIndex.writer(index, source);
+     * try {
+     *     Codecs.indexedStream(codec, buffer, writer).forEach(...);
+     *     writer.commit();
+     * } finally {
+     *     writer.close();
+     * }
+     * </pre>
+     *
+     * @param <E> The type of records indexed.
+     */
+    public static class Writer<E> implements Closeable {
+
+        private final File index;
+
+        private final File temporary;
+
+        private final File source;
+
+        private final ToLongFunction<? super E>[] keys;
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer;
+
+        private final long[] previous;
+
+        private long count;
+
+        private int sorted;
+
+        private boolean closed;
+
+        private Writer(File index, File source, ToLongFunction<? super E>[] keys) throws IOException {
+            if (keys.length > 32) {
+                throw new IllegalArgumentException("At most 32 keys are supported.");
+            }
+            this.index = index;
+            this.temporary = new File(index.getPath() + ".tmp");
+            this.source = source;
+            this.keys = keys;
+            this.channel = new RandomAccessFile(temporary, "rw").getChannel();
+            this.channel.truncate(0);
+            this.channel.position(HEADER_SIZE);
+            this.buffer = ByteBuffer.allocate(8 * (1 + keys.length) * 4096);
+            this.previous = new long[keys.length];
+            this.sorted = keys.length == 32 ? -1 : (1 << keys.length) - 1;
+        }
+
+        /**
+         * Adds the record passed in to the index.
+         *
+         * @param bitPos The position of the record, in bits.
+         * @param record The record, from which the keys will be extracted.
+         * @throws IOException If the index cannot be written.
+         */
+        public void add(long bitPos, E record) throws IOException {
+            if (closed) {
+                throw new IllegalStateException("The index has been closed.");
+            }
+            if (buffer.remaining() < 8 * (1 + keys.length)) {
+                flush();
+            }
+            buffer.putLong(bitPos);
+            for (int i = 0; i < keys.length; i++) {
+                long key = keys[i].applyAsLong(record);
+                if (count > 0 && key < previous[i]) {
+                    sorted &= ~(1 << i);
+                }
+                previous[i] = key;
+                buffer.putLong(key);
+            }
+            count++;
+        }
+
+        /**
+         * Returns the number of records added so far.
+         */
+        public long size() {
+            return count;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Completes the index, recording the size and modification time of the file indexed, and moves it into place,
+         * replacing the index that existed before, if any. Closes the {@link Writer}.
+         *
+         * @throws IOException If the index cannot be completed, in which case the temporary file is discarded.
+         */
+        public void commit() throws IOException {
+            if (closed) {
+                throw new IllegalStateException("The index has been closed.");
+            }
+            closed = true;
+            boolean completed = false;
+            try {
+                flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(source.length()).putLong(source.lastModified())
+                        .putLong(count).putInt(keys.length).putInt(sorted);
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+                completed = true;
+            } finally {
+                channel.close();
+                if (!completed) {
+                    temporary.delete();
+                }
+            }
+            if (index.exists() && !index.delete() || !temporary.renameTo(index)) {
+                temporary.delete();
+                throw new IOException("Failed to move " + temporary + " to " + index + ".");
+            }
+        }
+
+        /**
+         * Discards the index, unless it has been {@link #commit() committed}, leaving the index that existed before, if
+         * any, untouched. Does nothing if the {@link Writer} has been closed already.
+         */
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } finally {
+                temporary.delete();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,340 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.codehaus.preon.Builder;
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.Resolver;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.BitBufferUnderflowException;
+import org.codehaus.preon.el.Expression;
+
+/**
+ * A {@link Spliterator} decoding a sequence of records from a {@link BitBuffer}, one record at a time. Records are
+ * decoded until the end of the {@link BitBuffer} has been reached, or until the remainder of the {@link BitBuffer} is
+ * too small to hold another record. (A truncated last record ends the sequence, just like it ends a {@link
+ * org.codehaus.preon.annotation.BoundList} without a size.) Records are not retained once passed on, so a sequence of
+ * any length can be processed in constant memory.
+ * <p/>
+ * The records are decoded from a {@link BitBuffer#duplicate() duplicate} of the {@link BitBuffer} passed in, so the
+ * position of that {@link BitBuffer} is not affected.
+ * <p/>
+ * The position of a record can normally not be determined without decoding all of the records preceding it, so the
+ * sequence cannot be split. If a {@link Synchronizer} is passed in, then the sequence will be split near the middle of
+ * the range of positions it covers: at the first candidate found by the {@link Synchronizer} from which a couple of
+ * consecutive records can be decoded. The ranges are decoded from their own duplicates of the {@link BitBuffer}, so
+ * they can be traversed in parallel, provided the {@link Builder} and {@link Resolver} are safe for use by multiple
+ * threads. If the records decoded from the range preceding a split turn out not to end exactly at the position at
+ * which it got split, then the candidate accepted was not the start of a record after all, and traversing that range
+ * fails, rather than silently returning records decoded from the wrong positions.
+ *
+ * @param <E> The type of records decoded.
+ */
+public class RecordSpliterator<E> implements Spliterator<E> {
+
+    /** The {@link Codec} decoding individual records. */
+    private final Codec<E> codec;
+
+    /** The {@link BitBuffer} positioned at the start of the next record. */
+    private final BitBuffer cursor;
+
+    /** The position following the last bit that may be occupied by records. */
+    private final long end;
+
+    private final Builder builder;
+
+    private final Resolver resolver;
+
+    /**
+     * The minimal number of bits occupied by a record, used to prevent attempts to decode records that will never fit
+     * in the remainder of the {@link BitBuffer}.
+     */
+    private final int minimalSize;
+
+    /** Whether a truncated record has been encountered. */
+    private boolean truncated;
+
+    /** The strategy for finding candidates for the start of a record, or <code>null</code> if not splitting. */
+    private final Synchronizer synchronizer;
+
+    /** The number of records to decode from a candidate for the start of a record, in order to accept it. */
+    private final int validation;
+
+    /** The minimal number of bits in a range to be split. */
+    private final long granularity;
+
+    /** The index receiving the position of every record decoded, or <code>null</code>. */
+    private final RecordIndex.Writer<? super E> index;
+
+    /** Whether {@link #end} is the position at which the range got split, and therefore needs to be hit exactly. */
+    private final boolean split;
+
+    /** The default number of records to decode from a candidate for the start of a record. */
+    public static final int DEFAULT_VALIDATION = 4;
+
+    /** The default minimal number of bits in a range to be split: one megabyte. */
+    public static final long DEFAULT_GRANULARITY = 8L << 20;
+
+    /**
+     * Constructs a new instance, decoding records from the current position of the {@link BitBuffer} until its end.
+     *
+     * @param codec    The {@link Codec} decoding individual records.
+     * @param buffer   The {@link BitBuffer} positioned at the start of the first record.
+     * @param builder  The object capable of constructing new instances of a class, including non-static inner classes.
+     * @param resolver The context for evaluating expressions.
+     */
+    public RecordSpliterator(Codec<E> codec, BitBuffer buffer, Builder builder, Resolver resolver) {
+        this(codec, buffer, buffer.getBitPos(), buffer.getBitBufBitSize(), builder, resolver);
+    }
+
+    /**
+     * Constructs a new instance, decoding records from the given range of positions of the {@link BitBuffer}.
+     *
+     * @param codec    The {@link Codec} decoding individual records.
+     * @param buffer   The {@link BitBuffer} holding the records.
+     * @param start    The position of the first record.
+     * @param end      The position following the last bit that may be occupied by records.
+     * @param builder  The object capable of constructing new instances of a class, including non-static inner classes.
+     * @param resolver The context for evaluating expressions.
+     */
+    public RecordSpliterator(Codec<E> codec, BitBuffer buffer, long start, long end, Builder builder,
+                             Resolver resolver) {
+        this(codec, buffer, start, end, builder, resolver, null, DEFAULT_VALIDATION, DEFAULT_GRANULARITY);
+    }
+
+    /**
+     * Constructs a new instance, decoding records from the current position of the {@link BitBuffer} until its end,
+     * splitting the sequence at record boundaries found by the {@link Synchronizer} passed in.
+     *
+     * @param codec        The {@link Codec} decoding individual records.
+     * @param buffer       The {@link BitBuffer} positioned at the start of the first record.
+     * @param builder      The object capable of constructing new instances of a class, including non-static inner
+     *                     classes.
+     * @param resolver     The context for evaluating expressions.
+     * @param synchronizer The strategy for finding candidates for the start of a record.
+     */
+    public RecordSpliterator(Codec<E> codec, BitBuffer buffer, Builder builder, Resolver resolver,
+                             Synchronizer synchronizer) {
+        this(codec, buffer, buffer.getBitPos(), buffer.getBitBufBitSize(), builder, resolver, synchronizer,
+                DEFAULT_VALIDATION, DEFAULT_GRANULARITY);
+    }
+
+    /**
+     * Constructs a new instance, decoding records from the current position of the {@link BitBuffer} until its end,
+     * adding every record decoded to the {@link RecordIndex} being built. (The sequence is never split, since records
+     * need to be added to the index in order.)
+     *
+     * @param codec    The {@link Codec} decoding individual records.
+     * @param buffer   The {@link BitBuffer} positioned at the start of the first record.
+     * @param builder  The object capable of constructing new instances of a class, including non-static inner classes.
+     * @param resolver The context for evaluating expressions.
+     * @param index    The {@link RecordIndex.Writer} receiving the position of every record decoded.
+     */
+    public RecordSpliterator(Codec<E> codec, BitBuffer buffer, Builder builder, Resolver resolver,
+                             RecordIndex.Writer<? super E> index) {
+        this(codec, buffer, buffer.getBitPos(), buffer.getBitBufBitSize(), builder, resolver, null,
+                DEFAULT_VALIDATION, DEFAULT_GRANULARITY, index);
+    }
+
+    /**
+     * Constructs a new instance, decoding records from the given range of positions of the {@link BitBuffer},
+     * splitting the sequence at record boundaries found by the {@link Synchronizer} passed in.
+     *
+     * @param codec        The {@link Codec} decoding individual records.
+     * @param buffer       The {@link BitBuffer} holding the records.
+     * @param start        The position of the first record.
+     * @param end          The position following the last bit that may be occupied by records.
+     * @param builder      The object capable of constructing new instances of a class, including non-static inner
+     *                     classes.
+     * @param resolver     The context for evaluating expressions.
+     * @param synchronizer The strategy for finding candidates for the start of a record, or <code>null</code> if the
+     *                     sequence should not be split.
+     * @param validation   The number of records to decode from a candidate for the start of a record, in order to
+     *                     accept it. (Fewer, if the end is reached first.)
+     * @param granularity  The minimal number of bits in a range to be split.
+     */
+    public RecordSpliterator(Codec<E> codec, BitBuffer buffer, long start, long end, Builder builder,
+                             Resolver resolver, Synchronizer synchronizer, int validation, long granularity) {
+        this(codec, buffer, start, end, builder, resolver, synchronizer, validation, granularity, null, false);
+    }
+
+    private RecordSpliterator(Codec<E> codec, BitBuffer buffer, long start, long end, Builder builder,
+                              Resolver resolver, Synchronizer synchronizer, int validation, long granularity,
+                              RecordIndex.Writer<? super E> index) {
+        this(codec, buffer, start, end, builder, resolver, synchronizer, validation, granularity, index, false);
+    }
+
+    private RecordSpliterator(Codec<E> codec, BitBuffer buffer, long start, long end, Builder builder,
+                              Resolver resolver, Synchronizer synchronizer, int validation, long granularity,
+                              RecordIndex.Writer<? super E> index, boolean split) {
+        this.index = index;
+        this.split = split;
+        this.synchronizer = synchronizer;
+        this.validation = validation;
+        this.granularity = granularity;
+        this.codec = codec;
+        this.cursor = buffer.duplicate();
+        this.cursor.setBitPos(start);
+        this.end = end;
+        this.builder = builder;
+        this.resolver = resolver;
+        Expression<Integer, Resolver> size = codec.getSize();
+        if (size != null && !size.isParameterized()) {
+            minimalSize = Math.max(1, size.eval(null));
+        } else {
+            minimalSize = 1;
+        }
+    }
+
+    public boolean tryAdvance(Consumer<? super E> action) {
+        long mark = cursor.getBitPos();
+        if (truncated || mark == end) {
+            return false;
+        } else if (end - mark < minimalSize) {
+            checkAligned(mark);
+            return false;
+        }
+        E record;
+        try {
+            record = codec.decode(cursor, resolver, builder);
+        } catch (BitBufferUnderflowException bbue) {
+            // The last record got truncated.
+            checkAligned(cursor.getBitPos());
+            cursor.setBitPos(mark);
+            truncated = true;
+            return false;
+        } catch (DecodingException de) {
+            // There is really no way to be prepared for this.
+            throw new RuntimeException(de);
+        }
+        if (cursor.getBitPos() > end) {
+            checkAligned(cursor.getBitPos());
+        }
+        if (index != null) {
+            try {
+                index.add(mark, record);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+        action.accept(record);
+        return true;
+    }
+
+    /**
+     * Splits off the records preceding the first validated candidate for the start of a record found from the middle
+     * of the remaining range. Returns <code>null</code> if there is no {@link Synchronizer}, if the remaining range is
+     * too small, or if no candidate is validated within {@link #granularity} bits from the middle.
+     */
+    public Spliterator<E> trySplit() {
+        long pos = cursor.getBitPos();
+        if (synchronizer == null || truncated || end - pos < 2 * granularity) {
+            return null;
+        }
+        BitBuffer probe = cursor.duplicate();
+        long middle = pos + (end - pos) / 2;
+        long candidate = synchronizer.find(probe, middle, end);
+        while (candidate >= 0 && candidate - middle < granularity) {
+            if (candidate > pos && isBoundary(probe, candidate)) {
+                Spliterator<E> prefix = new RecordSpliterator<E>(codec, cursor, pos, candidate, builder, resolver,
+                        synchronizer, validation, granularity, null, true);
+                cursor.setBitPos(candidate);
+                return prefix;
+            }
+            candidate = synchronizer.find(probe, candidate + 1, end);
+        }
+        return null;
+    }
+
+    /**
+     * Fails if the records of a range preceding a split do not end exactly at the position at which it got split.
+     *
+     * @param pos The position at which the records ended.
+     */
+    private void checkAligned(long pos) {
+        if (split) {
+            throw new RuntimeException(new DecodingException("Records end at " + pos + " instead of " + end
+                    + ", at which the sequence got split: the split was not at the start of a record."));
+        }
+    }
+
+    /**
+     * Returns whether the records decoded from the candidate passed in line up: whether {@link #validation} records
+     * (or the records up to the end) can be decoded from it, without crossing the end.
+     */
+    private boolean isBoundary(BitBuffer probe, long candidate) {
+        probe.setBitPos(candidate);
+        try {
+            for (int i = 0; i < validation && probe.getBitPos() < end; i++) {
+                long mark = probe.getBitPos();
+                codec.decode(probe, resolver, builder);
+                if (probe.getBitPos() <= mark) {
+                    return false;
+                }
+            }
+        } catch (DecodingException de) {
+            return false;
+        } catch (RuntimeException re) {
+            // Decoding garbage may fail in many other ways, such as underflows and invalid sizes.
+            return false;
+        }
+        return probe.getBitPos() <= end;
+    }
+
+    public long estimateSize() {
+        if (synchronizer == null) {
+            return Long.MAX_VALUE;
+        } else {
+            // Not the number of records, but proportional to it, which is all it takes for balancing the ranges.
+            return Math.max(0, (end - cursor.getBitPos()) / minimalSize);
+        }
+    }
+
+    public int characteristics() {
+        return ORDERED | IMMUTABLE;
+    }
+
+    /**
+     * Returns the position following the last record decoded, which is where decoding would resume.
+     */
+    public long getBitPos() {
+        return cursor.getBitPos();
+    }
+
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import org.codehaus.preon.buffer.BitBuffer;
+
+/**
+ * A strategy for finding candidates for the start of a record, somewhere in the middle of a sequence of records. A
+ * {@link RecordSpliterator} uses it to split a sequence of records into ranges that can be decoded independently, and
+ * validates every candidate by trial-decoding a couple of records starting from it; so candidates are allowed to be
+ * false positives, as long as they are not too frequent. Implementations need to be safe for use by multiple threads.
+ * Use {@link Synchronizers} to obtain an instance.
+ */
+public interface Synchronizer {
+
+    /**
+     * Returns the first candidate for the start of a record at or after the position passed in.
+     *
+     * @param buffer The {@link BitBuffer} holding the records. Its position may be changed.
+     * @param from   The position from which to start looking.
+     * @param end    The position following the last bit that may be occupied by records.
+     * @return The position of the candidate, or <code>-1</code> if there is no candidate before the end.
+     */
+    long find(BitBuffer buffer, long from, long end);
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.ByteOrder;
+
+/**
+ * Factory methods for the different types of {@link Synchronizer Synchronizers}.
+ */
+public class Synchronizers {
+
+    private Synchronizers() {
+    }
+
+    /**
+     * Returns a {@link Synchronizer} considering every position that is a multiple of the alignment passed in. Use this
+     * for records that are framed by a length field only, relying on trial-decoding to reject the positions that do
+     * not start a record. (Which requires the records to hold something that fails to decode from any other position,
+     * such as a field with a value to match, or a length that needs to be consistent with other fields.)
+     *
+     * @param alignment The number of bits every record is aligned to; 8 for byte-aligned records.
+     */
+    public static Synchronizer aligned(final int alignment) {
+        if (alignment <= 0) {
+            throw new IllegalArgumentException("Alignment should be positive.");
+        }
+        return new Synchronizer() {
+
+            public long find(BitBuffer buffer, long from, long end) {
+                long candidate = align(from, alignment);
+                return candidate < end ? candidate : -1;
+            }
+
+        };
+    }
+
+    /**
+     * Returns a {@link Synchronizer} looking for a sync pattern at the start of a byte-aligned record, such as the
+     * eleven bits set at the start of an MPEG audio frame header: <code>pattern(0x7ff, 11)</code>.
+     *
+     * @param pattern The value of the bits starting every record, read in big endian order.
+     * @param bits    The number of bits in the pattern, at most 64.
+     */
+    public static Synchronizer pattern(long pattern, int bits) {
+        return pattern(pattern, bits, 8);
+    }
+
+    /**
+     * Returns a {@link Synchronizer} looking for a sync pattern at the start of a record that is aligned to the
+     * given number of bits.
+     *
+     * @param pattern   The value of the bits starting every record, read in big endian order.
+     * @param bits      The number of bits in the pattern, at most 64.
+     * @param alignment The number of bits every record is aligned to.
+     */
+    public static Synchronizer pattern(final long pattern, final int bits, final int alignment) {
+        if (bits <= 0 || bits > 64) {
+            throw new IllegalArgumentException("Patterns should have 1 to 64 bits.");
+        }
+        if (alignment <= 0) {
+            throw new IllegalArgumentException("Alignment should be positive.");
+        }
+        final long mask = bits == 64 ? -1L : (1L << bits) - 1;
+        return new Synchronizer() {
+
+            public long find(BitBuffer buffer, long from, long end) {
+                long limit = Math.min(end, buffer.getBitBufBitSize()) - bits;
+                for (long candidate = align(from, alignment); candidate <= limit; candidate += alignment) {
+                    if ((buffer.readBits(candidate, bits, ByteOrder.BigEndian) & mask) == (pattern & mask)) {
+                        return candidate;
+                    }
+                }
+                return -1;
+            }
+
+        };
+    }
+
+    private static long align(long position, int alignment) {
+        long remainder = position % alignment;
+        return remainder == 0 ? position : position + alignment - remainder;
+    }
+
+}
@@ -36,17 +36,30 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import org.codehaus.preon.Builder;
 import org.codehaus.preon.Codec;
+import org.codehaus.preon.DecodingException;
 import org.codehaus.preon.Resolver;
 import org.codehaus.preon.buffer.BitBuffer;
 
 /**
  * A {@link List} implementation that will lazy load its elements. Big difference with {@link EvenlyDistributedLazyList}
- * is that this implementation does not assume all elements to have the same size.
+ * is that this implementation does not assume all elements to have the same size. Instead, it maintains an index of
+ * the positions of the elements, which gets extended as elements are decoded, and by {@link Codec#skip(BitBuffer,
+ * Resolver, Builder) skipping} elements whenever an element beyond the last one indexed is requested. Iterating in
+ * order therefore decodes every element once, without skipping any of them. Once indexed, elements can be accessed in
+ * constant time.
+ * <p/>
+ * <p> Just like {@link EvenlyDistributedLazyList}, every element is decoded from a duplicate of the {@link BitBuffer},
+ * and the index is shared safely among threads, so the List can be accessed by multiple threads at the same time.
+ * </p>
  *
  * @author Wilfred Springer
+ * @param <E> The type of elements in the {@link List}.
  */
 public class UnevenlyDistributedLazyList<E> implements List<E> {
 
@@ -56,131 +69,369 @@ public class UnevenlyDistributedLazyList<E> implements List<E> {
     /** The {@link BitBuffer} to read from. */
     private BitBuffer buffer;
 
+    /** The context for evaluating expressions. */
+    private Resolver resolver;
+
+    /** The object capable of constructing new instances of a class, including non-static inner classes. */
+    private Builder builder;
+
+    /** The positions of the elements, as far as known. */
+    private OffsetIndex index;
+
+    /** The elements decoded so far, keyed by index. */
+    private ElementCache<E> cache;
+
+    /** The index of the first element of this list. (Non-zero for sublists only.) */
+    private int first;
+
+    /** The number of elements in this list. */
+    private int size;
+
     /**
+     * Constructs a new instance.
      *
+     * @param codec            The {@link Codec} responsible for decoding elements in the list.
+     * @param offset           The start position of the encoded list, relative to the start of the {@link
+     *                         BitBuffer}.
+     * @param buffer           The {@link BitBuffer} from which data will be decoded.
+     * @param numberOfElements The number of elements in the list.
+     * @param builder          The object capable of constructing new instances of a class, including non-static inner
+     *                         classes.
+     * @param resolver         The context for evaluating expressions.
+     * @param cache            The cache of elements decoded, keyed by index.
      */
-    private Resolver resolver;
+    public UnevenlyDistributedLazyList(Codec<E> codec, long offset, BitBuffer buffer, int numberOfElements,
+                                       Builder builder, Resolver resolver, ElementCache<E> cache) {
+        this(codec, buffer, builder, resolver, new OffsetIndex(offset, numberOfElements), cache, 0,
+                numberOfElements);
+    }
 
-    private Builder builder;
+    private UnevenlyDistributedLazyList(Codec<E> codec, BitBuffer buffer, Builder builder, Resolver resolver,
+                                        OffsetIndex index, ElementCache<E> cache, int first, int size) {
+        this.codec = codec;
+        this.buffer = buffer;
+        this.builder = builder;
+        this.resolver = resolver;
+        this.index = index;
+        this.cache = cache;
+        this.first = first;
+        this.size = size;
+    }
+
+    /**
+     * Returns the position immediately following the last element of the list, indexing all elements not indexed
+     * before.
+     *
+     * @return The position following the last element.
+     * @throws DecodingException If the end of one of the elements cannot be determined.
+     */
+    public long getEnd() throws DecodingException {
+        return getOffset(first + size);
+    }
+
+    private long getOffset(int position) throws DecodingException {
+        return index.getOffset(position, codec, buffer, resolver, builder);
+    }
 
     public boolean add(E element) {
-        // TODO Auto-generated method stub
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     public void add(int position, E element) {
-        // TODO Auto-generated method stub
-
+        throw new UnsupportedOperationException();
     }
 
     public boolean addAll(Collection<? extends E> elements) {
-        // TODO Auto-generated method stub
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     public boolean addAll(int position, Collection<? extends E> elements) {
-        // TODO Auto-generated method stub
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     public void clear() {
-        // TODO Auto-generated method stub
-
+        throw new UnsupportedOperationException();
     }
 
     public boolean contains(Object object) {
-        // TODO Auto-generated method stub
-        return false;
+        return indexOf(object) >= 0;
     }
 
     public boolean containsAll(Collection<?> elements) {
-        // TODO Auto-generated method stub
-        return false;
+        for (Object element : elements) {
+            if (!contains(element)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public E get(int position) {
-        // TODO Auto-generated method stub
-        return null;
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        int key = first + position;
+        E result = cache.get(key);
+        if (result == null) {
+            try {
+                BitBuffer cursor = buffer.duplicate();
+                cursor.setBitPos(getOffset(key));
+                E decoded = codec.decode(cursor, resolver, builder);
+                // Decoding found the end of the element, so the next element will not need to skip it.
+                index.record(key + 1, cursor.getBitPos());
+                result = cache.putIfAbsent(key, decoded);
+            } catch (DecodingException de) {
+                throw new RuntimeException(de);
+            }
+        }
+        return result;
     }
 
     public int indexOf(Object object) {
-        // TODO Auto-generated method stub
-        return 0;
+        for (int i = 0; i < size; i++) {
+            if (object == null ? get(i) == null : object.equals(get(i))) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public boolean isEmpty() {
-        // TODO Auto-generated method stub
-        return false;
+        return size == 0;
     }
 
     public Iterator<E> iterator() {
-        // TODO Auto-generated method stub
-        return null;
+        return new LazyListIterator(-1);
     }
 
     public int lastIndexOf(Object object) {
-        // TODO Auto-generated method stub
-        return 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (object == null ? get(i) == null : object.equals(get(i))) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public ListIterator<E> listIterator() {
-        // TODO Auto-generated method stub
-        return null;
+        return new LazyListIterator(-1);
     }
 
     public ListIterator<E> listIterator(int position) {
-        // TODO Auto-generated method stub
-        return null;
+        return new LazyListIterator(position - 1);
     }
 
     public boolean remove(Object object) {
-        // TODO Auto-generated method stub
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     public E remove(int position) {
-        // TODO Auto-generated method stub
-        return null;
+        throw new UnsupportedOperationException();
     }
 
     public boolean removeAll(Collection<?> elements) {
-        // TODO Auto-generated method stub
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     public boolean retainAll(Collection<?> elements) {
-        // TODO Auto-generated method stub
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     public E set(int position, E element) {
-        // TODO Auto-generated method stub
-        return null;
+        throw new UnsupportedOperationException();
     }
 
     public int size() {
-        // TODO Auto-generated method stub
-        return 0;
+        return size;
     }
 
     public List<E> subList(int start, int end) {
-        // TODO Auto-generated method stub
-        return null;
+        if (start < 0 || end > size || start > end) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new UnevenlyDistributedLazyList<E>(codec, buffer, builder, resolver, index, cache, first + start,
+                end - start);
+    }
+
+    public Spliterator<E> spliterator() {
+        return new LazyListSpliterator(0, size);
     }
 
     public Object[] toArray() {
-        // TODO Auto-generated method stub
-        return null;
+        Object[] result = new Object[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = get(i);
+        }
+        return result;
     }
 
+    @SuppressWarnings("unchecked")
     public <T> T[] toArray(T[] elements) {
-        // TODO Auto-generated method stub
-        return null;
+        T[] result = elements.length >= size ? elements
+                : (T[]) java.lang.reflect.Array.newInstance(elements.getClass().getComponentType(), size);
+        for (int i = 0; i < size; i++) {
+            result[i] = (T) get(i);
+        }
+        if (result.length > size) {
+            result[size] = null;
+        }
+        return result;
+    }
+
+    /**
+     * The positions of the elements of a list, extended on demand. The position of the element at a given index is
+     * written once, before publishing the number of positions known through a volatile field, so positions known can
+     * be read without locking.
+     */
+    private static class OffsetIndex {
+
+        /** The positions of all elements, followed by the position following the last element. */
+        private final long[] offsets;
+
+        /** The number of positions known. */
+        private volatile int known;
+
+        public OffsetIndex(long offset, int numberOfElements) {
+            offsets = new long[numberOfElements + 1];
+            offsets[0] = offset;
+            known = 1;
+        }
+
+        public <E> long getOffset(int position, Codec<E> codec, BitBuffer buffer, Resolver resolver,
+                                  Builder builder) throws DecodingException {
+            if (position < known) {
+                return offsets[position];
+            }
+            synchronized (this) {
+                int count = known;
+                if (count <= position) {
+                    BitBuffer cursor = buffer.duplicate();
+                    cursor.setBitPos(offsets[count - 1]);
+                    while (count <= position) {
+                        codec.skip(cursor, resolver, builder);
+                        offsets[count++] = cursor.getBitPos();
+                        known = count;
+                    }
+                }
+                return offsets[position];
+            }
+        }
+
+        /**
+         * Records the position of an element found while decoding the element preceding it, if it is the first
+         * position not known yet.
+         */
+        public void record(int position, long offset) {
+            if (position != known || position >= offsets.length) {
+                return;
+            }
+            synchronized (this) {
+                if (position == known) {
+                    offsets[position] = offset;
+                    known = position + 1;
+                }
+            }
+        }
+
     }
 
-    private interface Holder<T> {
+    /** A {@link ListIterator} that will lazily load elements. */
+    private class LazyListIterator implements ListIterator<E> {
+
+        /** The index of the element returned last. */
+        private int position;
+
+        public LazyListIterator(int position) {
+            this.position = position;
+        }
+
+        public void add(E o) {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean hasNext() {
+            return position < size - 1;
+        }
+
+        public boolean hasPrevious() {
+            return position > 0;
+        }
+
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            } else {
+                return get(++position);
+            }
+        }
+
+        public int nextIndex() {
+            return position + 1;
+        }
+
+        public E previous() {
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            } else {
+                return get(--position);
+            }
+        }
+
+        public int previousIndex() {
+            return position - 1;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void set(E o) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
 
-        T get() throws InterruptedException;
+    /** A {@link Spliterator} splitting the range of indexes it covers in two halves. */
+    private class LazyListSpliterator implements Spliterator<E> {
+
+        /** The index of the next element. */
+        private int index;
+
+        /** The index following the last element covered. */
+        private final int fence;
+
+        public LazyListSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (index < fence) {
+                action.accept(get(index++));
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        public Spliterator<E> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            } else {
+                Spliterator<E> prefix = new LazyListSpliterator(index, mid);
+                index = mid;
+                return prefix;
+            }
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+        }
 
     }
 
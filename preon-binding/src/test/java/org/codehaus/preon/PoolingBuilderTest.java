@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon;
+
+import org.codehaus.preon.annotation.Bound;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PoolingBuilderTest {
+
+    private static final byte[] DATA = new byte[]{1, 2, 3};
+
+    @Test
+    public void shouldDecodeIntoExistingInstance() throws DecodingException {
+        Codec<Outer> codec = Codecs.create(Outer.class);
+        Outer instance = new Outer();
+        Outer result = Codecs.decodeInto(codec, new DefaultBitBuffer(ByteBuffer.wrap(DATA)), instance);
+        assertThat(result, is(sameInstance(instance)));
+        assertThat(result.value, is(1));
+        assertThat(result.nested.first, is(2));
+        assertThat(result.nested.second, is(3));
+    }
+
+    @Test
+    public void shouldReuseRecycledInstances() throws DecodingException {
+        Codec<Outer> codec = Codecs.create(Outer.class);
+        PoolingBuilder builder = new PoolingBuilder();
+        Outer first = Codecs.decode(codec, builder, DATA);
+        Nested nested = first.nested;
+        builder.recycle(first);
+        builder.recycle(nested);
+        Outer second = Codecs.decode(codec, builder, new byte[]{4, 5, 6});
+        assertThat(second, is(sameInstance(first)));
+        assertThat(second.nested, is(sameInstance(nested)));
+        assertThat(second.value, is(4));
+        assertThat(second.nested.second, is(6));
+        Outer third = Codecs.decode(codec, builder, DATA);
+        assertThat(third, is(not(sameInstance(second))));
+    }
+
+    @Test
+    public void shouldCreateInstancesOfPrivateClasses() throws Exception {
+        PoolingBuilder builder = new PoolingBuilder();
+        assertThat(builder.create(Hidden.class).getClass() == Hidden.class, is(true));
+    }
+
+    public static class Outer {
+
+        @BoundNumber(size = "8")
+        public int value;
+
+        @Bound
+        public Nested nested;
+
+    }
+
+    public static class Nested {
+
+        @BoundNumber(size = "8")
+        public int first;
+
+        @BoundNumber(size = "8")
+        public int second;
+
+    }
+
+    private static class Hidden {
+
+        private Hidden() {
+        }
+
+    }
+
+}
@@ -34,6 +34,7 @@ package org.codehaus.preon.binding;
 
 import java.lang.reflect.Field;
 
+import org.codehaus.preon.Builder;
 import org.codehaus.preon.Codec;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,6 +42,10 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
 @RunWith(MockitoJUnitRunner.class)
 public class StandardBindingFactoryTest {
     
@@ -52,9 +57,26 @@ public class StandardBindingFactoryTest {
         }
     }
     
+    public static class Ham {
+        private int slices;
+
+        public int getSlices() {
+            return slices;
+        }
+
+        public class Fat {
+        }
+    }
+
     @Mock
     private Codec<Spam> codec;
 
+    @Mock
+    private Codec<Integer> eggsCodec;
+
+    @Mock
+    private Builder builder;
+
     private StandardBindingFactory factory;
 
     @Before
@@ -68,4 +90,25 @@ public class StandardBindingFactoryTest {
         Binding binding = factory.create(null, field, codec, null, null);
         binding.save(new Spam(), null, null);
     }
+
+    @Test
+    public void shouldPassBuilderWithoutInnerClasses() throws Exception {
+        Field field = Spam.class.getDeclaredField("eggs");
+        Binding binding = factory.create(null, field, eggsCodec, null, null);
+        when(eggsCodec.decode(null, null, builder)).thenReturn(3);
+        Spam spam = new Spam();
+        binding.load(spam, null, null, builder);
+        assertThat(spam.getEggs(), is(3));
+    }
+
+    @Test
+    public void shouldPassBuilderForValuesOtherThanInnerClasses() throws Exception {
+        Field field = Ham.class.getDeclaredField("slices");
+        when(eggsCodec.getTypes()).thenReturn(new Class<?>[]{Integer.class});
+        Binding binding = factory.create(null, field, eggsCodec, null, null);
+        when(eggsCodec.decode(null, null, builder)).thenReturn(4);
+        Ham ham = new Ham();
+        binding.load(ham, null, null, builder);
+        assertThat(ham.getSlices(), is(4));
+    }
 }
@@ -40,9 +40,16 @@ import static org.mockito.Mockito.when;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.AnnotatedElement;
+import java.nio.ByteBuffer;
 
 import org.codehaus.preon.Codec;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
 import org.codehaus.preon.annotation.BoundBuffer;
+import org.codehaus.preon.annotation.BoundList;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
 import org.codehaus.preon.channel.OutputStreamBitChannel;
 import org.junit.Before;
 import org.junit.Test;
@@ -82,4 +89,67 @@ public class BoundBufferCodecFactoryTest {
         assertThat(output.length, is(match.length));
         assertArrayEquals(match, output);
     }
+
+    @Test
+    public void shouldDecodeByteBufferAsView() throws DecodingException, IOException {
+        byte[] data = {3, 1, 2, 3, 4};
+        Codec<Payload> codec = Codecs.create(Payload.class);
+        Payload payload = Codecs.decode(codec, ByteBuffer.wrap(data));
+        assertThat(payload.data.isReadOnly(), is(true));
+        assertThat(payload.data.remaining(), is(3));
+        assertThat(payload.data.get(0), is((byte) 1));
+        data[1] = 9;
+        assertThat(payload.data.get(0), is((byte) 9));
+        assertArrayEquals(new byte[]{3, 9, 2, 3}, Codecs.encode(payload, codec));
+    }
+
+    @Test
+    public void shouldCopyUnalignedByteBuffer() throws DecodingException {
+        Codec<UnalignedPayload> codec = Codecs.create(UnalignedPayload.class);
+        byte[] data = {0x32, 0x54, 0x76};
+        BitBuffer expected = new DefaultBitBuffer(ByteBuffer.wrap(data));
+        expected.setBitPos(4);
+        UnalignedPayload payload = Codecs.decode(codec, data);
+        assertThat(payload.data.isReadOnly(), is(true));
+        assertThat(payload.data.remaining(), is(2));
+        assertThat(payload.data.get(0), is(expected.readAsByte(8)));
+        assertThat(payload.data.get(1), is(expected.readAsByte(8)));
+    }
+
+    @Test
+    public void shouldDecodeBoundBufferAsByteBuffer() throws DecodingException {
+        Codec<Magic> codec = Codecs.create(Magic.class);
+        Magic magic = Codecs.decode(codec, (byte) 1, (byte) 2);
+        assertThat(magic.value.isReadOnly(), is(true));
+        assertThat(magic.value.remaining(), is(2));
+        assertThat(magic.value.get(1), is((byte) 2));
+    }
+
+    public static class Payload {
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundList(size = "length")
+        public ByteBuffer data;
+
+    }
+
+    public static class UnalignedPayload {
+
+        @BoundNumber(size = "4")
+        public int length;
+
+        @BoundList(size = "length")
+        public ByteBuffer data;
+
+    }
+
+    public static class Magic {
+
+        @BoundBuffer(match = {1, 2})
+        public ByteBuffer value;
+
+    }
+
 }
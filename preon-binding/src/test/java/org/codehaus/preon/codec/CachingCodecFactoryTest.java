@@ -34,10 +34,22 @@ package org.codehaus.preon.codec;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.codehaus.preon.Codec;
 import org.codehaus.preon.CodecFactory;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.ResolverContext;
+import org.codehaus.preon.annotation.BoundNumber;
 
 import org.easymock.EasyMock;
 
@@ -78,4 +90,99 @@ public class CachingCodecFactoryTest extends TestCase {
         EasyMock.verify(metadata, delegate, codec1, codec2);
     }
 
+    /** Tests if concurrent requests for the same {@link Codec} construct it only once. */
+    public void testConcurrentConstruction() throws Exception {
+        final AtomicInteger constructions = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CachingCodecFactory factory = new CachingCodecFactory(new CodecFactory() {
+            public <T> Codec<T> create(AnnotatedElement metadata, Class<T> type, ResolverContext context) {
+                constructions.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    throw new IllegalStateException(ie);
+                }
+                return (Codec<T>) codec1;
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Codec<String>>> results = new ArrayList<Future<Codec<String>>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<Codec<String>>() {
+                    public Codec<String> call() {
+                        return factory.create(null, String.class, null);
+                    }
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<Codec<String>> result : results) {
+                assertNotNull(result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, constructions.get());
+            assertEquals(1, factory.getCodecs().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Tests if a circular request for a {@link Codec} under construction receives a placeholder. */
+    @SuppressWarnings("unchecked")
+    public void testCircularReference() {
+        final CachingCodecFactory[] factory = new CachingCodecFactory[1];
+        final Codec<?>[] nested = new Codec<?>[1];
+        factory[0] = new CachingCodecFactory(new CodecFactory() {
+            public <T> Codec<T> create(AnnotatedElement metadata, Class<T> type, ResolverContext context) {
+                nested[0] = factory[0].create(null, type, context);
+                return (Codec<T>) codec1;
+            }
+        });
+        EasyMock.expect((Class) codec1.getType()).andReturn(String.class);
+        EasyMock.replay(codec1);
+        assertSame(codec1, factory[0].create(null, String.class, null));
+        assertNotNull(nested[0]);
+        assertNotSame(codec1, nested[0]);
+        assertEquals(String.class, nested[0].getType());
+        EasyMock.verify(codec1);
+    }
+
+    /** Tests if a failure to construct a {@link Codec} does not stick. */
+    @SuppressWarnings("unchecked")
+    public void testRetryAfterFailure() {
+        final AtomicInteger attempts = new AtomicInteger();
+        CachingCodecFactory factory = new CachingCodecFactory(new CodecFactory() {
+            public <T> Codec<T> create(AnnotatedElement metadata, Class<T> type, ResolverContext context) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("First attempt fails.");
+                }
+                return (Codec<T>) codec1;
+            }
+        });
+        try {
+            factory.create(null, String.class, null);
+            fail("Expected the first attempt to fail.");
+        } catch (IllegalStateException ise) {
+            // Expected
+        }
+        assertSame(codec1, factory.create(null, String.class, null));
+    }
+
+    /** Tests if shared {@link Codec Codecs} are created only once. */
+    public void testSharedCodecs() {
+        Codec<Shared> codec = Codecs.createShared(Shared.class);
+        assertSame(codec, Codecs.createShared(Shared.class));
+        assertNotSame(codec, Codecs.create(Shared.class));
+    }
+
+    public static class Shared {
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
 }
@@ -0,0 +1,251 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.annotation.BoundList;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundObject;
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.annotation.Choices;
+import org.codehaus.preon.annotation.LazyLoading;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Decodes many buffers concurrently using a single {@link Codec}, comparing the results to decoding the same buffers
+ * one after the other. Every test creates a fresh {@link Codec}, so that the state determined lazily while decoding
+ * the first values is raced for as well.
+ */
+public class ConcurrentDecodingTest {
+
+    private static final int THREADS = 8;
+
+    private static final int RECORDS = 2000;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldDecodeConcurrentlyAsSequentially() throws DecodingException, InterruptedException {
+        List<ByteBuffer> buffers = createRecords(new Random(42), RECORDS);
+        Codec<Record> codec = Codecs.create(Record.class);
+        List<Record> concurrent = Codecs.decodeAll(codec, buffers, executor);
+        assertThat(concurrent.size(), is(RECORDS));
+        for (int i = 0; i < RECORDS; i++) {
+            Record expected = Codecs.decode(codec, buffers.get(i));
+            assertThat(describe(concurrent.get(i)), is(describe(expected)));
+        }
+    }
+
+    @Test
+    public void shouldDecodeRepeatedlyFromSharedCodec() throws DecodingException, InterruptedException {
+        List<ByteBuffer> buffers = createRecords(new Random(7), RECORDS / 10);
+        Codec<Record> codec = Codecs.create(Record.class);
+        List<String> expected = new ArrayList<String>();
+        for (ByteBuffer buffer : buffers) {
+            expected.add(describe(Codecs.decode(codec, buffer)));
+        }
+        for (int round = 0; round < 20; round++) {
+            List<Record> decoded = Codecs.decodeAll(codec, buffers, executor);
+            for (int i = 0; i < buffers.size(); i++) {
+                assertThat(describe(decoded.get(i)), is(expected.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldAcceptTheSameBufferMoreThanOnce() throws DecodingException, InterruptedException {
+        ByteBuffer buffer = createRecords(new Random(3), 1).get(0);
+        Codec<Record> codec = Codecs.create(Record.class);
+        List<Record> decoded = Codecs.decodeAll(codec, Collections.nCopies(RECORDS, buffer), executor);
+        String expected = describe(Codecs.decode(codec, buffer));
+        for (Record record : decoded) {
+            assertThat(describe(record), is(expected));
+        }
+        assertThat(buffer.position(), is(0));
+    }
+
+    @Test
+    public void shouldReportFailureToDecodeAnyBuffer() throws InterruptedException {
+        List<ByteBuffer> buffers = createRecords(new Random(11), RECORDS);
+        buffers.get(RECORDS / 2).put(0, (byte) 'X');
+        try {
+            Codecs.decodeAll(Codecs.create(Record.class), buffers, executor);
+            fail("Expected the corrupted magic to be reported.");
+        } catch (DecodingException de) {
+            // What we expect.
+        }
+    }
+
+    private static List<ByteBuffer> createRecords(Random random, int count) {
+        List<ByteBuffer> result = new ArrayList<ByteBuffer>(count);
+        for (int i = 0; i < count; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write('P');
+            out.write('R');
+            int parts = random.nextInt(6);
+            out.write(parts);
+            for (int j = 0; j < parts; j++) {
+                if (random.nextBoolean()) {
+                    out.write(1);
+                    out.write(random.nextInt(256));
+                } else {
+                    out.write(2);
+                    writeString(out, random, 1 + random.nextInt(12));
+                }
+            }
+            writeString(out, random, random.nextInt(20));
+            for (int j = 0; j < 4; j++) {
+                out.write(random.nextInt(256));
+            }
+            int length = random.nextInt(10);
+            out.write(length);
+            for (int j = 0; j < length; j++) {
+                out.write('a' + random.nextInt(26));
+            }
+            out.write(random.nextInt(256));
+            result.add(ByteBuffer.wrap(out.toByteArray()));
+        }
+        return result;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, Random random, int length) {
+        for (int i = 0; i < length; i++) {
+            out.write('a' + random.nextInt(26));
+        }
+        out.write(0);
+    }
+
+    private static String describe(Record record) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(record.magic).append('/').append(record.count).append('[');
+        for (Part part : record.parts) {
+            if (part.body instanceof Small) {
+                builder.append("small:").append(((Small) part.body).value);
+            } else {
+                builder.append("text:").append(((Text) part.body).value);
+            }
+            builder.append(',');
+        }
+        builder.append("]/").append(record.name).append('[');
+        for (Pair pair : record.pairs) {
+            builder.append(pair.first).append(':').append(pair.second).append(',');
+        }
+        builder.append("]/").append(record.trailer.length).append(':').append(record.trailer.getValue());
+        return builder.toString();
+    }
+
+    public static class Record {
+
+        @BoundString(size = "2", match = "PR")
+        public String magic;
+
+        @BoundNumber(size = "8")
+        public int count;
+
+        @BoundList(size = "count", type = Part.class)
+        public List<Part> parts;
+
+        @BoundString
+        public String name;
+
+        @BoundList(size = "2", offset = "index * 16", type = Pair.class)
+        public List<Pair> pairs;
+
+        @LazyLoading
+        @BoundObject
+        public SkipIntegrationTest.LengthPrefixed trailer;
+
+    }
+
+    public static class Part {
+
+        @BoundObject(selectFrom = @Choices(prefixSize = 8, alternatives = {
+                @Choices.Choice(condition = "prefix == 1", type = Small.class),
+                @Choices.Choice(condition = "prefix == 2", type = Text.class)
+        }))
+        public Object body;
+
+    }
+
+    public static class Small {
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
+    public static class Text {
+
+        @BoundString
+        public String value;
+
+    }
+
+    public static class Pair {
+
+        @BoundNumber(size = "8")
+        public int first;
+
+        @BoundNumber(size = "8")
+        public int second;
+
+    }
+
+}
@@ -37,11 +37,13 @@ import org.codehaus.preon.Resolver;
 
 import static org.codehaus.preon.buffer.ByteOrder.BigEndian;
 
+import org.codehaus.preon.buffer.BitBuffer;
 import org.codehaus.preon.channel.BitChannel;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -81,9 +83,50 @@ public class EnumCodecTest {
         verifyNoMoreInteractions(resolver);
     }
 
+    @Test
+    public void shouldDecodeFromDenseTable() throws Exception {
+        EnumCodec<Direction> codec = new EnumCodec<Direction>(Direction.class, map, size, BigEndian);
+        assertSame(Direction.Forward, decode(codec, 1L));
+        assertSame(Direction.Backward, decode(codec, 2L));
+        assertSame(null, decode(codec, 0L));
+        assertSame(null, decode(codec, 3L));
+    }
+
+    @Test
+    public void shouldDecodeSparseValues() throws Exception {
+        Map<Long, Direction> sparse = new HashMap<Long, Direction>();
+        sparse.put(-7L, Direction.Forward);
+        sparse.put(0xCAFEBABEL, Direction.Backward);
+        sparse.put(null, Direction.Unknown);
+        EnumCodec<Direction> codec = new EnumCodec<Direction>(Direction.class, sparse, size, BigEndian);
+        assertSame(Direction.Forward, decode(codec, -7L));
+        assertSame(Direction.Backward, decode(codec, 0xCAFEBABEL));
+        assertSame(Direction.Unknown, decode(codec, 0xCAFEBABEL + 1024));
+    }
+
+    @Test
+    public void shouldProbePastCollisions() {
+        EnumCodec.OpenLongMap<Long> map = new EnumCodec.OpenLongMap<Long>(100);
+        for (long i = 0; i < 100; i++) {
+            map.put(i << 20, i);
+        }
+        for (long i = 0; i < 100; i++) {
+            assertSame(Long.valueOf(i), map.get(i << 20));
+        }
+        assertSame(null, map.get(1));
+    }
+
+    private Direction decode(EnumCodec<Direction> codec, long value) throws Exception {
+        BitBuffer buffer = org.mockito.Mockito.mock(BitBuffer.class);
+        when(size.eval(org.mockito.Matchers.any(Resolver.class))).thenReturn(32);
+        when(buffer.readAsLong(32, BigEndian)).thenReturn(value);
+        return codec.decode(buffer, resolver, null);
+    }
+
     public enum Direction {
         Forward,
-        Backward
+        Backward,
+        Unknown
     }
 
 }
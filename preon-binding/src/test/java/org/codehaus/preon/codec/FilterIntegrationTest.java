@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.CodecConstructionException;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.Projection;
+import org.codehaus.preon.annotation.BoundList;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FilterIntegrationTest {
+
+    /**
+     * Three records, of kind 1, 2 and 1, followed by a trailer.
+     */
+    private static final byte[] CAPTURE = new byte[]{
+            3,
+            1, 2, 'a', 'b',
+            2, 3, 'c', 'd', 'e',
+            1, 1, 'f',
+            9
+    };
+
+    @Test
+    public void shouldDropRejectedElements() throws DecodingException {
+        Codec<Capture> codec = Codecs.create(Capture.class);
+        Capture result = Codecs.decode(codec, CAPTURE);
+        assertThat(result.records.size(), is(2));
+        assertThat(result.records.get(0).data, is("ab"));
+        assertThat(result.records.get(1).data, is("f"));
+        assertThat(result.trailer, is(9));
+    }
+
+    @Test
+    public void shouldEvaluateFilterAfterDecodingFieldsReferenced() throws DecodingException {
+        Codec<LongRecordCapture> codec = Codecs.create(LongRecordCapture.class);
+        LongRecordCapture result = Codecs.decode(codec, CAPTURE);
+        assertThat(result.records.size(), is(1));
+        assertThat(result.records.get(0).data, is("cde"));
+        assertThat(result.trailer, is(9));
+    }
+
+    @Test
+    public void shouldFilterListsOfUnknownSize() throws DecodingException {
+        Codec<Stream> codec = Codecs.create(Stream.class);
+        Stream result = Codecs.decode(codec, new byte[]{1, 2, 'a', 'b', 2, 1, 'c', 1, 1, 'd'});
+        assertThat(result.records.size(), is(2));
+        assertThat(result.records.get(0).data, is("ab"));
+        assertThat(result.records.get(1).data, is("d"));
+    }
+
+    @Test
+    public void shouldSkipFilteredLists() throws DecodingException {
+        Codec<Capture> codec = Codecs.create(Capture.class);
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(CAPTURE));
+        Codecs.skip(codec, buffer);
+        assertThat(buffer.getBitPos(), is(8L * CAPTURE.length));
+    }
+
+    @Test
+    public void shouldSkipToWhereDecodingStopsForTruncatedLastElement() throws DecodingException {
+        byte[] data = {1, 2, 'a', 'b', 1, 5, 'x'};
+        Codec<Stream> codec = Codecs.create(Stream.class);
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(data));
+        Codecs.skip(codec, buffer);
+        assertThat(buffer.getBitPos(), is(32L));
+        buffer.setBitPos(0);
+        assertThat(Codecs.decode(codec, buffer, null, null).records.size(), is(1));
+        assertThat(buffer.getBitPos(), is(32L));
+    }
+
+    @Test(timeout = 5000)
+    public void shouldStopAtEndOfBufferForFixedSizeElements() throws DecodingException {
+        byte[] data = {2, 1, 'a', 2, 'b', 1, 'c'};
+        FixedStream decoded = Codecs.decode(Codecs.create(FixedStream.class), data);
+        assertThat(decoded.records.size(), is(2));
+        assertThat(decoded.records.get(1).value, is((int) 'c'));
+        FixedStream projected = Codecs.decode(Codecs.create(FixedStream.class, Projection.of("version")), data);
+        assertThat(projected.version, is(2));
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(data));
+        Codecs.skip(Codecs.create(FixedStream.class), buffer);
+        assertThat(buffer.getBitPos(), is(8L * data.length));
+    }
+
+    @Test(expected = CodecConstructionException.class)
+    public void shouldRejectFilterOnPolymorphicLists() {
+        Codecs.create(PolymorphicCapture.class);
+    }
+
+    public static class Record {
+
+        @BoundNumber(size = "8")
+        public int kind;
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundString(size = "length")
+        public String data;
+
+    }
+
+    public static class Capture {
+
+        @BoundNumber(size = "8")
+        public int count;
+
+        @BoundList(size = "count", type = Record.class, filter = "kind == 1")
+        public List<Record> records;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+    }
+
+    public static class LongRecordCapture {
+
+        @BoundNumber(size = "8")
+        public int count;
+
+        @BoundList(size = "count", type = Record.class, filter = "length > 2")
+        public List<Record> records;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+    }
+
+    public static class Stream {
+
+        @BoundList(type = Record.class, filter = "kind == 1")
+        public List<Record> records;
+
+    }
+
+    public static class Fixed {
+
+        @BoundNumber(size = "8")
+        public int kind;
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
+    public static class FixedStream {
+
+        @BoundNumber(size = "8")
+        public int version;
+
+        @BoundList(type = Fixed.class, filter = "kind == 1")
+        public List<Fixed> records;
+
+    }
+
+    public static class PolymorphicCapture {
+
+        @BoundList(size = "1", types = {Record.class}, filter = "kind == 1")
+        public List<Record> records;
+
+    }
+
+}
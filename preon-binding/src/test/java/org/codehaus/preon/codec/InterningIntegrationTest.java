@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.annotation.BoundList;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundObject;
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.annotation.Intern;
+import org.codehaus.preon.buffer.ByteOrder;
+import org.codehaus.preon.util.InternCache;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class InterningIntegrationTest {
+
+    @Test
+    public void shouldShareStringsWithIdenticalBytes() throws DecodingException {
+        InterningCodecDecorator decorator = new InterningCodecDecorator();
+        Codec<Table> codec = Codecs.create(Table.class, decorator);
+        Table table = Codecs.decode(codec, new byte[]{
+                4,
+                'f', 'o', 'o', 0, 1, 2,
+                'b', 'a', 'r', 0, 3, 4,
+                'f', 'o', 'o', 0, 1, 2,
+                'f', 'o', 'o', 0, 5, 6
+        });
+        InternCache<?, ?> names = decorator.getCache(Entry.class.getName() + ".name");
+        long hits = names.getHits();
+        long misses = names.getMisses();
+        List<Entry> entries = table.entries;
+        assertThat(entries.get(0).name, is("foo"));
+        assertThat(entries.get(1).name, is("bar"));
+        assertThat(entries.get(2).name, sameInstance(entries.get(0).name));
+        assertThat(entries.get(3).name, sameInstance(entries.get(0).name));
+        assertThat(names.getHits() - hits, is(2L));
+        assertThat(names.getMisses() - misses, is(2L));
+        assertThat(entries.get(2).position, sameInstance(entries.get(0).position));
+        assertThat(entries.get(3).position, not(sameInstance(entries.get(0).position)));
+        assertThat(entries.get(3).position.x, is(5));
+    }
+
+    @Test
+    public void shouldShareCachesByName() throws DecodingException {
+        InterningCodecDecorator decorator = new InterningCodecDecorator();
+        Codec<Pair> codec = Codecs.create(Pair.class, decorator);
+        Pair first = Codecs.decode(codec, new byte[]{'a', 'b', 1, 2, 1, 2});
+        Pair second = Codecs.decode(codec, new byte[]{'a', 'b', 1, 2, 1, 2});
+        assertThat(second.name, sameInstance(first.name));
+        assertThat(second.big, sameInstance(first.big));
+        assertThat(first.big, is(0x102));
+        assertThat(first.little, is(0x201));
+        InternCache<?, ?> cache = decorator.getCache("interning-test");
+        assertThat(cache.getCapacity(), is(16));
+        assertThat(cache.size(), is(3));
+        assertThat(cache.getHits(), is(3L));
+    }
+
+    @Test
+    public void shouldKeepCachesPerCodecByDefault() throws DecodingException {
+        Pair first = Codecs.decode(Codecs.create(Pair.class), new byte[]{'a', 'b', 1, 2, 1, 2});
+        Pair second = Codecs.decode(Codecs.create(Pair.class), new byte[]{'a', 'b', 1, 2, 1, 2});
+        assertThat(second.name, is(first.name));
+        assertThat(second.name, not(sameInstance(first.name)));
+    }
+
+    public static class Table {
+
+        @BoundNumber(size = "8")
+        public int count;
+
+        @BoundList(size = "count", type = Entry.class)
+        public List<Entry> entries;
+
+    }
+
+    public static class Entry {
+
+        @Intern
+        @BoundString
+        public String name;
+
+        @BoundObject
+        public Position position;
+
+    }
+
+    @Intern(eviction = Intern.Eviction.CLOCK)
+    public static class Position {
+
+        @BoundNumber(size = "8")
+        public int x;
+
+        @BoundNumber(size = "8")
+        public int y;
+
+    }
+
+    public static class Pair {
+
+        @Intern(value = "interning-test", capacity = 16)
+        @BoundString(size = "2")
+        public String name;
+
+        @Intern("interning-test")
+        @BoundNumber(size = "16", byteOrder = ByteOrder.BigEndian)
+        public Integer big;
+
+        @Intern("interning-test")
+        @BoundNumber(size = "16", byteOrder = ByteOrder.LittleEndian)
+        public Integer little;
+
+    }
+
+}
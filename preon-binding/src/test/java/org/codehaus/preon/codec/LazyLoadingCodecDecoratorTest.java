@@ -55,6 +55,9 @@ public class LazyLoadingCodecDecoratorTest extends TestCase {
 
     private BitBuffer buffer;
 
+    /** The duplicate of {@link #buffer} from which values are loaded. */
+    private BitBuffer duplicate;
+
     private LazyLoadingCodecDecorator factory;
 
     private AnnotatedElement metadata;
@@ -68,6 +71,7 @@ public class LazyLoadingCodecDecoratorTest extends TestCase {
     public void setUp() {
         wrapped = createMock(Codec.class);
         buffer = createMock(BitBuffer.class);
+        duplicate = createMock(BitBuffer.class);
         factory = new LazyLoadingCodecDecorator();
         metadata = createMock(AnnotatedElement.class);
         annotation = createMock(LazyLoading.class);
@@ -84,18 +88,20 @@ public class LazyLoadingCodecDecoratorTest extends TestCase {
         expect(metadata.isAnnotationPresent(LazyLoading.class))
                 .andReturn(true);
         expect(wrapped.getSize()).andReturn(sizeExpr);
+        expect(sizeExpr.isParameterized()).andReturn(false);
         expect(sizeExpr.eval(resolver)).andReturn(32);
 
         // Stuff expected when Test instance is constructed using Codec
         expect(buffer.getBitPos()).andReturn(64L);
+        expect(buffer.duplicate()).andReturn(duplicate);
         buffer.setBitPos(64L + 32);
 
-        // Stuff expected after when Test instance is accessed
-        buffer.setBitPos(64L);
-        expect(wrapped.decode(buffer, resolver, null)).andReturn(test);
+        // Stuff expected after when Test instance is accessed; loading should leave the original buffer alone
+        duplicate.setBitPos(64L);
+        expect(wrapped.decode(duplicate, resolver, null)).andReturn(test);
 
         // Replay
-        replay(wrapped, buffer, metadata, annotation, resolver, sizeExpr);
+        replay(wrapped, buffer, duplicate, metadata, annotation, resolver, sizeExpr);
         Codec<Test> codec = factory.decorate(wrapped, metadata, Test.class, null);
         assertNotNull(codec);
         Test result = codec.decode(buffer, resolver, null);
@@ -103,7 +109,33 @@ public class LazyLoadingCodecDecoratorTest extends TestCase {
         assertEquals("bar", result.getFoo());
         // Second time should not cause reload.
         assertEquals("bar", result.getFoo());
-        verify(wrapped, buffer, metadata, annotation, resolver, sizeExpr);
+        verify(wrapped, buffer, duplicate, metadata, annotation, resolver, sizeExpr);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testProxyClassReused() throws DecodingException {
+        Test second = new Test();
+        expect(metadata.isAnnotationPresent(LazyLoading.class))
+                .andReturn(true);
+        expect(wrapped.getSize()).andReturn(sizeExpr);
+        expect(sizeExpr.isParameterized()).andReturn(false);
+        expect(sizeExpr.eval(resolver)).andReturn(32).times(2);
+        expect(buffer.duplicate()).andReturn(duplicate).times(2);
+        expect(buffer.getBitPos()).andReturn(0L);
+        buffer.setBitPos(32L);
+        expect(buffer.getBitPos()).andReturn(32L);
+        buffer.setBitPos(64L);
+        duplicate.setBitPos(32L);
+        expect(wrapped.decode(duplicate, resolver, null)).andReturn(second);
+        replay(wrapped, buffer, duplicate, metadata, annotation, resolver, sizeExpr);
+        Codec<Test> codec = factory.decorate(wrapped, metadata, Test.class, null);
+        Test firstProxy = codec.decode(buffer, resolver, null);
+        Test secondProxy = codec.decode(buffer, resolver, null);
+        assertSame(firstProxy.getClass(), secondProxy.getClass());
+        assertNotSame(firstProxy, secondProxy);
+        // Only the second value gets loaded
+        assertEquals("bar", secondProxy.getFoo());
+        verify(wrapped, buffer, duplicate, metadata, annotation, resolver, sizeExpr);
     }
 
     public static class Test {
@@ -35,14 +35,23 @@ package org.codehaus.preon.codec;
 import org.codehaus.preon.Codec;
 import org.codehaus.preon.Codecs;
 import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.DefaultBuilder;
 import org.codehaus.preon.annotation.Bound;
 import org.codehaus.preon.annotation.BoundList;
 import org.codehaus.preon.annotation.BoundNumber;
 import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.annotation.Parallel;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
 import org.codehaus.preon.util.EvenlyDistributedLazyList;
+import org.codehaus.preon.util.IntList;
+import org.codehaus.preon.util.UnevenlyDistributedLazyList;
 import org.hamcrest.CoreMatchers;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -71,6 +80,39 @@ public class ListCodecIntegrationTest {
         assertThat(result.records.get(1).value, is("ef"));
     }
 
+    @Test
+    public void shouldLoadVariableSizedElementsLazily() throws DecodingException {
+        Codec<Test9> codec = Codecs.create(Test9.class);
+        Test9 result = Codecs.decode(codec, new byte[] { 3, 1, 'a', 3, 'b', 'c', 'd', 2, 'e', 'f', 9 });
+        assertThat(result.records, instanceOf(UnevenlyDistributedLazyList.class));
+        assertThat(result.trailer, is(9));
+        assertThat(result.records.get(2).value, is("ef"));
+        assertThat(result.records.get(0).value, is("a"));
+        assertThat(result.records.subList(1, 3).get(0).value, is("bcd"));
+        assertThat(result.records.get(1), is(sameInstance(result.records.get(1))));
+    }
+
+    @Test
+    public void shouldDecodeUntilEndOfBuffer() throws DecodingException {
+        Codec<Test10> codec = Codecs.create(Test10.class);
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[] { 1, 0, 2, 0, 3 }));
+        Test10 result = codec.decode(buffer, null, new DefaultBuilder());
+        assertThat(result.records.size(), is(2));
+        assertThat(result.records.get(1).value, is(2));
+        // The truncated element is not consumed
+        assertThat(buffer.getBitPos(), is(32L));
+    }
+
+    @Test
+    public void shouldLoadListOfIntegersWithoutBoxing() throws DecodingException {
+        Codec<Test11> codec = Codecs.create(Test11.class);
+        Test11 result = Codecs.decode(codec, new byte[] { 2, 1, 0, 0, 0, 2, 0, 0, 0, 9 });
+        assertThat(result.values, instanceOf(IntList.class));
+        assertThat(((IntList) result.values).getInt(1), is(2));
+        assertThat(result.values.get(0), is(1));
+        assertThat(result.trailer, is(9));
+    }
+
     @Test
     public void shouldLoadArrayOfBooleans() throws DecodingException {
         Codec<Test5> codec = Codecs.create(Test5.class);
@@ -96,6 +138,110 @@ public class ListCodecIntegrationTest {
     }
 
 
+    @Test
+    public void shouldDecodeFieldsFollowingLazyList() throws DecodingException {
+        Codec<Test7> codec = Codecs.create(Test7.class);
+        Test7 result = Codecs.decode(codec, new byte[] { 3, 1, 0, 2, 0, 3, 0, 9 });
+        assertThat(result.records, instanceOf(EvenlyDistributedLazyList.class));
+        assertThat(result.trailer, is(9));
+        assertThat(result.records.get(2).value, is(3));
+    }
+
+    @Test
+    public void shouldNotDecodeElementsTwice() throws DecodingException {
+        Codec<Test7> codec = Codecs.create(Test7.class);
+        Test7 result = Codecs.decode(codec, new byte[] { 3, 1, 0, 2, 0, 3, 0, 9 });
+        assertThat(result.records.get(1), is(sameInstance(result.records.get(1))));
+    }
+
+    @Test
+    public void shouldCacheElementsAsSelected() throws DecodingException {
+        Codec<Test16> codec = Codecs.create(Test16.class);
+        Test16 result = Codecs.decode(codec, new byte[] { 3, 1, 0, 2, 0, 3, 0, 3, 1, 0, 2, 0, 3, 0 });
+        assertThat(result.uncached.get(1), is(not(sameInstance(result.uncached.get(1)))));
+        assertThat(result.uncached.get(1).value, is(2));
+        Record first = result.recent.get(0);
+        assertThat(result.recent.get(0), is(sameInstance(first)));
+        result.recent.get(1);
+        result.recent.get(2);
+        assertThat(result.recent.get(0), is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void shouldDecodeParallelListEagerly() throws DecodingException {
+        Codec<Test12> codec = Codecs.create(Test12.class);
+        Test12 result = Codecs.decode(codec, new byte[] { 3, 1, 0, 2, 0, 3, 0, 9 });
+        assertThat(result.records, not(instanceOf(EvenlyDistributedLazyList.class)));
+        assertThat(result.records.size(), is(3));
+        assertThat(result.records.get(2).value, is(3));
+        assertThat(result.trailer, is(9));
+    }
+
+    @Test
+    public void shouldDecodeLargeListInParallel() throws DecodingException {
+        int count = 100000;
+        byte[] data = new byte[4 + 5 * count + 1];
+        data[0] = (byte) count;
+        data[1] = (byte) (count >> 8);
+        data[2] = (byte) (count >> 16);
+        data[3] = 2;
+        for (int i = 0; i < count; i++) {
+            data[4 + 5 * i] = (byte) i;
+            data[5 + 5 * i] = (byte) (i >> 8);
+            data[6 + 5 * i] = (byte) (i >> 16);
+            data[7 + 5 * i] = (byte) ('a' + i % 26);
+            data[8 + 5 * i] = (byte) ('a' + (i + 1) % 26);
+        }
+        data[data.length - 1] = 9;
+        Codec<Test13> codec = Codecs.create(Test13.class);
+        Test13 result = Codecs.decode(codec, data);
+        assertThat(result.records.size(), is(count));
+        for (int i = 0; i < count; i++) {
+            assertThat(result.records.get(i).id, is(i));
+            assertThat(result.records.get(i).value.charAt(1), is((char) ('a' + (i + 1) % 26)));
+        }
+        assertThat(result.trailer, is(9));
+    }
+
+    @Test(expected = DecodingException.class)
+    public void shouldReportFailureToDecodeParallelList() throws DecodingException {
+        byte[] data = new byte[2 + 1000];
+        data[0] = (byte) 0xe8;
+        data[1] = 0x03;
+        Arrays.fill(data, 2, data.length, (byte) 't');
+        data[700] = 'x';
+        Codecs.decode(Codecs.create(Test14.class), data);
+    }
+
+    @Test
+    public void shouldDecodeIterableOneElementAtATime() throws DecodingException {
+        Codec<Test15> codec = Codecs.create(Test15.class);
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[] { 2, 'a', 'b', 'c', 'd', 'e' }));
+        Test15 result = Codecs.decode(codec, buffer, null, null);
+        assertThat(buffer.getBitPos(), is(48L));
+        for (int pass = 0; pass < 2; pass++) {
+            Iterator<Test15.Entry> iterator = result.records.iterator();
+            assertThat(iterator.next().value, is("ab"));
+            assertThat(iterator.next().value, is("cd"));
+            assertThat(iterator.hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void shouldSupportParallelStreams() throws DecodingException {
+        byte[] data = new byte[2 + 2 * 1000];
+        data[0] = (byte) 0xe8;
+        data[1] = 0x03;
+        for (int i = 0; i < 1000; i++) {
+            data[2 + 2 * i] = (byte) i;
+            data[3 + 2 * i] = (byte) (i >> 8);
+        }
+        Codec<Test8> codec = Codecs.create(Test8.class);
+        Test8 result = Codecs.decode(codec, data);
+        int sum = result.records.parallelStream().mapToInt(record -> record.value).sum();
+        assertThat(sum, is(999 * 1000 / 2));
+    }
+
     public static class Test1 {
 
         @BoundNumber(size = "8")
@@ -156,5 +302,170 @@ public class ListCodecIntegrationTest {
 
     }
 
+    public static class Test7 {
+
+        @BoundNumber(size = "8")
+        public int nrRecords;
+
+        @BoundList(size = "nrRecords", type = Record.class)
+        public List<Record> records;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+    }
+
+    public static class Test8 {
+
+        @BoundNumber(size = "16")
+        public int nrRecords;
+
+        @BoundList(size = "nrRecords", type = Record.class)
+        public List<Record> records;
+
+    }
+
+    public static class Test9 {
+
+        @BoundNumber(size = "8")
+        public int nrRecords;
+
+        @BoundList(size = "nrRecords", type = VariableRecord.class)
+        public List<VariableRecord> records;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+    }
+
+    public static class Test10 {
+
+        @BoundList(type = Record.class)
+        public List<Record> records;
+
+    }
+
+    public static class Test11 {
+
+        @BoundNumber(size = "8")
+        public int nrValues;
+
+        @BoundList(size = "nrValues", type = Integer.class)
+        public List<Integer> values;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+    }
+
+    public static class Test12 {
+
+        @BoundNumber(size = "8")
+        public int nrRecords;
+
+        @Parallel
+        @BoundList(size = "nrRecords", type = Record.class)
+        public List<Record> records;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+    }
+
+    public static class Test13 {
+
+        @BoundNumber(size = "24")
+        public int nrRecords;
+
+        @BoundNumber(size = "8")
+        public int width;
+
+        @Parallel(threshold = 16)
+        @BoundList(size = "nrRecords", type = Entry.class)
+        public List<Entry> records;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+        public static class Entry {
+
+            @BoundNumber(size = "24")
+            public int id;
+
+            @BoundString(size = "outer.width")
+            public String value;
+
+        }
+
+    }
+
+    public static class Test14 {
+
+        @BoundNumber(size = "16")
+        public int nrRecords;
+
+        @Parallel(threshold = 16)
+        @BoundList(size = "nrRecords", type = Tagged.class)
+        public List<Tagged> records;
+
+        public static class Tagged {
+
+            @BoundString(size = "1", match = "t")
+            public String tag;
+
+        }
+
+    }
+
+    public static class Test15 {
+
+        @BoundNumber(size = "8")
+        public int width;
+
+        @BoundList(type = Entry.class)
+        public Iterable<Entry> records;
+
+        public static class Entry {
+
+            @BoundString(size = "outer.width")
+            public String value;
+
+        }
+
+    }
+
+    public static class Test16 {
+
+        @BoundNumber(size = "8")
+        public int nrUncached;
+
+        @BoundList(size = "nrUncached", type = Record.class, cache = BoundList.Caching.NONE)
+        public List<Record> uncached;
+
+        @BoundNumber(size = "8")
+        public int nrRecent;
+
+        @BoundList(size = "nrRecent", type = Record.class, cache = BoundList.Caching.LRU, cacheCapacity = 2)
+        public List<Record> recent;
+
+    }
+
+    public static class VariableRecord {
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundString(size = "length")
+        public String value;
+
+    }
+
+    public static class Record {
+
+        @BoundNumber(size = "16")
+        public int value;
+
+    }
+
 
 }
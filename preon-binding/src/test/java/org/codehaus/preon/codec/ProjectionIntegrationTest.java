@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.CodecConstructionException;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.Projection;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundString;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ProjectionIntegrationTest {
+
+    private static final byte[] RECORD = new byte[]{9, 3, 42, 0, 'a', 'b', 'c', 7};
+
+    @Test
+    public void shouldDecodeAllFieldsWithoutProjection() throws DecodingException {
+        Codec<Record> codec = Codecs.create(Record.class);
+        Record result = Codecs.decode(codec, RECORD);
+        assertThat(result.originalLength, is(9));
+        assertThat(result.includedLength, is(3));
+        assertThat(result.timestamp, is(42));
+        assertThat(result.data, is("abc"));
+        assertThat(result.trailer, is(7));
+    }
+
+    @Test
+    public void shouldDecodeSelectedFieldsOnly() throws DecodingException {
+        Codec<Record> codec = Codecs.create(Record.class, Projection.of("timestamp", "trailer"));
+        Record result = Codecs.decode(codec, RECORD);
+        assertThat(result.originalLength, is(0));
+        assertThat(result.timestamp, is(42));
+        assertThat(result.data, is(nullValue()));
+        assertThat(result.trailer, is(7));
+    }
+
+    @Test
+    public void shouldDecodeFieldsSelectedFieldsDependUpon() throws DecodingException {
+        Codec<Record> codec = Codecs.create(Record.class, Projection.of("data"));
+        Record result = Codecs.decode(codec, RECORD);
+        assertThat(result.includedLength, is(3));
+        assertThat(result.data, is("abc"));
+        assertThat(result.trailer, is(0));
+    }
+
+    @Test(expected = CodecConstructionException.class)
+    public void shouldRejectUnknownFields() {
+        Codecs.create(Record.class, Projection.of("timestamp", "payload"));
+    }
+
+    public static class Record {
+
+        @BoundNumber(size = "8")
+        public int originalLength;
+
+        @BoundNumber(size = "8")
+        public int includedLength;
+
+        @BoundNumber(size = "16")
+        public int timestamp;
+
+        @BoundString(size = "includedLength")
+        public String data;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.annotation.BoundList;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundObject;
+import org.codehaus.preon.annotation.Choices;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SelectFromIntegrationTest {
+
+    @Test
+    public void shouldSelectByPrefixInOrderOfConditions() throws DecodingException {
+        Codec<Message> codec = Codecs.create(Message.class);
+        Message result = Codecs.decode(codec, new byte[]{
+                5,
+                1, 10,
+                2, 20,
+                3, 30,
+                7, 70,
+                9, 90
+        });
+        assertThat(result.parts.get(0).body, instanceOf(First.class));
+        assertThat(result.parts.get(1).body, instanceOf(Second.class));
+        // Conditions are evaluated in order: 'prefix > 2' comes before 'prefix == 3'
+        assertThat(result.parts.get(2).body, instanceOf(Range.class));
+        assertThat(result.parts.get(3).body, instanceOf(Range.class));
+        assertThat(result.parts.get(4).body, instanceOf(Other.class));
+        assertThat(((Range) result.parts.get(3).body).value, is(70));
+    }
+
+    public static class Message {
+
+        @BoundNumber(size = "8")
+        public int count;
+
+        @BoundList(size = "count", type = Part.class)
+        public List<Part> parts;
+
+    }
+
+    public static class Part {
+
+        @BoundObject(selectFrom = @Choices(prefixSize = 8, alternatives = {
+                @Choices.Choice(condition = "prefix == 1", type = First.class),
+                @Choices.Choice(condition = "0x02==prefix", type = Second.class),
+                @Choices.Choice(condition = "prefix > 2 && prefix < 8", type = Range.class),
+                @Choices.Choice(condition = "prefix == 3", type = First.class)
+        }, defaultType = Other.class))
+        public Object body;
+
+    }
+
+    public static class First {
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
+    public static class Second {
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
+    public static class Range {
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
+    public static class Other {
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
+}
@@ -0,0 +1,311 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.Builder;
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.DefaultBuilder;
+import org.codehaus.preon.Projection;
+import org.codehaus.preon.annotation.BoundList;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundObject;
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.annotation.LazyLoading;
+import org.codehaus.preon.annotation.TypePrefix;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SkipIntegrationTest {
+
+    @Test
+    public void shouldSkipFixedSizeWithoutCreatingInstances() throws DecodingException {
+        Codec<FixedSize> codec = Codecs.create(FixedSize.class);
+        BitBuffer buffer = wrap(1, 2, 'a', 'b', 5);
+        CountingBuilder builder = new CountingBuilder();
+        codec.skip(buffer, null, builder);
+        assertThat(buffer.getBitPos(), is(32L));
+        assertThat(builder.created, is(0));
+    }
+
+    @Test
+    public void shouldLoadOnlyWhatDeterminesTheSize() throws DecodingException {
+        Codec<LengthPrefixed> codec = Codecs.create(LengthPrefixed.class);
+        BitBuffer buffer = wrap(3, 'a', 'b', 'c', 7, 9);
+        CountingBuilder builder = new CountingBuilder();
+        codec.skip(buffer, null, builder);
+        assertThat(buffer.getBitPos(), is(40L));
+        assertThat(builder.created, is(1));
+        assertThat(buffer.readAsInt(8), is(9));
+    }
+
+    @Test
+    public void shouldSkipNestedValuesWithoutCreatingOuterInstance() throws DecodingException {
+        Codec<Pair> codec = Codecs.create(Pair.class);
+        BitBuffer buffer = wrap(1, 'a', 2, 2, 'b', 'c', 3, 4);
+        CountingBuilder builder = new CountingBuilder();
+        codec.skip(buffer, null, builder);
+        assertThat(buffer.getBitPos(), is(56L));
+        assertThat(builder.created, is(2));
+    }
+
+    @Test
+    public void shouldSkipNullTerminatedStrings() throws DecodingException {
+        Codec<Named> codec = Codecs.create(Named.class);
+        BitBuffer buffer = wrap('f', 'o', 'o', 0, 4, 5);
+        CountingBuilder builder = new CountingBuilder();
+        codec.skip(buffer, null, builder);
+        assertThat(buffer.getBitPos(), is(40L));
+        assertThat(builder.created, is(0));
+    }
+
+    @Test
+    public void shouldDecodeAfterSkipping() throws DecodingException {
+        Codec<LengthPrefixed> codec = Codecs.create(LengthPrefixed.class);
+        BitBuffer buffer = wrap(1, 'a', 2, 2, 'b', 'c', 3);
+        Codecs.skip(codec, buffer);
+        LengthPrefixed result = Codecs.decode(codec, buffer, null, null);
+        assertThat(result.value, is("bc"));
+        assertThat(result.trailer, is(3));
+    }
+
+    @Test
+    public void shouldLazilyLoadValuesOfDataDependentSize() throws DecodingException {
+        Codec<Lazy> codec = Codecs.create(Lazy.class);
+        Lazy result = Codecs.decode(codec, (byte) 2, (byte) 'a', (byte) 'b', (byte) 3, (byte) 4);
+        assertThat(result.after, is(4));
+        assertThat(result.value.getValue(), is("ab"));
+    }
+
+    @Test
+    public void shouldLoadLazilyWithoutMovingTheBuffer() throws DecodingException {
+        Codec<Lazy> codec = Codecs.create(Lazy.class);
+        BitBuffer buffer = wrap(1, 'a', 9, 5, 2, 'b', 'c', 8, 6);
+        Lazy first = Codecs.decode(codec, buffer, null, null);
+        assertThat(buffer.getBitPos(), is(32L));
+        assertThat(first.value.getValue(), is("a"));
+        assertThat(buffer.getBitPos(), is(32L));
+        Lazy second = Codecs.decode(codec, buffer, null, null);
+        assertThat(second.value.getValue(), is("bc"));
+        assertThat(second.after, is(6));
+    }
+
+    @Test
+    public void shouldSkipToWhereDecodingStops() throws DecodingException {
+        byte[] data = {1, 'a', 1, 'b', 2, 'c', 7};
+        Tagged decoded = Codecs.decode(Codecs.create(Tagged.class), data);
+        assertThat(decoded.elements.size(), is(2));
+        assertThat(decoded.trailer, is(2));
+        Tagged projected = Codecs.decode(Codecs.create(Tagged.class, Projection.of("trailer")), data);
+        assertThat(projected.trailer, is(2));
+    }
+
+    @Test(expected = DecodingException.class)
+    public void shouldFailToSkipMismatchingValues() throws DecodingException {
+        Codecs.create(TaggedElement.class).skip(wrap(2, 'c'), null, new DefaultBuilder());
+    }
+
+    @Test
+    public void shouldSkipSelectedType() throws DecodingException {
+        BitBuffer buffer = wrap(2, 7, 3);
+        Codecs.create(Choice.class).skip(buffer, null, new DefaultBuilder());
+        assertThat(buffer.getBitPos(), is(16L));
+    }
+
+    @Test(expected = DecodingException.class)
+    public void shouldFailToSkipUnknownTypePrefix() throws DecodingException {
+        Codecs.create(Choice.class).skip(wrap(9, 7), null, new DefaultBuilder());
+    }
+
+    @Test
+    public void shouldStopBeforeTruncatedLastElement() throws DecodingException {
+        Codec<Entries> codec = Codecs.create(Entries.class);
+        BitBuffer buffer = wrap(2, 'a', 'b', 5, 'x');
+        codec.skip(buffer, null, new DefaultBuilder());
+        assertThat(buffer.getBitPos(), is(24L));
+        buffer.setBitPos(0);
+        assertThat(Codecs.decode(codec, buffer, null, null).entries.size(), is(1));
+        assertThat(buffer.getBitPos(), is(24L));
+    }
+
+    private static BitBuffer wrap(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return new DefaultBitBuffer(ByteBuffer.wrap(bytes));
+    }
+
+    private static class CountingBuilder implements Builder {
+
+        private final Builder delegate = new DefaultBuilder();
+
+        private int created;
+
+        public <T> T create(Class<T> type) throws InstantiationException, IllegalAccessException {
+            created++;
+            return delegate.create(type);
+        }
+
+    }
+
+    public static class FixedSize {
+
+        @BoundNumber(size = "8")
+        public int first;
+
+        @BoundNumber(size = "8")
+        public int second;
+
+        @BoundString(size = "2")
+        public String value;
+
+    }
+
+    public static class LengthPrefixed {
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundString(size = "length")
+        public String value;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+        public String getValue() {
+            return value;
+        }
+
+    }
+
+    public static class Entry {
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundString(size = "length")
+        public String value;
+
+    }
+
+    public static class Entries {
+
+        @BoundList(type = Entry.class)
+        public List<Entry> entries;
+
+    }
+
+    public static class Pair {
+
+        @BoundObject
+        public LengthPrefixed first;
+
+        @BoundObject
+        public LengthPrefixed second;
+
+    }
+
+    public static class Named {
+
+        @BoundString
+        public String name;
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
+    public static class TaggedElement {
+
+        @BoundNumber(size = "8", match = "1")
+        public int tag;
+
+        @BoundNumber(size = "8")
+        public int value;
+
+    }
+
+    public static class Tagged {
+
+        @BoundList(type = TaggedElement.class)
+        public List<TaggedElement> elements;
+
+        @BoundNumber(size = "8")
+        public int trailer;
+
+    }
+
+    public static class Choice {
+
+        @BoundObject(types = {OptionA.class, OptionB.class})
+        public Object value;
+
+    }
+
+    @TypePrefix(size = 8, value = "1")
+    public static class OptionA {
+
+        @BoundNumber(size = "8")
+        public int a;
+
+    }
+
+    @TypePrefix(size = 8, value = "2")
+    public static class OptionB {
+
+        @BoundNumber(size = "8")
+        public int b;
+
+    }
+
+    public static class Lazy {
+
+        @LazyLoading
+        @BoundObject
+        public LengthPrefixed value;
+
+        @BoundNumber(size = "8")
+        public int after;
+
+    }
+
+}
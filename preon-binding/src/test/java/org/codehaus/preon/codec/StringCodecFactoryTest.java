@@ -49,6 +49,7 @@ import org.codehaus.preon.annotation.BoundString;
 import org.codehaus.preon.annotation.BoundString.Encoding;
 import org.codehaus.preon.annotation.BoundString.NullConverter;
 import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
 
 import java.nio.ByteBuffer;
 
@@ -72,7 +73,6 @@ public class StringCodecFactoryTest extends TestCase {
     public void setUp() {
         settings = createMock(BoundString.class);
         metadata = createMock(AnnotatedElement.class);
-        buffer = createMock(BitBuffer.class);
         context = createMock(ResolverContext.class);
         builder = createMock(Builder.class);
         resolver = createMock(Resolver.class);
@@ -84,9 +84,8 @@ public class StringCodecFactoryTest extends TestCase {
         expect(settings.size()).andReturn("2").anyTimes();
         expect(settings.converter()).andStubReturn(NullConverter.class);
         expect(settings.match()).andReturn("");
-        expect(buffer.readAsByte(8)).andReturn((byte) 'b');
-		expect(buffer.readAsByte(8)).andReturn((byte) 'm');
-        replay(settings, metadata, buffer, context, resolver);
+        buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[]{'b', 'm'}));
+        replay(settings, metadata, context, resolver);
 
         StringCodecFactory factory = new StringCodecFactory();
         Codec<String> codec = factory.create(metadata, String.class, context);
@@ -95,7 +94,7 @@ public class StringCodecFactoryTest extends TestCase {
         assertNotNull(result);
         assertEquals("bm", result);
 
-        verify(settings, metadata, buffer, context, resolver);
+        verify(settings, metadata, context, resolver);
     }
 
     public void testMatching() throws DecodingException {
@@ -104,9 +103,8 @@ public class StringCodecFactoryTest extends TestCase {
         expect(settings.size()).andReturn("2").anyTimes();
         expect(settings.converter()).andStubReturn(NullConverter.class);
         expect(settings.match()).andReturn("fo");
-        expect(buffer.readAsByte(8)).andReturn((byte) 'b');
-		expect(buffer.readAsByte(8)).andReturn((byte) 'm');
-        replay(settings, metadata, buffer, context, resolver);
+        buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[]{'b', 'm'}));
+        replay(settings, metadata, context, resolver);
         StringCodecFactory factory = new StringCodecFactory();
         Codec<String> codec = factory.create(metadata, String.class, context);
         // Null resolver, since the resolver isn't used (yet)
@@ -116,7 +114,7 @@ public class StringCodecFactoryTest extends TestCase {
         } catch (DecodingException de) {
             assertEquals(IllegalStateException.class, de.getCause().getClass());
         }
-        verify(settings, metadata, buffer, context, resolver);
+        verify(settings, metadata, context, resolver);
     }
 
     public void testNullTerminatedString() throws DecodingException {
@@ -124,15 +122,14 @@ public class StringCodecFactoryTest extends TestCase {
         expect(settings.encoding()).andReturn(Encoding.ASCII);
         expect(settings.size()).andReturn("").anyTimes();
         expect(settings.converter()).andStubReturn(NullConverter.class);
-		expect(buffer.readAsByte(8)).andReturn((byte) 'b');
-		expect(buffer.readAsByte(8)).andReturn((byte) 'm');
-		expect(buffer.readAsByte(8)).andReturn((byte) 0);
-		expect(settings.match()).andReturn("");
-        replay(settings, buffer, metadata, context, resolver);
+        buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[]{'b', 'm', 0, 'x'}));
+        expect(settings.match()).andReturn("");
+        replay(settings, metadata, context, resolver);
         StringCodecFactory factory = new StringCodecFactory();
         Codec<String> codec = factory.create(metadata, String.class, context);
         assertEquals("bm", codec.decode(buffer, resolver, builder));
-        verify(settings, metadata, buffer, context, resolver);
+        assertEquals(24, buffer.getBitPos());
+        verify(settings, metadata, context, resolver);
     }
 
     /* public void testDecodeASCII() throws UnsupportedEncodingException {
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.codec;
+
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.BitBufferUnderflowException;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
+public class StringDecodingTest {
+
+    private static final BoundString.ByteConverter IDENTITY = new BoundString.NullConverter();
+
+    @Test
+    public void shouldFindNullByteBeyondFirstWords() {
+        byte[] bytes = "abcdefghijklmnopqrstu\0vw".getBytes();
+        for (int offset = 0; offset < 8; offset++) {
+            ByteBuffer view = ByteBuffer.wrap(bytes);
+            view.position(offset);
+            assertEquals(21 - offset, StringDecoding.indexOfNull(view, IDENTITY));
+        }
+        assertEquals(-1, StringDecoding.indexOfNull(ByteBuffer.wrap("abcdefghij".getBytes()), IDENTITY));
+    }
+
+    @Test
+    public void shouldNotMistakeHighBytesForNull() {
+        byte[] bytes = {(byte) 0x80, (byte) 0x81, 1, (byte) 0xff, 0x7f, (byte) 0x80, 1, 1, 0};
+        assertEquals(8, StringDecoding.indexOfNull(ByteBuffer.wrap(bytes), IDENTITY));
+    }
+
+    @Test
+    public void shouldDecodeUtf8InBulk() throws Exception {
+        String text = "na\u00efve caf\u00e9 \u20ac";
+        NullTerminatedStringCodec codec =
+                new NullTerminatedStringCodec(Charset.forName("UTF-8"), "", IDENTITY);
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap((text + "\0" + text + "\0").getBytes("UTF-8")));
+        assertEquals(text, codec.decode(buffer, null, null));
+        assertEquals(text, codec.decode(buffer, null, null));
+        assertEquals(buffer.getBitBufBitSize(), buffer.getBitPos());
+    }
+
+    @Test
+    public void shouldDecodeFromUnalignedPosition() throws Exception {
+        NullTerminatedStringCodec codec =
+                new NullTerminatedStringCodec(Charset.forName("US-ASCII"), "", IDENTITY);
+        // "ab\0" shifted by four bits
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[]{0x06, 0x16, 0x20, 0x00}));
+        buffer.setBitPos(4);
+        assertEquals("ab", codec.decode(buffer, null, null));
+        assertEquals(28, buffer.getBitPos());
+    }
+
+    @Test
+    public void shouldConvertBytesBeforeLookingForNull() throws Exception {
+        BoundString.ByteConverter inverting = new BoundString.ByteConverter() {
+            public byte convert(byte in) {
+                return (byte) ~in;
+            }
+
+            public byte revert(byte in) {
+                return (byte) ~in;
+            }
+
+            public String getDescription() {
+                return "";
+            }
+        };
+        NullTerminatedStringCodec codec =
+                new NullTerminatedStringCodec(Charset.forName("ISO-8859-1"), "", inverting);
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[]{~'o', ~'k', ~0, 0}));
+        assertEquals("ok", codec.decode(buffer, null, null));
+        assertEquals(24, buffer.getBitPos());
+    }
+
+    @Test(expected = BitBufferUnderflowException.class)
+    public void shouldFailWithoutNullByte() throws Exception {
+        NullTerminatedStringCodec codec =
+                new NullTerminatedStringCodec(Charset.forName("US-ASCII"), "", IDENTITY);
+        codec.decode(new DefaultBitBuffer(ByteBuffer.wrap("unterminated".getBytes())), null, null);
+    }
+
+    @Test
+    public void shouldDecodeDirectBuffers() throws Exception {
+        ByteBuffer direct = ByteBuffer.allocateDirect(6);
+        direct.put("hello\0".getBytes());
+        direct.rewind();
+        NullTerminatedStringCodec codec =
+                new NullTerminatedStringCodec(Charset.forName("ISO-8859-1"), "", IDENTITY);
+        assertEquals("hello", codec.decode(new DefaultBitBuffer(direct), null, null));
+    }
+
+    @Test
+    public void shouldDecodeMultiByteEncodingsCharacterByCharacter() throws Exception {
+        NullTerminatedStringCodec codec =
+                new NullTerminatedStringCodec(Charset.forName("UTF-16BE"), "", IDENTITY);
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap("\u0100x\0".getBytes("UTF-16BE")));
+        assertEquals("\u0100x", codec.decode(buffer, null, null));
+        assertEquals(48, buffer.getBitPos());
+    }
+
+}
@@ -85,7 +85,28 @@ public class TypePrefixSelectorFactoryTest extends TestCase {
         codecs.add(codec1);
         codecs.add(codec2);
         CodecSelector selector = factory.create(context, codecs);
-        selector.select(bitBuffer, resolver);
+        assertSame(codec1, selector.select(bitBuffer, resolver));
+        verify(context, codec1, codec2, resolver, bitBuffer);
+    }
+
+    public void testLargePrefixes() throws DecodingException {
+        expect(codec1.getTypes()).andReturn(new Class<?>[]{Test5.class});
+        expect(codec2.getTypes()).andReturn(new Class<?>[]{Test6.class});
+        expect(bitBuffer.readAsLong(32, ByteOrder.LittleEndian)).andReturn(70000L);
+        expect(bitBuffer.readAsLong(32, ByteOrder.LittleEndian)).andReturn(5L);
+        replay(context, codec1, codec2, resolver, bitBuffer);
+        CodecSelectorFactory factory = new TypePrefixSelectorFactory();
+        List<Codec<?>> codecs = new ArrayList<Codec<?>>();
+        codecs.add(codec1);
+        codecs.add(codec2);
+        CodecSelector selector = factory.create(context, codecs);
+        assertSame(codec2, selector.select(bitBuffer, resolver));
+        try {
+            selector.select(bitBuffer, resolver);
+            fail();
+        } catch (DecodingException de) {
+            // That's ok.
+        }
         verify(context, codec1, codec2, resolver, bitBuffer);
     }
 
@@ -126,4 +147,14 @@ public class TypePrefixSelectorFactoryTest extends TestCase {
 
     }
 
+    @TypePrefix(value = "4096", size = 32)
+    private static class Test5 {
+
+    }
+
+    @TypePrefix(value = "70000", size = 32)
+    private static class Test6 {
+
+    }
+
 }
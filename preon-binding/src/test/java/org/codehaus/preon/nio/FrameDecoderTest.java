@@ -0,0 +1,337 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.nio;
+
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundObject;
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.annotation.LazyLoading;
+import org.codehaus.preon.buffer.ByteOrder;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class FrameDecoderTest {
+
+    private static final FrameLength LENGTH = FrameLengths.field(0, 2, ByteOrder.BigEndian, 0);
+
+    @Test
+    public void shouldDecodeFramesReceivedOverLoopback() throws Exception {
+        final byte[] data = createFrames(2000);
+        ServerSocketChannel server = ServerSocketChannel.open();
+        Selector selector = Selector.open();
+        try {
+            server.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            final InetSocketAddress address = (InetSocketAddress) server.socket().getLocalSocketAddress();
+            Thread client = new Thread() {
+                public void run() {
+                    try {
+                        SocketChannel channel = SocketChannel.open(address);
+                        try {
+                            Random random = new Random(0);
+                            for (int offset = 0; offset < data.length; ) {
+                                int length = Math.min(data.length - offset, 1 + random.nextInt(1500));
+                                channel.write(ByteBuffer.wrap(data, offset, length));
+                                offset += length;
+                            }
+                        } finally {
+                            channel.close();
+                        }
+                    } catch (IOException ioe) {
+                        throw new RuntimeException(ioe);
+                    }
+                }
+            };
+            client.start();
+            SocketChannel channel = server.accept();
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            BufferPool pool = new BufferPool(4096, 4);
+            Collector collector = new Collector(10);
+            FrameDecoder<Header> decoder = new FrameDecoder<Header>(Codecs.create(Header.class), LENGTH, pool,
+                    collector);
+            long deadline = System.currentTimeMillis() + 10000;
+            int read = 0;
+            while (read >= 0) {
+                if (decoder.isPaused()) {
+                    assertThat(key.interestOps() & SelectionKey.OP_READ, is(0));
+                    decoder.resume();
+                } else if (selector.select(1000) == 0) {
+                    if (System.currentTimeMillis() > deadline) {
+                        fail("No data received.");
+                    }
+                } else {
+                    deadline = System.currentTimeMillis() + 10000;
+                    selector.selectedKeys().clear();
+                    read = decoder.read(key);
+                }
+            }
+            channel.close();
+            decoder.close();
+            client.join();
+            assertFrames(collector, 2000);
+            assertThat(decoder.getBytesPending(), is(0));
+            assertThat(pool.size(), is(1));
+        } finally {
+            selector.close();
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldSuspendReadingWhenHandlerAsks() throws IOException, DecodingException {
+        Collector collector = new Collector(1);
+        FrameDecoder<Header> decoder = new FrameDecoder<Header>(Codecs.create(Header.class), LENGTH,
+                new BufferPool(4096, 1), collector);
+        ReadableByteChannel channel = new ChunkedChannel(createFrames(3), 4096);
+        assertThat(decoder.read(channel) > 0, is(true));
+        assertThat(collector.sequences.size(), is(1));
+        assertThat(decoder.isPaused(), is(true));
+        assertThat(decoder.read(channel), is(0));
+        decoder.resume();
+        assertThat(collector.sequences.size(), is(2));
+        decoder.resume();
+        assertThat(collector.sequences.size(), is(3));
+        assertThat(decoder.getBytesPending(), is(0));
+        decoder.resume();
+        assertThat(decoder.isPaused(), is(false));
+        assertThat(decoder.read(channel), is(-1));
+        assertFrames(collector, 3);
+    }
+
+    @Test
+    public void shouldDecodeFramesDelimitedByCodec() throws IOException, DecodingException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 500; i++) {
+            byte[] value = Integer.toString(i * 7919).getBytes();
+            out.write(value.length);
+            out.write(value);
+        }
+        final List<String> values = new ArrayList<String>();
+        BufferPool pool = new BufferPool(64, 1);
+        FrameDecoder<Record> decoder = new FrameDecoder<Record>(Codecs.create(Record.class), pool,
+                new FrameHandler<Record>() {
+                    public boolean handle(Record value, ByteBuffer payload) {
+                        assertThat(payload.remaining(), is(0));
+                        values.add(value.value);
+                        return true;
+                    }
+                });
+        ReadableByteChannel channel = new ChunkedChannel(out.toByteArray(), 5);
+        while (decoder.read(channel) >= 0) {
+        }
+        assertThat(values.size(), is(500));
+        for (int i = 0; i < 500; i++) {
+            assertThat(values.get(i), is(Integer.toString(i * 7919)));
+        }
+        assertThat(pool.size(), is(1));
+    }
+
+    @Test
+    public void shouldWaitForDataSkippedByCodec() throws IOException, DecodingException {
+        final List<Integer> values = new ArrayList<Integer>();
+        FrameDecoder<LazyTail> decoder = new FrameDecoder<LazyTail>(Codecs.create(LazyTail.class),
+                new BufferPool(16, 1), new FrameHandler<LazyTail>() {
+                    public boolean handle(LazyTail value, ByteBuffer payload) {
+                        values.add(value.head);
+                        values.add(value.tail.getSequence());
+                        return true;
+                    }
+                });
+        ReadableByteChannel channel = new ChunkedChannel(new byte[]{1, 0, 4, 0, 7, 2, 0, 4, 0, 8}, 3);
+        while (decoder.read(channel) >= 0) {
+        }
+        assertThat(values, is(Arrays.asList(1, 7, 2, 8)));
+    }
+
+    @Test(expected = DecodingException.class)
+    public void shouldRejectFramesExceedingCapacity() throws IOException, DecodingException {
+        FrameDecoder<Header> decoder = new FrameDecoder<Header>(Codecs.create(Header.class), LENGTH,
+                new BufferPool(16, 1), new Collector(0));
+        decoder.read(new ChunkedChannel(new byte[]{0, 17, 0, 0}, 16));
+    }
+
+    private static void assertFrames(Collector collector, int count) {
+        assertThat(collector.sequences.size(), is(count));
+        for (int i = 0; i < count; i++) {
+            assertThat(collector.sequences.get(i), is(i));
+            assertThat(collector.payloads.get(i), is(i % 251));
+        }
+    }
+
+    /**
+     * Creates frames holding a length, a sequence number, and a payload of a length depending on the sequence number,
+     * in which every byte holds the sequence number modulo 251.
+     */
+    private static byte[] createFrames(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            int length = 4 + (i * 31) % 1000;
+            out.write(length >> 8);
+            out.write(length);
+            out.write(i >> 8);
+            out.write(i);
+            for (int j = 4; j < length; j++) {
+                out.write(i % 251);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Collects sequence numbers and checks payloads, asking for reading to be suspended after every so many frames.
+     */
+    private static class Collector implements FrameHandler<Header> {
+
+        private final int interval;
+
+        private final List<Integer> sequences = new ArrayList<Integer>();
+
+        private final List<Integer> payloads = new ArrayList<Integer>();
+
+        public Collector(int interval) {
+            this.interval = interval;
+        }
+
+        public boolean handle(Header value, ByteBuffer payload) {
+            assertThat(payload.isReadOnly(), is(true));
+            assertThat(payload.remaining(), is(value.length - 4));
+            int content = value.sequence % 251;
+            while (payload.hasRemaining()) {
+                if ((payload.get() & 0xff) != content) {
+                    content = -1;
+                }
+            }
+            sequences.add(value.sequence);
+            payloads.add(content);
+            return interval == 0 || sequences.size() % interval != 0;
+        }
+
+    }
+
+    /**
+     * A channel returning data in chunks of a given size, alternated with reads returning nothing, as a non-blocking
+     * channel would.
+     */
+    private static class ChunkedChannel implements ReadableByteChannel {
+
+        private final ByteBuffer data;
+
+        private final int chunk;
+
+        private boolean available = true;
+
+        public ChunkedChannel(byte[] data, int chunk) {
+            this.data = ByteBuffer.wrap(data);
+            this.chunk = chunk;
+        }
+
+        public int read(ByteBuffer destination) {
+            if (!data.hasRemaining()) {
+                return -1;
+            } else if (!available) {
+                available = true;
+                return 0;
+            }
+            available = false;
+            ByteBuffer source = data.slice();
+            source.limit(Math.min(source.remaining(), Math.min(chunk, destination.remaining())));
+            destination.put(source);
+            data.position(data.position() + source.position());
+            return source.position();
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+
+    }
+
+    public static class Header {
+
+        @BoundNumber(size = "16", byteOrder = ByteOrder.BigEndian)
+        public int length;
+
+        @BoundNumber(size = "16", byteOrder = ByteOrder.BigEndian)
+        public int sequence;
+
+        public int getSequence() {
+            return sequence;
+        }
+
+    }
+
+    public static class LazyTail {
+
+        @BoundNumber(size = "8")
+        public int head;
+
+        @LazyLoading
+        @BoundObject
+        public Header tail;
+
+    }
+
+    public static class Record {
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundString(size = "length")
+        public String value;
+
+    }
+
+}
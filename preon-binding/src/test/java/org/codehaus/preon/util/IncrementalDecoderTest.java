@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundObject;
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.annotation.LazyLoading;
+import org.codehaus.preon.buffer.ByteOrder;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IncrementalDecoderTest {
+
+    @Test
+    public void shouldReportMissingBits() throws DecodingException {
+        IncrementalDecoder<Record> decoder = new IncrementalDecoder<Record>(Codecs.create(Record.class));
+        assertThat(decoder.poll() == null, is(true));
+        assertThat(decoder.getBitsRequired(), is(1L));
+        decoder.append(bytes(3, 'a'));
+        assertThat(decoder.poll() == null, is(true));
+        assertThat(decoder.getBitsRequired() > 0, is(true));
+        assertThat(decoder.getBitsRequired() <= 16, is(true));
+        decoder.append(bytes('b', 'c', 2));
+        assertThat(decoder.poll().value, is("abc"));
+        assertThat(decoder.getBitPos(), is(32L));
+        assertThat(decoder.poll() == null, is(true));
+        decoder.append(bytes('d', 'e'));
+        assertThat(decoder.poll().value, is("de"));
+        assertThat(decoder.getBitsAvailable(), is(0L));
+    }
+
+    @Test
+    public void shouldRequireConstantSize() throws DecodingException {
+        IncrementalDecoder<Fixed> decoder = new IncrementalDecoder<Fixed>(Codecs.create(Fixed.class));
+        assertThat(decoder.getBitsRequired(), is(32L));
+        decoder.append(bytes(0, 0, 1));
+        assertThat(decoder.poll() == null, is(true));
+        assertThat(decoder.getBitsRequired(), is(8L));
+        decoder.append(bytes(2));
+        assertThat(decoder.poll().value, is(0x102));
+        assertThat(decoder.getBitsRequired(), is(32L));
+    }
+
+    @Test
+    public void shouldNotSkipBeyondDataReceived() throws DecodingException {
+        IncrementalDecoder<LazyTail> decoder = new IncrementalDecoder<LazyTail>(Codecs.create(LazyTail.class));
+        decoder.append(bytes(7, 0, 0));
+        assertThat(decoder.poll() == null, is(true));
+        assertThat(decoder.getBitsRequired(), is(16L));
+        assertThat(decoder.getBitPos(), is(0L));
+        decoder.append(bytes(1, 2));
+        LazyTail result = decoder.poll();
+        assertThat(result.head, is(7));
+        assertThat(result.tail.getValue(), is(0x102));
+        assertThat(decoder.getBitPos(), is(40L));
+    }
+
+    @Test
+    public void shouldDecodeDataArrivingInPieces() throws DecodingException {
+        List<String> expected = new ArrayList<String>();
+        ByteBuffer data = ByteBuffer.allocate(64 * 1024);
+        for (int i = 0; data.remaining() > 256; i++) {
+            String value = Integer.toString(i * 7919);
+            expected.add(value);
+            data.put((byte) value.length());
+            data.put(value.getBytes());
+        }
+        data.flip();
+        IncrementalDecoder<Record> decoder = new IncrementalDecoder<Record>(Codecs.create(Record.class));
+        List<String> decoded = new ArrayList<String>();
+        for (int piece = 1; data.hasRemaining(); piece = piece % 13 + 1) {
+            ByteBuffer slice = data.slice();
+            slice.limit(Math.min(piece, slice.remaining()));
+            data.position(data.position() + slice.remaining());
+            decoder.append(slice);
+            for (Record record = decoder.poll(); record != null; record = decoder.poll()) {
+                decoded.add(record.value);
+            }
+        }
+        assertThat(decoded, is(expected));
+        assertThat(decoder.getBitPos(), is(8L * data.limit()));
+    }
+
+    private static ByteBuffer bytes(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length);
+        for (int value : values) {
+            buffer.put((byte) value);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public static class Record {
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundString(size = "length")
+        public String value;
+
+    }
+
+    public static class LazyTail {
+
+        @BoundNumber(size = "8")
+        public int head;
+
+        @LazyLoading
+        @BoundObject
+        public Fixed tail;
+
+    }
+
+    public static class Fixed {
+
+        @BoundNumber(size = "32", byteOrder = ByteOrder.BigEndian)
+        public int value;
+
+        public int getValue() {
+            return value;
+        }
+
+    }
+
+}
@@ -72,6 +72,7 @@ public class LazyListTest extends TestCase {
 
     public void testTakingElement() throws DecodingException {
         Object value = new Object();
+        expect(buffer.duplicate()).andReturn(buffer);
         buffer.setBitPos(20);
         expect(codec.decode(buffer, resolver, builder)).andReturn(value);
         replay(buffer, codec, resolver, builder, sizeExpr);
@@ -109,6 +110,7 @@ public class LazyListTest extends TestCase {
 
     public void testSubList() throws DecodingException {
         Object value = new Object();
+        expect(buffer.duplicate()).andReturn(buffer);
         buffer.setBitPos(20);
         expect(codec.decode(buffer, resolver, builder)).andReturn(value);
         replay(buffer, codec, resolver, builder, sizeExpr);
@@ -119,12 +121,40 @@ public class LazyListTest extends TestCase {
         verify(buffer, codec, resolver, builder, sizeExpr);
     }
 
+    public void testCachingElements() throws DecodingException {
+        Object value = new Object();
+        expect(buffer.duplicate()).andReturn(buffer);
+        buffer.setBitPos(20);
+        expect(codec.decode(buffer, resolver, builder)).andReturn(value);
+        replay(buffer, codec, resolver, builder, sizeExpr);
+        EvenlyDistributedLazyList<Object> list = new EvenlyDistributedLazyList<Object>(
+                codec, 0, buffer, 10, builder, resolver, 20, ElementCaches.strong(10));
+        assertSame(value, list.get(1));
+        assertSame(value, list.get(1));
+        assertSame(value, list.subList(1, 3).get(0));
+        verify(buffer, codec, resolver, builder, sizeExpr);
+    }
+
+    public void testLruCacheEvictsLeastRecentlyUsed() {
+        ElementCache<Object> cache = ElementCaches.lru(2);
+        Object first = new Object();
+        cache.putIfAbsent(0, first);
+        cache.putIfAbsent(1, new Object());
+        cache.get(0);
+        cache.putIfAbsent(2, new Object());
+        assertSame(first, cache.get(0));
+        assertNull(cache.get(1));
+    }
+
     public void testIterator() throws DecodingException {
         Object value = new Object();
+        expect(buffer.duplicate()).andReturn(buffer);
         buffer.setBitPos(0);
         expect(codec.decode(buffer, resolver, builder)).andReturn(value);
+        expect(buffer.duplicate()).andReturn(buffer);
         buffer.setBitPos(20);
         expect(codec.decode(buffer, resolver, builder)).andReturn(value);
+        expect(buffer.duplicate()).andReturn(buffer);
         buffer.setBitPos(40);
         expect(codec.decode(buffer, resolver, builder)).andReturn(value);
         replay(buffer, codec, resolver, builder, sizeExpr);
@@ -137,4 +167,24 @@ public class LazyListTest extends TestCase {
         verify(buffer, codec, resolver, builder, sizeExpr);
     }
 
+    public void testIteratingUnevenlyDistributedElementsWithoutSkipping() throws DecodingException {
+        Object value = new Object();
+        long[] offsets = {0, 12, 30, 41};
+        for (int i = 0; i < 3; i++) {
+            expect(buffer.duplicate()).andReturn(buffer);
+            buffer.setBitPos(offsets[i]);
+            expect(codec.decode(buffer, resolver, builder)).andReturn(value);
+            expect(buffer.getBitPos()).andReturn(offsets[i + 1]);
+        }
+        replay(buffer, codec, resolver, builder, sizeExpr);
+        UnevenlyDistributedLazyList<Object> list = new UnevenlyDistributedLazyList<Object>(
+                codec, 0, buffer, 3, builder, resolver, ElementCaches.<Object>strong(3));
+        Iterator<Object> iterator = list.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        assertEquals(41L, list.getEnd());
+        verify(buffer, codec, resolver, builder, sizeExpr);
+    }
+
 }
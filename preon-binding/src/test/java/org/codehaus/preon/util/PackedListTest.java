@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.ByteOrder;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PackedListTest {
+
+    @Test
+    public void shouldReadIntegersFromBuffer() {
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[]{(byte) 0x12, (byte) 0x34, (byte) 0x56}));
+        IntList list = IntList.view(buffer, 0, 6, 4, ByteOrder.BigEndian);
+        assertThat(list.size(), is(6));
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, list.toIntArray());
+        assertThat(list.get(5), is(6));
+        assertThat(list, is(Arrays.asList(1, 2, 3, 4, 5, 6)));
+    }
+
+    @Test
+    public void shouldPackIntegers() {
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[]{(byte) 0x12, (byte) 0x34, (byte) 0x56}));
+        IntList list = IntList.view(buffer, 0, 6, 4, ByteOrder.BigEndian).pack();
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, list.toIntArray());
+        assertThat(list.getBitsPerElement(), is(4));
+    }
+
+    @Test
+    public void shouldLeaveBufferPositionAlone() {
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(new byte[]{(byte) 0x12, (byte) 0x34, (byte) 0x56}));
+        buffer.setBitPos(4);
+        IntList list = IntList.view(buffer, 4, 5, 4, ByteOrder.BigEndian);
+        assertThat(list.getInt(4), is(6));
+        assertArrayEquals(new int[]{2, 3, 4, 5, 6}, list.toIntArray());
+        assertArrayEquals(new int[]{2, 3, 4, 5, 6}, list.pack().toIntArray());
+        assertThat(buffer.getBitPos(), is(4L));
+    }
+
+    @Test
+    public void shouldPackValuesCrossingWordBoundaries() {
+        PackedBits bits = new PackedBits(10, 13);
+        for (int i = 0; i < 10; i++) {
+            bits.set(i, 8191 - i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThat(bits.get(i), is(8191L - i));
+        }
+    }
+
+    @Test
+    public void shouldPackLongs() {
+        byte[] data = new byte[24];
+        Arrays.fill(data, (byte) 0xff);
+        data[8] = 1;
+        BitBuffer buffer = new DefaultBitBuffer(ByteBuffer.wrap(data));
+        LongList list = LongList.view(buffer, 0, 3, 64, ByteOrder.LittleEndian).pack();
+        assertThat(list.getLong(0), is(-1L));
+        assertThat(list.getLong(1), is(-255L));
+        assertThat(list.getLong(2), is(-1L));
+    }
+
+}
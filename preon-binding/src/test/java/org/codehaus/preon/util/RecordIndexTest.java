@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.annotation.BoundList;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RecordIndexTest {
+
+    private static final int RECORDS = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File source;
+
+    private File index;
+
+    private Codec<Record> codec;
+
+    @Before
+    public void setUp() throws IOException {
+        source = folder.newFile("records.bin");
+        index = new File(source.getPath() + ".idx");
+        codec = Codecs.create(Record.class);
+        Random random = new Random(RECORDS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < RECORDS; i++) {
+            out.write(i);
+            out.write(i >> 8);
+            out.write(2 * i);
+            out.write((2 * i) >> 8);
+            int length = random.nextInt(16);
+            out.write(length);
+            for (int j = 0; j < length; j++) {
+                out.write(random.nextInt(256));
+            }
+        }
+        FileOutputStream file = new FileOutputStream(source);
+        try {
+            file.write(out.toByteArray());
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void shouldSeekToAnyRecord() throws IOException, DecodingException {
+        buildIndex();
+        RecordIndex recordIndex = RecordIndex.open(index, source);
+        assertThat(recordIndex.size(), is((long) RECORDS));
+        BitBuffer buffer = read();
+        for (int record : new int[] { 0, 1, 1234, RECORDS - 1 }) {
+            recordIndex.seek(buffer, record);
+            assertThat(Codecs.decode(codec, buffer, null, null).sequence, is(record));
+        }
+    }
+
+    @Test
+    public void shouldFindKeyRanges() throws IOException {
+        buildIndex();
+        RecordIndex recordIndex = RecordIndex.open(index, source);
+        assertThat(recordIndex.getKeyCount(), is(2));
+        assertThat(recordIndex.isSorted(0), is(true));
+        assertThat(recordIndex.isSorted(1), is(false));
+        assertThat(recordIndex.getKey(100, 0), is(200L));
+        assertThat(recordIndex.lowerBound(0, 200), is(100L));
+        assertThat(recordIndex.lowerBound(0, 201), is(101L));
+        assertThat(recordIndex.lowerBound(0, -1), is(0L));
+        assertThat(recordIndex.lowerBound(0, Long.MAX_VALUE), is((long) RECORDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectLookupsOfUnsortedKeys() throws IOException {
+        buildIndex();
+        RecordIndex.open(index, source).lowerBound(1, 0);
+    }
+
+    @Test
+    public void shouldNotOpenMissingOrIncompleteIndex() throws IOException {
+        assertThat(RecordIndex.open(index, source), is(nullValue()));
+        RecordIndex.Writer<Record> writer = RecordIndex.writer(index, source);
+        Codecs.indexedStream(codec, read(), writer).forEach(record -> { });
+        assertThat(RecordIndex.open(index, source), is(nullValue()));
+        writer.commit();
+        writer.close();
+        assertThat(RecordIndex.open(index, source).size(), is((long) RECORDS));
+    }
+
+    @Test
+    public void shouldDiscardIndexClosedWithoutCommitting() throws IOException {
+        buildIndex();
+        RecordIndex.Writer<Record> writer = RecordIndex.writer(index, source);
+        Codecs.indexedStream(codec, read(), writer).limit(10).forEach(record -> { });
+        writer.close();
+        assertThat(RecordIndex.open(index, source).size(), is((long) RECORDS));
+        assertThat(new File(index.getPath() + ".tmp").exists(), is(false));
+    }
+
+    @Test
+    public void shouldDetectStaleIndex() throws IOException {
+        buildIndex();
+        assertThat(source.setLastModified(source.lastModified() - 10000), is(true));
+        assertThat(RecordIndex.open(index, source), is(nullValue()));
+        buildIndex();
+        FileOutputStream out = new FileOutputStream(source, true);
+        try {
+            out.write(0);
+        } finally {
+            out.close();
+        }
+        assertThat(RecordIndex.open(index, source), is(nullValue()));
+    }
+
+    private void buildIndex() throws IOException {
+        RecordIndex.Writer<Record> writer = RecordIndex.writer(index, source,
+                record -> record.timestamp, record -> record.length);
+        try {
+            assertThat(Codecs.indexedStream(codec, read(), writer).count(), is((long) RECORDS));
+            writer.commit();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private BitBuffer read() throws IOException {
+        return new DefaultBitBuffer(ByteBuffer.wrap(Files.readAllBytes(source.toPath())));
+    }
+
+    public static class Record {
+
+        @BoundNumber(size = "16")
+        public int sequence;
+
+        @BoundNumber(size = "16")
+        public int timestamp;
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundList(size = "length")
+        public byte[] payload;
+
+    }
+
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.util;
+
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.DefaultBuilder;
+import org.codehaus.preon.annotation.BoundList;
+import org.codehaus.preon.annotation.BoundNumber;
+import org.codehaus.preon.annotation.BoundString;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.buffer.DefaultBitBuffer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RecordSpliteratorTest {
+
+    @Test
+    public void shouldStreamRecordsUntilEndOfBuffer() {
+        Codec<Record> codec = Codecs.create(Record.class);
+        BitBuffer buffer = wrap(1, 'a', 3, 'b', 'c', 'd', 2, 'e', 'f');
+        List<String> values = Codecs.stream(codec, buffer).map(record -> record.value).collect(Collectors.toList());
+        assertThat(values.size(), is(3));
+        assertThat(values.get(0), is("a"));
+        assertThat(values.get(1), is("bcd"));
+        assertThat(values.get(2), is("ef"));
+        assertThat(buffer.getBitPos(), is(0L));
+    }
+
+    @Test
+    public void shouldStartAtCurrentPosition() {
+        Codec<Record> codec = Codecs.create(Record.class);
+        BitBuffer buffer = wrap(9, 9, 1, 'a', 1, 'b');
+        buffer.setBitPos(16);
+        Iterator<Record> iterator = Codecs.iterator(codec, buffer);
+        assertThat(iterator.next().value, is("a"));
+        assertThat(iterator.next().value, is("b"));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void shouldEndAtTruncatedRecord() {
+        Codec<Record> codec = Codecs.create(Record.class);
+        RecordSpliterator<Record> spliterator = new RecordSpliterator<Record>(codec, wrap(1, 'a', 3, 'b'),
+                new DefaultBuilder(), null);
+        assertThat(spliterator.tryAdvance(record -> { }), is(true));
+        assertThat(spliterator.tryAdvance(record -> fail("Truncated record should not be decoded.")), is(false));
+        assertThat(spliterator.getBitPos(), is(16L));
+        assertThat(spliterator.tryAdvance(record -> fail("Truncated record should not be decoded.")), is(false));
+    }
+
+    @Test
+    public void shouldNotAttemptRecordsThatCannotFit() {
+        Codec<Fixed> codec = Codecs.create(Fixed.class);
+        assertThat(Codecs.stream(codec, wrap(1, 0, 2, 0, 3)).count(), is(2L));
+    }
+
+    @Test
+    public void shouldReportDecodingFailures() {
+        Codec<Tagged> codec = Codecs.create(Tagged.class);
+        Iterator<Tagged> iterator = Codecs.iterator(codec, wrap('t', 'x'));
+        iterator.next();
+        try {
+            iterator.next();
+            fail("Expected the mismatching tag to be reported.");
+        } catch (RuntimeException re) {
+            assertThat(re.getCause() instanceof DecodingException, is(true));
+        }
+    }
+
+    @Test
+    public void shouldNotSplit() {
+        Codec<Record> codec = Codecs.create(Record.class);
+        Spliterator<Record> spliterator = new RecordSpliterator<Record>(codec, wrap(1, 'a'),
+                new DefaultBuilder(), null);
+        assertThat(spliterator.trySplit() == null, is(true));
+        assertThat(spliterator.hasCharacteristics(Spliterator.ORDERED), is(true));
+    }
+
+    @Test
+    public void shouldSplitAtSyncPattern() {
+        BitBuffer buffer = createFramed(20000);
+        Spliterator<Framed> spliterator = new RecordSpliterator<Framed>(Codecs.create(Framed.class), buffer, 0,
+                buffer.getBitBufBitSize(), new DefaultBuilder(), null, Synchronizers.pattern(0xa5, 8), 4, 8 * 1024);
+        assertSequence(StreamSupport.stream(spliterator, true).mapToInt(framed -> framed.sequence).toArray(), 20000);
+    }
+
+    @Test
+    public void shouldSplitLengthFramedRecordsByTrialDecoding() {
+        BitBuffer buffer = createFramed(20000);
+        Spliterator<Framed> spliterator = new RecordSpliterator<Framed>(Codecs.create(Framed.class), buffer, 0,
+                buffer.getBitBufBitSize(), new DefaultBuilder(), null, Synchronizers.aligned(8), 4, 8 * 1024);
+        Spliterator<Framed> prefix = spliterator.trySplit();
+        assertThat(prefix == null, is(false));
+        int split = (int) StreamSupport.stream(prefix, false).count();
+        assertSequence(StreamSupport.stream(spliterator, true).mapToInt(framed -> framed.sequence).toArray(),
+                split, 20000);
+    }
+
+    @Test
+    public void shouldFailIfRecordsCrossSplit() {
+        // A single record, holding bytes that can be decoded as records too.
+        int[] values = new int[21];
+        values[0] = 20;
+        for (int i = 1; i < values.length; i++) {
+            values[i] = i % 2 == 1 ? 1 : 'x';
+        }
+        BitBuffer buffer = wrap(values);
+        Spliterator<Record> spliterator = new RecordSpliterator<Record>(Codecs.create(Record.class), buffer, 0,
+                buffer.getBitBufBitSize(), new DefaultBuilder(), null, Synchronizers.aligned(8), 1, 16);
+        Spliterator<Record> prefix = spliterator.trySplit();
+        assertThat(prefix == null, is(false));
+        try {
+            prefix.tryAdvance(record -> fail("Record crossing the split should not be decoded."));
+            fail("Expected the misaligned split to be reported.");
+        } catch (RuntimeException re) {
+            assertThat(re.getCause() instanceof DecodingException, is(true));
+        }
+    }
+
+    @Test
+    public void shouldStreamInParallel() {
+        assertSequence(Codecs.parallelStream(Codecs.create(Framed.class), createFramed(5000),
+                Synchronizers.pattern(0xa5, 8)).mapToInt(framed -> framed.sequence).toArray(), 5000);
+    }
+
+    @Test
+    public void shouldNotSplitWithoutCandidates() {
+        BitBuffer buffer = createFramed(2000);
+        Spliterator<Framed> spliterator = new RecordSpliterator<Framed>(Codecs.create(Framed.class), buffer, 0,
+                buffer.getBitBufBitSize(), new DefaultBuilder(), null, Synchronizers.pattern(0x5a, 8), 4, 8 * 1024);
+        assertThat(spliterator.trySplit() == null, is(true));
+    }
+
+    @Test
+    public void shouldFindPattern() {
+        BitBuffer buffer = wrap(0x00, 0x7f, 0xff, 0xe0);
+        assertThat(Synchronizers.pattern(0x7ff, 11).find(buffer, 0, 32), is(16L));
+        assertThat(Synchronizers.pattern(0x7ff, 11, 1).find(buffer, 0, 32), is(9L));
+        assertThat(Synchronizers.pattern(0x7ff, 11).find(buffer, 17, 32), is(-1L));
+        assertThat(Synchronizers.aligned(8).find(buffer, 9, 32), is(16L));
+    }
+
+    private static BitBuffer createFramed(int count) {
+        Random random = new Random(count);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            out.write(0xa5);
+            out.write(i);
+            out.write(i >> 8);
+            out.write(i >> 16);
+            out.write(i >> 24);
+            int length = random.nextInt(24);
+            out.write(length);
+            for (int j = 0; j < length; j++) {
+                // Payloads hold the sync pattern every now and then, to be rejected by trial-decoding.
+                out.write(random.nextInt(256));
+            }
+        }
+        return new DefaultBitBuffer(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private static void assertSequence(int[] sequence, int count) {
+        assertSequence(sequence, 0, count);
+    }
+
+    private static void assertSequence(int[] sequence, int from, int to) {
+        assertThat(sequence.length, is(to - from));
+        for (int i = 0; i < sequence.length; i++) {
+            assertThat(sequence[i], is(from + i));
+        }
+    }
+
+    private static BitBuffer wrap(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return new DefaultBitBuffer(ByteBuffer.wrap(bytes));
+    }
+
+    public static class Record {
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundString(size = "length")
+        public String value;
+
+    }
+
+    public static class Fixed {
+
+        @BoundNumber(size = "16")
+        public int value;
+
+    }
+
+    public static class Framed {
+
+        @BoundNumber(size = "8", match = "165")
+        public int sync;
+
+        @BoundNumber(size = "32")
+        public int sequence;
+
+        @BoundNumber(size = "8")
+        public int length;
+
+        @BoundList(size = "length")
+        public byte[] payload;
+
+    }
+
+    public static class Tagged {
+
+        @BoundString(size = "1", match = "t")
+        public String tag;
+
+    }
+
+}
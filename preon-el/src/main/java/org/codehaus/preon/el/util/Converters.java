@@ -55,6 +55,9 @@ public class Converters {
     }
 
     public static <T> int toInt(T value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
         Converter<T, Integer> converter = (Converter<T, Integer>) get(value.getClass(),
                 Integer.class);
         return converter.convert(value);
@@ -64,6 +64,10 @@ public class EmittingBinding implements Binding {
         emitter.markEndLoad();
     }
 
+    public void skip(Object object, BitBuffer buffer, Resolver resolver, Builder builder) throws DecodingException {
+        binding.skip(object, buffer, resolver, builder);
+    }
+
     public <V extends SimpleContents<?>> V describe(V contents) {
         return binding.describe(contents);
     }
@@ -90,6 +90,12 @@ public class EmittingCodec<T> implements Codec<T> {
         return result;
     }
 
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)
+            throws DecodingException {
+        // Nothing gets decoded, so there is nothing to emit.
+        codec.skip(buffer, resolver, builder);
+    }
+
     public void encode(T object, BitChannel channel, Resolver resolver) {
         throw new UnsupportedOperationException();
     }
@@ -32,11 +32,36 @@
  */
 package org.codehaus.preon.buffer;
 
+/**
+ * The exception thrown when attempting to read beyond the end of a {@link BitBuffer}. It tells where the read that
+ * failed started and how many bits it attempted to read, which allows callers receiving data in pieces to determine
+ * how much more data is required at least.
+ */
 @SuppressWarnings("serial")
 public class BitBufferUnderflowException extends BitBufferException {
 
+    private final long pos;
+
+    private final long bits;
+
     public BitBufferUnderflowException(long pos, long bits) {
         super("Failed to read " + bits + " bits from position " + pos);
+        this.pos = pos;
+        this.bits = bits;
+    }
+
+    /**
+     * Returns the position from which the read that failed started, relative to the {@link BitBuffer} read from.
+     */
+    public long getBitPos() {
+        return pos;
+    }
+
+    /**
+     * Returns the number of bits the read that failed attempted to read.
+     */
+    public long getBitsRequested() {
+        return bits;
     }
 
 }
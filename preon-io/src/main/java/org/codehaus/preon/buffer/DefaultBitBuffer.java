@@ -612,16 +612,11 @@ public class DefaultBitBuffer implements BitBuffer {
     private ByteBuffer slice(ByteBuffer byteBuffer, int slicePosition,
                              int length) {
 
-        int currentBufferPosition = this.byteBuffer.position();
-        int currentBufferLimit = this.byteBuffer.limit();
-
-        this.byteBuffer.position(slicePosition).limit(slicePosition + length);
-
-        ByteBuffer slicedByteBuffer = this.byteBuffer.slice();
-
-		// Revert the buffer in its original state
-		this.byteBuffer.position(currentBufferPosition).limit(
-				currentBufferLimit);
+        // Slicing a duplicate leaves the original buffer untouched, even momentarily, so that other views sharing its
+        // content never observe a modified position or limit.
+        ByteBuffer duplicate = byteBuffer.duplicate();
+        duplicate.limit(slicePosition + length).position(slicePosition);
+        ByteBuffer slicedByteBuffer = duplicate.slice();
 
 		return slicedByteBuffer;
 	}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.processor;
+
+import org.codehaus.preon.GeneratedCodecs;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The model of a {@link org.codehaus.preon.Codec} to be generated for a single type, capable of writing its source.
+ */
+class CodecModel {
+
+    private final String packageName;
+
+    /**
+     * The canonical name of the type decoded.
+     */
+    private final String typeName;
+
+    /**
+     * The simple name of the generated {@link org.codehaus.preon.Codec}.
+     */
+    private final String codecName;
+
+    private final List<FieldModel> fields = new ArrayList<FieldModel>();
+
+    /**
+     * @param packageName The name of the package of the type decoded.
+     * @param typeName    The canonical name of the type decoded.
+     * @param binaryName  The binary name of the type decoded.
+     */
+    CodecModel(String packageName, String typeName, String binaryName) {
+        this.packageName = packageName;
+        this.typeName = typeName;
+        String codecName = GeneratedCodecs.getCodecName(binaryName);
+        this.codecName = packageName.length() == 0 ? codecName : codecName.substring(packageName.length() + 1);
+    }
+
+    void add(FieldModel field) {
+        fields.add(field);
+    }
+
+    List<FieldModel> getFields() {
+        return fields;
+    }
+
+    String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * Returns the fully qualified name of the generated {@link org.codehaus.preon.Codec}.
+     */
+    String getQualifiedCodecName() {
+        return packageName.length() == 0 ? codecName : packageName + "." + codecName;
+    }
+
+    /**
+     * Returns the number of bits occupied by instances of the type, or <code>-1</code> if that depends on the data.
+     */
+    long getSize() {
+        long result = 0;
+        for (FieldModel field : fields) {
+            long size = field.getSize();
+            if (size < 0) {
+                return -1;
+            }
+            result += size;
+        }
+        return result;
+    }
+
+    void write(PrintWriter out) {
+        long size = getSize();
+        if (packageName.length() > 0) {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("import org.codehaus.preon.Builder;");
+        out.println("import org.codehaus.preon.Codec;");
+        out.println("import org.codehaus.preon.CodecDescriptor;");
+        out.println("import org.codehaus.preon.DecodingException;");
+        out.println("import org.codehaus.preon.DefaultBuilder;");
+        out.println("import org.codehaus.preon.DefaultCodecFactory;");
+        out.println("import org.codehaus.preon.Resolver;");
+        out.println("import org.codehaus.preon.annotation.BoundString;");
+        out.println("import org.codehaus.preon.buffer.BitBuffer;");
+        out.println("import org.codehaus.preon.buffer.ByteOrder;");
+        out.println("import org.codehaus.preon.channel.BitChannel;");
+        out.println("import org.codehaus.preon.codec.FixedLengthStringCodec;");
+        out.println("import org.codehaus.preon.codec.NullTerminatedStringCodec;");
+        out.println("import org.codehaus.preon.el.Expression;");
+        out.println("import org.codehaus.preon.el.Expressions;");
+        out.println();
+        out.println("import java.io.IOException;");
+        out.println("import java.nio.charset.Charset;");
+        out.println();
+        out.println("/**");
+        out.println(" * Generated by " + CodecProcessor.class.getName() + ". Do not edit.");
+        out.println(" */");
+        out.println("@SuppressWarnings(\"unused\")");
+        out.println("public final class " + codecName + " implements Codec<" + typeName + "> {");
+        out.println();
+        if (size >= 0) {
+            out.println("    private static final Expression<Integer, Resolver> SIZE =");
+            out.println("            Expressions.createInteger(" + size + ", Resolver.class);");
+            out.println();
+        }
+        for (FieldModel field : fields) {
+            field.writeConstants(out);
+        }
+        out.println("    private volatile Codec<" + typeName + "> reflective;");
+        out.println();
+        out.println("    public " + typeName + " decode(BitBuffer buffer, Resolver resolver, Builder builder)");
+        out.println("            throws DecodingException {");
+        out.println("        " + typeName + " result;");
+        out.println("        if (builder == null || builder.getClass() == DefaultBuilder.class) {");
+        out.println("            result = new " + typeName + "();");
+        out.println("        } else {");
+        out.println("            try {");
+        out.println("                result = builder.create(" + typeName + ".class);");
+        out.println("            } catch (InstantiationException ie) {");
+        out.println("                throw new DecodingException(ie);");
+        out.println("            } catch (IllegalAccessException iae) {");
+        out.println("                throw new DecodingException(iae);");
+        out.println("            }");
+        out.println("        }");
+        for (FieldModel field : fields) {
+            field.writeDecode(out);
+        }
+        out.println("        return result;");
+        out.println("    }");
+        out.println();
+        out.println("    public void skip(BitBuffer buffer, Resolver resolver, Builder builder)");
+        out.println("            throws DecodingException {");
+        if (size >= 0) {
+            out.println("        buffer.setBitPos(buffer.getBitPos() + " + size + "L);");
+        } else {
+            for (FieldModel field : fields) {
+                field.writeSkip(out);
+            }
+        }
+        out.println("    }");
+        out.println();
+        out.println("    public void encode(" + typeName + " value, BitChannel channel, Resolver resolver)");
+        out.println("            throws IOException {");
+        for (FieldModel field : fields) {
+            field.writeEncode(out);
+            if (field instanceof FieldModel.NumberField && ((FieldModel.NumberField) field).isEncodingUnsupported()) {
+                break;
+            }
+        }
+        out.println("    }");
+        out.println();
+        out.println("    public Expression<Integer, Resolver> getSize() {");
+        out.println("        return " + (size >= 0 ? "SIZE" : "null") + ";");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * Describes the data structure through the Codec constructed at runtime, which is only created");
+        out.println("     * when the description is actually needed.");
+        out.println("     */");
+        out.println("    public CodecDescriptor getCodecDescriptor() {");
+        out.println("        if (reflective == null) {");
+        out.println("            reflective = new DefaultCodecFactory().create(" + typeName + ".class);");
+        out.println("        }");
+        out.println("        return reflective.getCodecDescriptor();");
+        out.println("    }");
+        out.println();
+        out.println("    public Class<?>[] getTypes() {");
+        out.println("        return new Class[]{" + typeName + ".class};");
+        out.println("    }");
+        out.println();
+        out.println("    public Class<?> getType() {");
+        out.println("        return " + typeName + ".class;");
+        out.println("    }");
+        out.println();
+        out.println("}");
+    }
+
+}
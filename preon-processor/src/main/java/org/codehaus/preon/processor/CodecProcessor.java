@@ -0,0 +1,383 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * An annotation processor generating {@link org.codehaus.preon.Codec Codecs} at compile time, for every class with
+ * fields bound through {@link org.codehaus.preon.annotation.Bound}, {@link org.codehaus.preon.annotation.BoundNumber},
+ * {@link org.codehaus.preon.annotation.BoundString} or {@link org.codehaus.preon.annotation.BoundObject}. The {@link
+ * org.codehaus.preon.Codec Codecs} generated read and write fields directly, without reflection and without
+ * evaluating any expressions, and are picked up by {@link org.codehaus.preon.Codecs#create(Class)}.
+ * <p/>
+ * Only classes using a subset of the bindings supported at runtime are considered: numbers and Strings of a constant
+ * size, and nested objects of classes that are considered themselves. Fields need to be accessible from within the
+ * same package, and the class needs to have a constructor without arguments. Classes using anything else are reported
+ * through a note, and will be decoded by the {@link org.codehaus.preon.Codec Codecs} constructed at runtime, as
+ * before.
+ */
+@SupportedAnnotationTypes({
+        "org.codehaus.preon.annotation.Bound",
+        "org.codehaus.preon.annotation.BoundNumber",
+        "org.codehaus.preon.annotation.BoundString",
+        "org.codehaus.preon.annotation.BoundObject"
+})
+public class CodecProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATIONS = "org.codehaus.preon.annotation.";
+
+    private static final Pattern CONSTANT = Pattern.compile("[0-9]+");
+
+    private static final Map<TypeKind, Integer> DEFAULT_SIZES = new HashMap<TypeKind, Integer>();
+
+    static {
+        DEFAULT_SIZES.put(TypeKind.BYTE, 8);
+        DEFAULT_SIZES.put(TypeKind.SHORT, 16);
+        DEFAULT_SIZES.put(TypeKind.INT, 32);
+        DEFAULT_SIZES.put(TypeKind.LONG, 64);
+        DEFAULT_SIZES.put(TypeKind.FLOAT, 32);
+        DEFAULT_SIZES.put(TypeKind.DOUBLE, 64);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> candidates = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD
+                        && element.getEnclosingElement() instanceof TypeElement) {
+                    candidates.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        Map<TypeElement, CodecModel> models = new LinkedHashMap<TypeElement, CodecModel>();
+        for (TypeElement candidate : candidates) {
+            try {
+                models.put(candidate, analyze(candidate, candidates));
+            } catch (UnsupportedBindingException ube) {
+                skip(candidate, ube.getMessage());
+            }
+        }
+        removeUnresolved(models);
+        for (Map.Entry<TypeElement, CodecModel> entry : models.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+        // Leave the annotations to other processors.
+        return false;
+    }
+
+    /**
+     * Drops the models of types with nested objects of types for which no {@link org.codehaus.preon.Codec} will be
+     * generated, or which (indirectly) contain objects of their own type, until none are left.
+     */
+    private void removeUnresolved(Map<TypeElement, CodecModel> models) {
+        Set<CodecModel> generated = new HashSet<CodecModel>(models.values());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Iterator<Map.Entry<TypeElement, CodecModel>> it = models.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<TypeElement, CodecModel> entry = it.next();
+                for (FieldModel field : entry.getValue().getFields()) {
+                    if (field instanceof FieldModel.ObjectField) {
+                        CodecModel nested = ((FieldModel.ObjectField) field).getModel();
+                        if (!generated.contains(nested)) {
+                            skip(entry.getKey(), "no codec is generated for " + nested.getTypeName());
+                        } else if (contains(nested, entry.getValue(), new HashSet<CodecModel>())) {
+                            skip(entry.getKey(), "it contains itself");
+                        } else {
+                            continue;
+                        }
+                        generated.remove(entry.getValue());
+                        it.remove();
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean contains(CodecModel model, CodecModel target, Set<CodecModel> visited) {
+        if (model == target) {
+            return true;
+        } else if (!visited.add(model)) {
+            return false;
+        }
+        for (FieldModel field : model.getFields()) {
+            if (field instanceof FieldModel.ObjectField
+                    && contains(((FieldModel.ObjectField) field).getModel(), target, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Models created so far, including those of nested types, so that every type maps to a single model.
+     */
+    private final Map<String, CodecModel> created = new HashMap<String, CodecModel>();
+
+    private CodecModel getModel(TypeElement type) {
+        String name = type.getQualifiedName().toString();
+        CodecModel model = created.get(name);
+        if (model == null) {
+            String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+            model = new CodecModel(packageName, name, binaryName);
+            created.put(name, model);
+        }
+        return model;
+    }
+
+    private CodecModel analyze(TypeElement type, Set<TypeElement> candidates) throws UnsupportedBindingException {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new UnsupportedBindingException("it is not a concrete class");
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new UnsupportedBindingException("it has type parameters");
+        }
+        for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            TypeElement current = (TypeElement) enclosing;
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new UnsupportedBindingException("it is not accessible");
+            }
+            if (current.getNestingKind() != NestingKind.TOP_LEVEL
+                    && (current.getNestingKind() != NestingKind.MEMBER
+                    || !current.getModifiers().contains(Modifier.STATIC))) {
+                throw new UnsupportedBindingException("it is not a top-level or static nested class");
+            }
+        }
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED || !"java.lang.Object".equals(
+                ((TypeElement) ((DeclaredType) superclass).asElement()).getQualifiedName().toString())) {
+            throw new UnsupportedBindingException("it extends another class");
+        }
+        checkNoBindings(type);
+        boolean constructor = false;
+        CodecModel model = getModel(type);
+        model.getFields().clear();
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR) {
+                if (((ExecutableElement) member).getParameters().isEmpty()
+                        && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                    constructor = true;
+                }
+            } else if (member.getKind() == ElementKind.METHOD) {
+                checkNoBindings(member);
+            } else if (member.getKind() == ElementKind.FIELD && !member.getModifiers().contains(Modifier.STATIC)) {
+                FieldModel field = analyze((VariableElement) member, candidates);
+                if (field != null) {
+                    model.add(field);
+                }
+            }
+        }
+        if (!constructor) {
+            throw new UnsupportedBindingException("it does not have an accessible constructor without arguments");
+        }
+        return model;
+    }
+
+    private FieldModel analyze(VariableElement field, Set<TypeElement> candidates)
+            throws UnsupportedBindingException {
+        AnnotationMirror binding = null;
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            if (getName(mirror).startsWith(ANNOTATIONS)) {
+                if (binding != null) {
+                    throw new UnsupportedBindingException(field.getSimpleName() + " has more than one annotation");
+                }
+                binding = mirror;
+            }
+        }
+        if (binding == null) {
+            return null;
+        }
+        String name = field.getSimpleName().toString();
+        if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.FINAL)) {
+            throw new UnsupportedBindingException(name + " is private or final");
+        }
+        String annotation = getName(binding).substring(ANNOTATIONS.length());
+        Map<String, Object> values = getValues(binding);
+        TypeKind kind = getPrimitiveKind(field.asType());
+        if ("Bound".equals(annotation)) {
+            if (kind == TypeKind.BOOLEAN) {
+                return new FieldModel.BooleanField(name);
+            } else if (DEFAULT_SIZES.containsKey(kind)) {
+                return new FieldModel.NumberField(name, getKeyword(kind), DEFAULT_SIZES.get(kind), "LittleEndian");
+            }
+        } else if ("BoundNumber".equals(annotation)) {
+            String size = getString(values, "size");
+            if (DEFAULT_SIZES.containsKey(kind) && !values.containsKey("type")
+                    && getString(values, "match").length() == 0
+                    && (size.length() == 0 || CONSTANT.matcher(size).matches())) {
+                String byteOrder = values.containsKey("byteOrder")
+                        ? ((VariableElement) values.get("byteOrder")).getSimpleName().toString()
+                        : "LittleEndian";
+                return new FieldModel.NumberField(name, getKeyword(kind),
+                        size.length() == 0 ? DEFAULT_SIZES.get(kind) : Integer.parseInt(size), byteOrder);
+            }
+        } else if ("BoundString".equals(annotation)) {
+            String size = getString(values, "size");
+            if (isType(field.asType(), "java.lang.String") && !values.containsKey("converter")
+                    && (size.length() == 0 || CONSTANT.matcher(size).matches())) {
+                String encoding = values.containsKey("encoding") ? (String) values.get("encoding") : "US-ASCII";
+                return new FieldModel.StringField(name, size.length() == 0 ? -1 : Integer.parseInt(size),
+                        encoding, getString(values, "match"));
+            }
+        } else if ("BoundObject".equals(annotation)) {
+            if (values.isEmpty() && field.asType().getKind() == TypeKind.DECLARED) {
+                TypeElement nested = (TypeElement) ((DeclaredType) field.asType()).asElement();
+                if (candidates.contains(nested)) {
+                    return new FieldModel.ObjectField(name, getModel(nested));
+                }
+            }
+        }
+        throw new UnsupportedBindingException(name + " uses a binding that requires runtime interpretation");
+    }
+
+    /**
+     * Makes sure the element does not carry any annotation that would change the way the type is decoded.
+     */
+    private static void checkNoBindings(Element element) throws UnsupportedBindingException {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (getName(mirror).startsWith(ANNOTATIONS)) {
+                throw new UnsupportedBindingException(element.getSimpleName() + " is annotated with "
+                        + getName(mirror));
+            }
+        }
+    }
+
+    private static String getName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the values set explicitly on the annotation, by name.
+     */
+    private static Map<String, Object> getValues(AnnotationMirror mirror) {
+        Map<String, Object> result = new HashMap<String, Object>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : mirror.getElementValues().entrySet()) {
+            result.put(entry.getKey().getSimpleName().toString(), entry.getValue().getValue());
+        }
+        return result;
+    }
+
+    private static String getString(Map<String, Object> values, String name) {
+        return values.containsKey(name) ? ((String) values.get(name)).trim() : "";
+    }
+
+    private TypeKind getPrimitiveKind(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind();
+        }
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type).getKind();
+        } catch (IllegalArgumentException iae) {
+            return type.getKind();
+        }
+    }
+
+    private static String getKeyword(TypeKind kind) {
+        return kind.name().toLowerCase();
+    }
+
+    private static boolean isType(TypeMirror type, String name) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private void skip(TypeElement type, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "Not generating a codec for " + type.getQualifiedName() + ", since " + reason + ".", type);
+    }
+
+    private void write(TypeElement type, CodecModel model) {
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(model.getQualifiedCodecName(), type);
+            PrintWriter out = new PrintWriter(file.openWriter());
+            try {
+                model.write(out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException ioe) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to generate a codec for " + type.getQualifiedName() + ": " + ioe.getMessage(), type);
+        }
+    }
+
+    /**
+     * Thrown when a type uses a binding for which no code can be generated.
+     */
+    private static class UnsupportedBindingException extends Exception {
+
+        public UnsupportedBindingException(String reason) {
+            super(reason);
+        }
+
+    }
+
+}
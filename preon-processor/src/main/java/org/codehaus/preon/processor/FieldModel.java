@@ -0,0 +1,281 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.processor;
+
+import java.io.PrintWriter;
+
+/**
+ * The model of a single bound field, capable of writing the statements decoding, encoding and skipping its value.
+ * Every subclass corresponds to a binding that can be decoded without interpreting any expressions at runtime.
+ */
+abstract class FieldModel {
+
+    /**
+     * The name of the field.
+     */
+    protected final String name;
+
+    protected FieldModel(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the number of bits occupied by the field, or <code>-1</code> if that depends on the data.
+     */
+    abstract long getSize();
+
+    /**
+     * Writes the declarations of the static fields the statements written refer to, if any.
+     */
+    void writeConstants(PrintWriter out) {
+    }
+
+    /**
+     * Writes a statement decoding the value from <code>buffer</code> into <code>result</code>.
+     */
+    abstract void writeDecode(PrintWriter out);
+
+    /**
+     * Writes a statement encoding the value of <code>value</code> to <code>channel</code>.
+     */
+    abstract void writeEncode(PrintWriter out);
+
+    /**
+     * Writes a statement moving <code>buffer</code> past the encoded value.
+     */
+    void writeSkip(PrintWriter out) {
+        out.println("        buffer.setBitPos(buffer.getBitPos() + " + getSize() + "L);");
+    }
+
+    /**
+     * The name of the static field holding on to the {@link org.codehaus.preon.Codec} of this field, if any.
+     */
+    protected String getCodecName() {
+        return "CODEC_" + name;
+    }
+
+    static String quote(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * A number, bound through {@link org.codehaus.preon.annotation.Bound} or through {@link
+     * org.codehaus.preon.annotation.BoundNumber} with a constant size.
+     */
+    static class NumberField extends FieldModel {
+
+        private final String type;
+
+        private final int size;
+
+        private final String byteOrder;
+
+        /**
+         * @param type      The name of the primitive type of the number.
+         * @param size      The number of bits.
+         * @param byteOrder The name of the {@link org.codehaus.preon.buffer.ByteOrder} constant.
+         */
+        NumberField(String name, String type, int size, String byteOrder) {
+            super(name);
+            this.type = type;
+            this.size = size;
+            this.byteOrder = byteOrder;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        void writeDecode(PrintWriter out) {
+            String order = "ByteOrder." + byteOrder;
+            String read;
+            if ("float".equals(type)) {
+                read = "Float.intBitsToFloat(buffer.readAsInt(" + size + ", " + order + "))";
+            } else if ("double".equals(type)) {
+                read = "Double.longBitsToDouble(buffer.readAsLong(" + size + ", " + order + "))";
+            } else {
+                String method = Character.toUpperCase(type.charAt(0)) + type.substring(1);
+                read = "buffer.readAs" + method + "(" + size + ", " + order + ")";
+            }
+            out.println("        result." + name + " = " + read + ";");
+        }
+
+        void writeEncode(PrintWriter out) {
+            if ("float".equals(type) || "double".equals(type)) {
+                out.println("        throw new UnsupportedOperationException(\"Encoding not supported for "
+                        + type + "s.\");");
+            } else if ("byte".equals(type)) {
+                out.println("        channel.write(" + size + ", (byte) value." + name + ");");
+            } else {
+                out.println("        channel.write(" + size + ", (" + type + ") value." + name
+                        + ", ByteOrder." + byteOrder + ");");
+            }
+        }
+
+        /**
+         * Returns whether encoding always fails, in which case no statements may follow.
+         */
+        boolean isEncodingUnsupported() {
+            return "float".equals(type) || "double".equals(type);
+        }
+
+    }
+
+    /**
+     * A boolean, bound through {@link org.codehaus.preon.annotation.Bound}.
+     */
+    static class BooleanField extends FieldModel {
+
+        BooleanField(String name) {
+            super(name);
+        }
+
+        long getSize() {
+            return 1;
+        }
+
+        void writeDecode(PrintWriter out) {
+            out.println("        result." + name + " = buffer.readAsBoolean();");
+        }
+
+        void writeEncode(PrintWriter out) {
+            out.println("        channel.write((boolean) value." + name + ");");
+        }
+
+    }
+
+    /**
+     * A String, bound through {@link org.codehaus.preon.annotation.BoundString} with a constant size, or no size at
+     * all. Delegates to the same {@link org.codehaus.preon.Codec Codecs} used at runtime.
+     */
+    static class StringField extends FieldModel {
+
+        private final int size;
+
+        private final String encoding;
+
+        private final String match;
+
+        /**
+         * @param size The number of bytes, or <code>-1</code> for null-terminated Strings.
+         */
+        StringField(String name, int size, String encoding, String match) {
+            super(name);
+            this.size = size;
+            this.encoding = encoding;
+            this.match = match;
+        }
+
+        long getSize() {
+            return size < 0 ? -1 : 8L * size;
+        }
+
+        void writeConstants(PrintWriter out) {
+            out.println("    private static final Codec<String> " + getCodecName() + " =");
+            if (size < 0) {
+                out.println("            new NullTerminatedStringCodec(Charset.forName(" + quote(encoding) + "), "
+                        + quote(match) + ", new BoundString.NullConverter());");
+            } else {
+                out.println("            new FixedLengthStringCodec(Charset.forName(" + quote(encoding) + "), "
+                        + "Expressions.createInteger(" + size + ", Resolver.class), " + quote(match)
+                        + ", new BoundString.NullConverter());");
+            }
+            out.println();
+        }
+
+        void writeDecode(PrintWriter out) {
+            out.println("        result." + name + " = " + getCodecName() + ".decode(buffer, resolver, builder);");
+        }
+
+        void writeEncode(PrintWriter out) {
+            out.println("        " + getCodecName() + ".encode(value." + name + ", channel, resolver);");
+        }
+
+        void writeSkip(PrintWriter out) {
+            out.println("        " + getCodecName() + ".skip(buffer, resolver, builder);");
+        }
+
+    }
+
+    /**
+     * An object, bound through a plain {@link org.codehaus.preon.annotation.BoundObject}, of a type for which a codec
+     * is generated as well.
+     */
+    static class ObjectField extends FieldModel {
+
+        private final CodecModel model;
+
+        ObjectField(String name, CodecModel model) {
+            super(name);
+            this.model = model;
+        }
+
+        CodecModel getModel() {
+            return model;
+        }
+
+        long getSize() {
+            return model.getSize();
+        }
+
+        void writeConstants(PrintWriter out) {
+            out.println("    private static final " + model.getQualifiedCodecName() + " " + getCodecName() + " =");
+            out.println("            new " + model.getQualifiedCodecName() + "();");
+            out.println();
+        }
+
+        void writeDecode(PrintWriter out) {
+            out.println("        result." + name + " = " + getCodecName() + ".decode(buffer, resolver, builder);");
+        }
+
+        void writeEncode(PrintWriter out) {
+            out.println("        " + getCodecName() + ".encode(value." + name + ", channel, resolver);");
+        }
+
+        void writeSkip(PrintWriter out) {
+            out.println("        " + getCodecName() + ".skip(buffer, resolver, builder);");
+        }
+
+    }
+
+}
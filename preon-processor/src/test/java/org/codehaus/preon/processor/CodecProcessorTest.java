@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.processor;
+
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.Codecs;
+import org.codehaus.preon.DefaultCodecFactory;
+import org.codehaus.preon.GeneratedCodecs;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class CodecProcessorTest {
+
+    private static final String HEADER = "package sample;\n"
+            + "import org.codehaus.preon.annotation.*;\n"
+            + "import org.codehaus.preon.buffer.ByteOrder;\n"
+            + "public class Header {\n"
+            + "    @BoundNumber(size = \"4\") public int version;\n"
+            + "    @BoundNumber(size = \"11\", byteOrder = ByteOrder.BigEndian) int flags;\n"
+            + "    @Bound boolean compressed;\n"
+            + "    @Bound byte kind;\n"
+            + "    @BoundString(size = \"3\") String magic;\n"
+            + "    @BoundObject Point origin;\n"
+            + "    @BoundString(encoding = \"UTF-8\") String name;\n"
+            + "    @Bound Long total;\n"
+            + "    int ignored;\n"
+            + "    public static class Point {\n"
+            + "        @BoundNumber(size = \"8\") short x;\n"
+            + "        @BoundNumber(size = \"8\") Short y;\n"
+            + "    }\n"
+            + "}\n";
+
+    private static final String CONDITIONAL = "package sample;\n"
+            + "import org.codehaus.preon.annotation.*;\n"
+            + "public class Conditional {\n"
+            + "    @BoundNumber(size = \"8\") int count;\n"
+            + "    @If(\"count > 0\") @BoundNumber(size = \"8\") int value;\n"
+            + "}\n";
+
+    private static final String CONTAINER = "package sample;\n"
+            + "import org.codehaus.preon.annotation.*;\n"
+            + "public class Container {\n"
+            + "    @BoundObject Conditional conditional;\n"
+            + "}\n";
+
+    private static final byte[] DATA = {
+            0x21, 0x34, (byte) 0x9f, 'P', 'N', 'G', 3, 4,
+            (byte) 0xc3, (byte) 0xa9, 't', 0,
+            1, 2, 3, 4, 5, 6, 7, 8
+    };
+
+    private static ClassLoader loader;
+
+    private static List<String> notes = new ArrayList<String>();
+
+    @BeforeClass
+    public static void compile() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        File output = File.createTempFile("preon", "classes");
+        output.delete();
+        output.mkdirs();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                "-d", output.getPath(), "-s", output.getPath());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                Arrays.asList(source("Header", HEADER), source("Conditional", CONDITIONAL),
+                        source("Container", CONTAINER)));
+        task.setProcessors(Collections.singletonList(new CodecProcessor()));
+        boolean success = task.call();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.NOTE) {
+                notes.add(diagnostic.getMessage(null));
+            }
+        }
+        assertTrue(diagnostics.getDiagnostics().toString(), success);
+        loader = new URLClassLoader(new URL[]{output.toURI().toURL()}, CodecProcessorTest.class.getClassLoader());
+    }
+
+    @Test
+    public void shouldGenerateCodecsForSupportedBindings() throws Exception {
+        Class<?> header = loader.loadClass("sample.Header");
+        assertThat(Codecs.create(header).getClass().getName(),
+                is(GeneratedCodecs.getCodecName("sample.Header")));
+        assertThat(Codecs.create(loader.loadClass("sample.Header$Point")).getSize().eval(null), is(16));
+    }
+
+    @Test
+    public void shouldSkipUnsupportedBindings() throws Exception {
+        assertThat(GeneratedCodecs.find(loader.loadClass("sample.Conditional")), nullValue());
+        assertThat(GeneratedCodecs.find(loader.loadClass("sample.Container")), nullValue());
+        assertThat(notes.toString().contains("sample.Conditional"), is(true));
+        assertThat(notes.toString().contains("sample.Container"), is(true));
+    }
+
+    @Test
+    public void shouldDecodeLikeRuntimeCodec() throws Exception {
+        Class<?> header = loader.loadClass("sample.Header");
+        Object generated = Codecs.decode(Codecs.create(header), DATA);
+        Object reflective = Codecs.decode(new DefaultCodecFactory().create(header), DATA);
+        for (Field field : header.getDeclaredFields()) {
+            field.setAccessible(true);
+            if (field.getName().equals("origin")) {
+                for (Field coordinate : field.getType().getDeclaredFields()) {
+                    coordinate.setAccessible(true);
+                    assertEquals(coordinate.get(field.get(reflective)), coordinate.get(field.get(generated)));
+                }
+            } else {
+                assertEquals(field.getName(), field.get(reflective), field.get(generated));
+            }
+        }
+        assertThat(get(generated, "name"), is((Object) "\u00e9t"));
+        assertThat(get(generated, "flags"), not(is((Object) 0)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldEncodeLikeRuntimeCodec() throws Exception {
+        Class<?> header = loader.loadClass("sample.Header");
+        Codec<Object> generated = (Codec<Object>) Codecs.create(header);
+        Codec<Object> reflective = (Codec<Object>) new DefaultCodecFactory().create(header);
+        Object value = Codecs.decode(generated, DATA);
+        assertArrayEquals(Codecs.encode(value, reflective), Codecs.encode(value, generated));
+    }
+
+    private static Object get(Object instance, String name) throws Exception {
+        Field field = instance.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(instance);
+    }
+
+    private static JavaFileObject source(String name, final String content) {
+        return new SimpleJavaFileObject(URI.create("string:///sample/" + name + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+
+}
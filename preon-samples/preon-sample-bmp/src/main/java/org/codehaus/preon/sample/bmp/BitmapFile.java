@@ -32,6 +32,7 @@
  */
 package org.codehaus.preon.sample.bmp;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.codehaus.preon.annotation.Bound;
@@ -52,7 +53,7 @@ public class BitmapFile {
     @BoundList(size = "bitmapInformation.bitmapWidth "
             + "* bitmapInformation.bitmapHeight "
             + "* bitmapInformation.colorDepth / 8")
-    private byte[] bitmapData;
+    private ByteBuffer bitmapData;
 
 
     public long getHeight() {
@@ -67,7 +68,10 @@ public class BitmapFile {
         return colors;
     }
 
-    public byte[] getData() {
+    /**
+     * Returns a read-only view on the bitmap data, which is not copied while decoding.
+     */
+    public ByteBuffer getData() {
         return bitmapData;
     }
 
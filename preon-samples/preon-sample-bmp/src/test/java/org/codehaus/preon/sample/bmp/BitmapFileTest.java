@@ -65,7 +65,7 @@ public class BitmapFileTest extends TestCase {
             System.out.print(quad.getBlue());
             System.out.println();
         }
-        System.out.println("Data " + bitmap.getData().length);
+        System.out.println("Data " + bitmap.getData().remaining());
         File directory = new File(System.getProperty("java.io.tmpdir"));
         File document = new File(directory, "bitmap.html");
         Codecs.document(codec, DocumentType.Html, document);
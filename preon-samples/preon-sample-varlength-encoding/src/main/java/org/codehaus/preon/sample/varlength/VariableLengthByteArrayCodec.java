@@ -60,6 +60,12 @@ public class VariableLengthByteArrayCodec implements Codec<byte[]> {
         return bout.toByteArray();
     }
 
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder) throws DecodingException {
+        while ((buffer.readAsByte(8) & (1 << 7)) > 0) {
+            // Keep on reading as long as more bytes are expected to follow.
+        }
+    }
+
     public void encode(byte[] value, BitChannel channel, Resolver resolver) throws IOException {
         channel.write(value, 0, value.length - 1);
     }
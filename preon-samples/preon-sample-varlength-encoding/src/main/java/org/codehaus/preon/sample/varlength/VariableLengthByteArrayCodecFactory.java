@@ -33,6 +33,7 @@
 package org.codehaus.preon.sample.varlength;
 
 import java.lang.reflect.AnnotatedElement;
+import java.nio.ByteBuffer;
 import org.codehaus.preon.Codec;
 import org.codehaus.preon.CodecFactory;
 import org.codehaus.preon.ResolverContext;
@@ -42,6 +43,9 @@ public class VariableLengthByteArrayCodecFactory implements CodecFactory {
     public <T> Codec<T> create(AnnotatedElement metadata, Class<T> type, ResolverContext context) {
         if (metadata != null && metadata.isAnnotationPresent(VarLengthEncoded.class) && type == byte[].class) {
             return (Codec<T>) new VariableLengthByteArrayCodec();
+        } else if (metadata != null && metadata.isAnnotationPresent(VarLengthEncoded.class)
+                && type == ByteBuffer.class) {
+            return (Codec<T>) new VariableLengthByteBufferCodec();
         } else {
             return null;
         }
@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2009-2010 Wilfred Springer
+ *
+ * This file is part of Preon.
+ *
+ * Preon is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2, or (at your option) any later version.
+ *
+ * Preon is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Preon; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.codehaus.preon.sample.varlength;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.codehaus.preon.Builder;
+import org.codehaus.preon.Codec;
+import org.codehaus.preon.CodecDescriptor;
+import org.codehaus.preon.DecodingException;
+import org.codehaus.preon.Resolver;
+import org.codehaus.preon.buffer.BitBuffer;
+import org.codehaus.preon.channel.BitChannel;
+import org.codehaus.preon.el.Expression;
+
+/**
+ * The {@link Codec} decoding variable length encoded byte arrays into read-only {@link ByteBuffer ByteBuffers}. The
+ * length is determined by scanning ahead first, after which the bytes are returned as a view on the {@link BitBuffer},
+ * rather than copied, if they start at a byte boundary.
+ */
+public class VariableLengthByteBufferCodec implements Codec<ByteBuffer> {
+
+    private final VariableLengthByteArrayCodec delegate = new VariableLengthByteArrayCodec();
+
+    public ByteBuffer decode(BitBuffer buffer, Resolver resolver, Builder builder) throws DecodingException {
+        long start = buffer.getBitPos();
+        int length = 1;
+        while ((buffer.readAsByte(8) & (1 << 7)) > 0) {
+            length++;
+        }
+        buffer.setBitPos(start);
+        if (buffer.getActualBitPos() % 8 == 0) {
+            return buffer.readAsByteBuffer(length).asReadOnlyBuffer();
+        } else {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.readAsByte(8);
+            }
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+    }
+
+    public void skip(BitBuffer buffer, Resolver resolver, Builder builder) throws DecodingException {
+        delegate.skip(buffer, resolver, builder);
+    }
+
+    public void encode(ByteBuffer value, BitChannel channel, Resolver resolver) throws IOException {
+        byte[] bytes = new byte[value.remaining()];
+        value.duplicate().get(bytes);
+        delegate.encode(bytes, channel, resolver);
+    }
+
+    public Expression<Integer, Resolver> getSize() {
+        return null;
+    }
+
+    public CodecDescriptor getCodecDescriptor() {
+        return delegate.getCodecDescriptor();
+    }
+
+    public Class<?>[] getTypes() {
+        return new Class<?>[] { ByteBuffer.class };
+    }
+
+    public Class<?> getType() {
+        return ByteBuffer.class;
+    }
+}
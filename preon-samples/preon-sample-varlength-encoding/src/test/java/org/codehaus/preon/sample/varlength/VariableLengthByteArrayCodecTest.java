@@ -42,6 +42,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 
+import java.nio.ByteBuffer;
+
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
 import static org.hamcrest.core.IsNull.nullValue;
@@ -96,6 +98,25 @@ public class VariableLengthByteArrayCodecTest {
         Codecs.document(codec, Codecs.DocumentType.Html, System.err);
     }
 
+    @Test
+    public void shouldDecodeByteBufferHolder() throws DecodingException {
+        Codec<ByteBufferHolder> codec = Codecs.create(ByteBufferHolder.class, new VariableLengthByteArrayCodecFactory());
+        ByteBufferHolder holder = Codecs.decode(codec, (byte) 0xff, (byte) 0x0f, (byte) 0x01);
+        assertThat(holder.value.isReadOnly(), is(true));
+        assertThat(holder.value.remaining(), is(2));
+        assertThat(holder.value.get(0), is((byte) 0xff));
+        assertThat(holder.value.get(1), is((byte) 0x0f));
+        assertThat(holder.next.remaining(), is(1));
+    }
+
+    public static class ByteBufferHolder {
+
+        @VarLengthEncoded ByteBuffer value;
+
+        @VarLengthEncoded ByteBuffer next;
+
+    }
+
     public static class SomeHolder {
 
         @VarLengthEncoded byte[] value;